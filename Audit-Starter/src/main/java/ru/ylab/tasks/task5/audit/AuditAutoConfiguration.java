@@ -1,11 +1,27 @@
 package ru.ylab.tasks.task5.audit;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import ru.ylab.tasks.task5.audit.aspect.AuditAspect;
+import ru.ylab.tasks.task5.audit.async.AsyncAuditDispatcher;
+import ru.ylab.tasks.task5.audit.async.AuditMetrics;
+import ru.ylab.tasks.task5.audit.event.AuditEvent;
+import ru.ylab.tasks.task5.audit.event.AuditPrincipalResolver;
 import ru.ylab.tasks.task5.audit.handler.AuditHandler;
 import ru.ylab.tasks.task5.audit.handler.DefaultAuditHandler;
+import ru.ylab.tasks.task5.audit.handler.JdbcAuditHandler;
+import ru.ylab.tasks.task5.audit.handler.JournalAuditHandler;
+import ru.ylab.tasks.task5.audit.journal.AuditJournal;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * Конфигурация Spring для автоматической настройки системы аудита.
@@ -15,19 +31,72 @@ import ru.ylab.tasks.task5.audit.handler.DefaultAuditHandler;
  * 1. Добавить зависимость на этот модуль
  * 2. Пометить методы аннотацией @Auditable
  * 3. При необходимости предоставить свою реализацию AuditHandler
+ * Обработчик по умолчанию выбирается параметром audit.handler: stdout, jdbc или journal.
+ * При audit.mode=async события передаются AuditHandler пакетами из фонового потока
+ * через {@link AsyncAuditDispatcher}, а его счетчики публикуются в Micrometer, если он подключен.
+ * Пользователь события определяется бином {@link AuditPrincipalResolver}, если он есть.
  */
 @Configuration
+@EnableConfigurationProperties(AuditProperties.class)
 public class AuditAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public AuditAspect auditAspect(AuditHandler handler) {
-        return new AuditAspect(handler);
+    public AuditAspect auditAspect(AuditHandler handler,
+                                   ObjectProvider<AsyncAuditDispatcher> asyncDispatcher,
+                                   ObjectProvider<AuditPrincipalResolver> principalResolver) {
+        AuditPrincipalResolver resolver = principalResolver.getIfAvailable(() -> AuditPrincipalResolver.NONE);
+        AsyncAuditDispatcher dispatcher = asyncDispatcher.getIfAvailable();
+        if (dispatcher != null) return new AuditAspect(dispatcher::submit, resolver);
+        return new AuditAspect((action, args, principal, timestampNanos) ->
+                handler.handle(new AuditEvent(action, args, principal, timestampNanos)), resolver);
     }
 
     @Bean
     @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "audit", name = "handler", havingValue = "stdout", matchIfMissing = true)
     public AuditHandler auditHandler() {
         return new DefaultAuditHandler();
     }
+
+    @Bean
+    @ConditionalOnMissingBean(AuditHandler.class)
+    @ConditionalOnProperty(prefix = "audit", name = "handler", havingValue = "jdbc")
+    public JdbcAuditHandler jdbcAuditHandler(DataSource dataSource, AuditProperties properties) {
+        AuditProperties.Jdbc jdbc = properties.jdbc();
+        return new JdbcAuditHandler(dataSource, jdbc.table(), jdbc.batchSize(), jdbc.flushInterval(),
+                jdbc.maxArgsLength());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(AuditHandler.class)
+    @ConditionalOnProperty(prefix = "audit", name = "handler", havingValue = "journal")
+    public JournalAuditHandler journalAuditHandler(AuditProperties properties) throws IOException {
+        AuditProperties.Journal journal = properties.journal();
+        AuditJournal auditJournal = new AuditJournal(Path.of(journal.directory()),
+                Math.toIntExact(journal.segmentSize().toBytes()), journal.maxSegments());
+        return new JournalAuditHandler(auditJournal, journal.maxArgsLength(), journal.force());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "audit", name = "mode", havingValue = "async")
+    public AsyncAuditDispatcher asyncAuditDispatcher(AuditHandler handler, AuditProperties properties) {
+        AuditProperties.Async async = properties.async();
+        return new AsyncAuditDispatcher(handler, async.capacity(), async.batchSize(), async.overflow(),
+                async.sampleRate(), async.flushInterval(), async.shutdownTimeout());
+    }
+
+    /**
+     * Метрики асинхронного аудита, регистрируются только при наличии Micrometer.
+     */
+    @Configuration
+    @ConditionalOnClass(MeterBinder.class)
+    @ConditionalOnProperty(prefix = "audit", name = "mode", havingValue = "async")
+    static class AuditMetricsConfiguration {
+
+        @Bean
+        public AuditMetrics auditMetrics(AsyncAuditDispatcher asyncAuditDispatcher) {
+            return new AuditMetrics(asyncAuditDispatcher);
+        }
+    }
 }
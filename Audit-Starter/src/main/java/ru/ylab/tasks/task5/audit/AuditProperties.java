@@ -0,0 +1,87 @@
+package ru.ylab.tasks.task5.audit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+import ru.ylab.tasks.task5.audit.async.OverflowPolicy;
+
+import java.time.Duration;
+
+/**
+ * Настройки аудита с префиксом audit.
+ * @param mode    sync - обработчик вызывается в потоке запроса;
+ *                async - события передаются обработчику пакетами из фонового потока
+ * @param handler обработчик по умолчанию: stdout - стандартный вывод, jdbc - таблица базы данных,
+ *                journal - журнал в отображаемых в память файлах
+ * @param async   настройки асинхронного режима
+ * @param jdbc    настройки записи в базу данных
+ * @param journal настройки записи в журнал
+ */
+@ConfigurationProperties(prefix = "audit")
+public record AuditProperties(
+        @DefaultValue("sync") Mode mode,
+        @DefaultValue("stdout") Handler handler,
+        @DefaultValue Async async,
+        @DefaultValue Jdbc jdbc,
+        @DefaultValue Journal journal
+) {
+
+    public enum Mode {
+        SYNC,
+        ASYNC
+    }
+
+    public enum Handler {
+        STDOUT,
+        JDBC,
+        JOURNAL
+    }
+
+    /**
+     * @param capacity        емкость буфера событий, округляется вверх до степени двойки
+     * @param batchSize       максимальное количество событий в одном пакете
+     * @param overflow        поведение при заполненном буфере: block, drop или sample
+     * @param sampleRate      для политики sample: доля принимаемых событий 1/sampleRate под нагрузкой
+     * @param flushInterval   максимальное время ожидания неполного пакета
+     * @param shutdownTimeout время на запись оставшихся событий при остановке приложения
+     */
+    public record Async(
+            @DefaultValue("8192") int capacity,
+            @DefaultValue("256") int batchSize,
+            @DefaultValue("block") OverflowPolicy overflow,
+            @DefaultValue("10") int sampleRate,
+            @DefaultValue("100ms") Duration flushInterval,
+            @DefaultValue("5s") Duration shutdownTimeout
+    ) {
+    }
+
+    /**
+     * @param table         таблица аудита, допускается со схемой
+     * @param batchSize     максимальное количество строк в одной пакетной вставке
+     * @param flushInterval максимальное время хранения одиночных событий синхронного аудита в буфере
+     * @param maxArgsLength максимальная длина сохраняемой строки аргументов
+     */
+    public record Jdbc(
+            @DefaultValue("audit_log") String table,
+            @DefaultValue("100") int batchSize,
+            @DefaultValue("1s") Duration flushInterval,
+            @DefaultValue("4000") int maxArgsLength
+    ) {
+    }
+
+    /**
+     * @param directory     каталог файлов журнала
+     * @param segmentSize   размер одного файла журнала, не меньше 64KB и не больше 2GB
+     * @param maxSegments   максимальное количество хранимых файлов, старые удаляются; 0 - без ограничения
+     * @param maxArgsLength максимальная длина сохраняемой строки аргументов
+     * @param force         записывать изменения на диск после каждого события или пакета
+     */
+    public record Journal(
+            @DefaultValue("audit-journal") String directory,
+            @DefaultValue("64MB") DataSize segmentSize,
+            @DefaultValue("0") int maxSegments,
+            @DefaultValue("4000") int maxArgsLength,
+            @DefaultValue("false") boolean force
+    ) {
+    }
+}
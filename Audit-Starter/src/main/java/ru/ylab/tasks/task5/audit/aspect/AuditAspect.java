@@ -3,35 +3,147 @@ package ru.ylab.tasks.task5.audit.aspect;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import ru.ylab.tasks.task5.audit.event.AuditClock;
+import ru.ylab.tasks.task5.audit.event.AuditEvent;
+import ru.ylab.tasks.task5.audit.event.AuditEventPublisher;
+import ru.ylab.tasks.task5.audit.event.AuditPrincipalResolver;
 import ru.ylab.tasks.task5.audit.handler.AuditHandler;
 import ru.ylab.tasks.task5.audit.annotation.Auditable;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Аспект Spring AOP для обработки аннотации Auditable.
  * Перехватывает выполнение методов, помеченных аннотацией @Auditable,
- * и делегирует обработку аудита компоненту AuditHandler.
+ * и передает событие аудита получателю: напрямую AuditHandler
+ * или асинхронному диспетчеру, который передаст его AuditHandler позже.
+ * Аспект передает только поля события: при асинхронном аудите они записываются в готовую
+ * ячейку буфера, и сам аспект не создает на вызов ничего, кроме копии массива аргументов в getArgs().
+ * Аннотация не связывается с параметром совета: связывание параметров Spring AOP выполняет
+ * на каждый вызов, поэтому действие определяется по методу один раз и запоминается.
+ * Аргументы сохраняются по ссылке и преобразуются в строку позже, в потоке записи. Запрос и ответ
+ * сервлета, сессия и потоки ввода-вывода к этому времени уже возвращены контейнеру или закрыты,
+ * поэтому такие аргументы заменяются при перехвате строкой с именем их типа.
  */
 @Aspect
 public class AuditAspect {
 
-    private final AuditHandler auditHandler;
+    /**
+     * Типы аргументов, действительных только во время вызова. Сравниваются по имени,
+     * чтобы стартер не зависел от API сервлетов.
+     */
+    private static final Set<String> OPAQUE_TYPE_NAMES = Set.of(
+            "jakarta.servlet.ServletRequest",
+            "jakarta.servlet.ServletResponse",
+            "jakarta.servlet.http.HttpSession");
+    private static final Set<Class<?>> OPAQUE_TYPES = Set.of(
+            InputStream.class, OutputStream.class, Reader.class, Writer.class);
+    private static final String[] NO_OPAQUE_ARGUMENTS = new String[0];
+
+    private final AuditEventPublisher publisher;
+    private final AuditPrincipalResolver principalResolver;
+    private final Map<Method, String> actions = new ConcurrentHashMap<>();
+    private final Map<Method, String[]> opaqueArguments = new ConcurrentHashMap<>();
 
     public AuditAspect(AuditHandler auditHandler) {
-        this.auditHandler = auditHandler;
+        this((action, args, principal, timestampNanos) ->
+                auditHandler.handle(new AuditEvent(action, args, principal, timestampNanos)),
+                AuditPrincipalResolver.NONE);
+    }
+
+    /**
+     * @param publisher         получатель событий аудита
+     * @param principalResolver определение текущего пользователя
+     */
+    public AuditAspect(AuditEventPublisher publisher, AuditPrincipalResolver principalResolver) {
+        this.publisher = publisher;
+        this.principalResolver = principalResolver;
     }
 
     /**
      * Совет, выполняемый вокруг методов, помеченных аннотацией @Auditable.
      * Метод выполняется после успешного выполнения метода и регистрирует
-     * событие аудита через AuditHandler.
+     * событие аудита с текущим пользователем и временем события.
      * @param pjp точка соединения для доступа к информации о методе
-     * @param auditable экземпляр аннотации с параметрами
      * @return результат выполнения целевого метода
      */
-    @Around("@annotation(auditable)")
-    public Object audit(ProceedingJoinPoint pjp, Auditable auditable) throws Throwable {
+    @Around("@annotation(ru.ylab.tasks.task5.audit.annotation.Auditable)")
+    public Object audit(ProceedingJoinPoint pjp) throws Throwable {
         Object result = pjp.proceed();
-        auditHandler.handle(auditable.action(), pjp.getArgs());
+        publisher.publish(action(pjp), capturedArgs(pjp), principalResolver.currentPrincipal(), AuditClock.epochNanos());
         return result;
     }
+
+    /**
+     * Возвращает аргументы вызова для события, заменяя аргументы, действительные только во время вызова.
+     * getArgs() возвращает копию массива, поэтому ее можно изменять.
+     */
+    private Object[] capturedArgs(ProceedingJoinPoint pjp) {
+        Object[] args = pjp.getArgs();
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        String[] opaque = opaqueArguments.get(method);
+        if (opaque == null) opaque = opaqueArguments.computeIfAbsent(method, AuditAspect::opaqueArguments);
+        for (int i = 0; i < opaque.length; i++) {
+            if (opaque[i] != null && args[i] != null) args[i] = opaque[i];
+        }
+        return args;
+    }
+
+    /**
+     * @return замены аргументов по номерам параметров (null - аргумент сохраняется как есть)
+     * или пустой массив, если заменять нечего
+     */
+    private static String[] opaqueArguments(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        String[] opaque = new String[types.length];
+        boolean found = false;
+        for (int i = 0; i < types.length; i++) {
+            if (isOpaque(types[i])) {
+                opaque[i] = "<" + types[i].getSimpleName() + ">";
+                found = true;
+            }
+        }
+        return found ? opaque : NO_OPAQUE_ARGUMENTS;
+    }
+
+    private static boolean isOpaque(Class<?> type) {
+        for (Class<?> opaque : OPAQUE_TYPES) {
+            if (opaque.isAssignableFrom(type)) return true;
+        }
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            if (OPAQUE_TYPE_NAMES.contains(current.getName())) return true;
+            for (Class<?> iface : current.getInterfaces()) {
+                if (isOpaque(iface)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Возвращает действие из аннотации @Auditable вызванного метода.
+     * Если аннотация стоит на методе реализации, а вызов идет через метод интерфейса,
+     * аннотация ищется в классе объекта и не запоминается, так как зависит от реализации.
+     */
+    private String action(ProceedingJoinPoint pjp) {
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        String action = actions.get(method);
+        if (action != null) return action;
+
+        Auditable auditable = method.getAnnotation(Auditable.class);
+        if (auditable != null) {
+            actions.put(method, auditable.action());
+            return auditable.action();
+        }
+        Method specific = AopUtils.getMostSpecificMethod(method, AopUtils.getTargetClass(pjp.getTarget()));
+        return specific.getAnnotation(Auditable.class).action();
+    }
 }
@@ -0,0 +1,270 @@
+package ru.ylab.tasks.task5.audit.async;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.ylab.tasks.task5.audit.event.AuditEvent;
+import ru.ylab.tasks.task5.audit.handler.AuditHandler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Асинхронная передача событий аудита обработчику.
+ * Поток запроса только заполняет ячейку {@link AuditRingBuffer} данными события без создания объектов,
+ * а фоновый поток забирает события пакетами не больше batchSize, передает их в {@link AuditHandler#handleBatch}
+ * и после этого освобождает ячейки для повторного использования.
+ * Фоновый поток просыпается, когда в буфере набирается пакет, и не реже чем раз в flushInterval.
+ * При заполненном буфере поведение определяется {@link OverflowPolicy}.
+ * При закрытии оставшиеся в буфере события записываются до истечения shutdownTimeout,
+ * события, поступившие после закрытия, обрабатываются синхронно в потоке вызова.
+ * Любая ошибка обработчика, в том числе {@link Error}, учитывается как неудачная запись пакета и не
+ * останавливает фоновый поток. Если фоновый поток все же завершился, события обрабатываются синхронно,
+ * чтобы производители при политике BLOCK не ждали освобождения буфера бесконечно.
+ */
+public class AsyncAuditDispatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncAuditDispatcher.class);
+
+    /**
+     * Пауза производителя при политике BLOCK между попытками добавить событие.
+     */
+    private static final long BLOCK_PARK_NANOS = 50_000;
+    private static final int BLOCK_SPINS = 64;
+
+    private final AuditHandler handler;
+    private final AuditRingBuffer buffer;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleRate;
+    private final int highWatermark;
+    private final long flushIntervalNanos;
+    private final Duration shutdownTimeout;
+    private final Thread writer;
+
+    private volatile boolean running = true;
+    private volatile boolean writerStopped;
+
+    /**
+     * Количество производителей между проверкой running и публикацией события в буфер.
+     * Закрытие ждет, пока оно не станет нулевым, чтобы не потерять событие, опубликованное после записи остатка.
+     */
+    private final AtomicInteger producers = new AtomicInteger();
+
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder droppedOverflow = new LongAdder();
+    private final LongAdder droppedSampled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder blockedNanos = new LongAdder();
+
+    /**
+     * Создает диспетчер и запускает фоновый поток записи.
+     * @param handler         обработчик, которому передаются пакеты событий
+     * @param capacity        емкость буфера, округляется вверх до степени двойки
+     * @param batchSize       максимальное количество событий в одном пакете
+     * @param overflowPolicy  поведение при заполненном буфере
+     * @param sampleRate      для политики SAMPLE: принимается каждое sampleRate-е событие
+     * @param flushInterval   максимальное время ожидания неполного пакета
+     * @param shutdownTimeout время на запись оставшихся событий при закрытии
+     */
+    public AsyncAuditDispatcher(AuditHandler handler, int capacity, int batchSize, OverflowPolicy overflowPolicy,
+                                int sampleRate, Duration flushInterval, Duration shutdownTimeout) {
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize must be positive");
+        if (sampleRate <= 0) throw new IllegalArgumentException("sampleRate must be positive");
+        this.handler = handler;
+        this.buffer = new AuditRingBuffer(capacity);
+        this.batchSize = Math.min(batchSize, buffer.capacity());
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = sampleRate;
+        this.highWatermark = buffer.capacity() - buffer.capacity() / 4;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.shutdownTimeout = shutdownTimeout;
+        this.writer = new Thread(this::writeLoop, "audit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Регистрирует событие аудита. Вызывается в потоке запроса.
+     * @param action         описание выполненного действия
+     * @param args           аргументы метода; сохраняются по ссылке до записи события
+     * @param principal      пользователь или null
+     * @param timestampNanos время события в наносекундах от начала эпохи
+     */
+    public void submit(String action, Object[] args, String principal, long timestampNanos) {
+        producers.incrementAndGet();
+        try {
+            if (!running || writerStopped) {
+                handleSynchronously(action, args, principal, timestampNanos);
+                return;
+            }
+            submitted.increment();
+
+            boolean accepted = switch (overflowPolicy) {
+                case BLOCK -> offerBlocking(action, args, principal, timestampNanos);
+                case DROP -> offerOrDrop(action, args, principal, timestampNanos);
+                case SAMPLE -> offerSampled(action, args, principal, timestampNanos);
+            };
+            if (accepted && buffer.size() >= batchSize) LockSupport.unpark(writer);
+        } finally {
+            producers.decrementAndGet();
+        }
+    }
+
+    private void handleSynchronously(String action, Object[] args, String principal, long timestampNanos) {
+        handler.handleBatch(List.of(new AuditEvent(action, args, principal, timestampNanos)));
+    }
+
+    private boolean offerBlocking(String action, Object[] args, String principal, long timestampNanos) {
+        if (buffer.offer(action, args, principal, timestampNanos)) return true;
+
+        blocked.increment();
+        long start = System.nanoTime();
+        int spins = 0;
+        while (!buffer.offer(action, args, principal, timestampNanos)) {
+            if (!running || writerStopped) {
+                handleSynchronously(action, args, principal, timestampNanos);
+                break;
+            }
+            LockSupport.unpark(writer);
+            if (++spins < BLOCK_SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            }
+        }
+        blockedNanos.add(System.nanoTime() - start);
+        return true;
+    }
+
+    private boolean offerOrDrop(String action, Object[] args, String principal, long timestampNanos) {
+        if (buffer.offer(action, args, principal, timestampNanos)) return true;
+        droppedOverflow.increment();
+        return false;
+    }
+
+    private boolean offerSampled(String action, Object[] args, String principal, long timestampNanos) {
+        if (buffer.size() >= highWatermark && sampleCounter.incrementAndGet() % sampleRate != 0) {
+            droppedSampled.increment();
+            return false;
+        }
+        return offerOrDrop(action, args, principal, timestampNanos);
+    }
+
+    private void writeLoop() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || buffer.size() > 0) {
+                if (buffer.peek(batch, batchSize) == 0) {
+                    if (running) LockSupport.parkNanos(this, flushIntervalNanos);
+                    continue;
+                }
+                writeBatch(batch);
+            }
+        } finally {
+            writerStopped = true;
+            if (running) log.error("Фоновый поток аудита остановлен, события обрабатываются синхронно");
+        }
+    }
+
+    /**
+     * Передает пакет обработчику и освобождает ячейки событий, в том числе при ошибке обработчика.
+     * Ошибка обработчика или toString() аргумента, в том числе {@link Error}, не прерывает запись следующих пакетов.
+     */
+    private void writeBatch(List<AuditEvent> batch) {
+        try {
+            handler.handleBatch(batch);
+            written.add(batch.size());
+        } catch (Throwable e) {
+            failed.add(batch.size());
+            log.error("Ошибка записи пакета аудита из {} событий", batch.size(), e);
+        } finally {
+            batches.increment();
+            buffer.release(batch.size());
+            batch.clear();
+        }
+    }
+
+    /**
+     * Останавливает прием событий в буфер и ждет записи оставшихся событий.
+     */
+    @Override
+    public void close() {
+        if (!running) return;
+        running = false;
+        LockSupport.unpark(writer);
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        try {
+            writer.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.warn("Аудит не успел записать {} событий за {}", buffer.size(), shutdownTimeout);
+            return;
+        }
+        while (producers.get() > 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        writeRemaining();
+    }
+
+    /**
+     * Записывает события, добавленные потоками, которые начали регистрацию до закрытия,
+     * но поместили событие в буфер после остановки фонового потока.
+     */
+    private void writeRemaining() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (buffer.peek(batch, batchSize) > 0) {
+            writeBatch(batch);
+        }
+    }
+
+    public int queueSize() {
+        return buffer.size();
+    }
+
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    public long submittedCount() {
+        return submitted.sum();
+    }
+
+    public long writtenCount() {
+        return written.sum();
+    }
+
+    public long droppedOverflowCount() {
+        return droppedOverflow.sum();
+    }
+
+    public long droppedSampledCount() {
+        return droppedSampled.sum();
+    }
+
+    public long failedCount() {
+        return failed.sum();
+    }
+
+    public long batchCount() {
+        return batches.sum();
+    }
+
+    public long blockedCount() {
+        return blocked.sum();
+    }
+
+    public long blockedNanos() {
+        return blockedNanos.sum();
+    }
+}
@@ -0,0 +1,62 @@
+package ru.ylab.tasks.task5.audit.async;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Публикует счетчики {@link AsyncAuditDispatcher} в Micrometer:
+ * заполненность буфера, количество принятых, записанных, отброшенных и не записанных событий,
+ * количество пакетов и время ожидания потоков запросов при политике BLOCK.
+ */
+public class AuditMetrics implements MeterBinder {
+
+    private final AsyncAuditDispatcher dispatcher;
+
+    public AuditMetrics(AsyncAuditDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("audit.queue.size", dispatcher, AsyncAuditDispatcher::queueSize)
+                .description("Audit events waiting in the buffer")
+                .register(registry);
+        Gauge.builder("audit.queue.capacity", dispatcher, AsyncAuditDispatcher::capacity)
+                .description("Audit buffer capacity")
+                .register(registry);
+
+        counter(registry, "audit.events.submitted", "Audit events submitted by request threads",
+                AsyncAuditDispatcher::submittedCount, null);
+        counter(registry, "audit.events.written", "Audit events passed to the handler",
+                AsyncAuditDispatcher::writtenCount, null);
+        counter(registry, "audit.events.dropped", "Audit events dropped because the buffer was full",
+                AsyncAuditDispatcher::droppedOverflowCount, "overflow");
+        counter(registry, "audit.events.dropped", "Audit events dropped by sampling under pressure",
+                AsyncAuditDispatcher::droppedSampledCount, "sampled");
+        counter(registry, "audit.events.failed", "Audit events the handler failed to write",
+                AsyncAuditDispatcher::failedCount, null);
+        counter(registry, "audit.batches", "Audit batches passed to the handler",
+                AsyncAuditDispatcher::batchCount, null);
+
+        FunctionTimer.builder("audit.producer.blocked", dispatcher,
+                        AsyncAuditDispatcher::blockedCount,
+                        AsyncAuditDispatcher::blockedNanos,
+                        TimeUnit.NANOSECONDS)
+                .description("Time request threads waited for free space in the audit buffer")
+                .register(registry);
+    }
+
+    private void counter(MeterRegistry registry, String name, String description,
+                         ToDoubleFunction<AsyncAuditDispatcher> count, String reason) {
+        FunctionCounter.Builder<AsyncAuditDispatcher> builder = FunctionCounter.builder(name, dispatcher, count)
+                .description(description);
+        if (reason != null) builder.tag("reason", reason);
+        builder.register(registry);
+    }
+}
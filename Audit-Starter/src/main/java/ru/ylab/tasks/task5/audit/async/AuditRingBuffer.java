@@ -0,0 +1,107 @@
+package ru.ylab.tasks.task5.audit.async;
+
+import ru.ylab.tasks.task5.audit.event.AuditEvent;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ограниченный кольцевой буфер событий без блокировок для многих производителей и одного потребителя.
+ * Каждая ячейка хранит номер последовательности: производитель занимает позицию через CAS
+ * на общем хвосте и публикует событие записью номера ячейки, потребитель читает ячейки по порядку
+ * и освобождает их для следующего круга. Емкость округляется вверх до степени двойки.
+ * Объекты {@link AuditEvent} создаются один раз для всех ячеек: производитель заполняет
+ * событие своей ячейки, а потребитель отдает ячейку на следующий круг только после обработки события.
+ */
+class AuditRingBuffer {
+
+    private final AuditEvent[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    AuditRingBuffer(int requestedCapacity) {
+        if (requestedCapacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity) - 1) << 1;
+        this.slots = new AuditEvent[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new AuditEvent();
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Заполняет свободную ячейку данными события, если в буфере есть место.
+     * Может вызываться из любого потока.
+     * @return false, если буфер заполнен
+     */
+    boolean offer(String action, Object[] args, String principal, long timestampNanos) {
+        long position = tail.get();
+        int index;
+        while (true) {
+            index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) break;
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+        slots[index].set(action, args, principal, timestampNanos);
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Добавляет в список не больше max опубликованных событий, не освобождая их ячейки.
+     * Вызывается только потоком-потребителем, после обработки событий ячейки освобождаются {@link #release}.
+     * @param target список для событий
+     * @param max    максимальное количество событий
+     * @return количество добавленных событий
+     */
+    int peek(List<AuditEvent> target, int max) {
+        long position = head.get();
+        int peeked = 0;
+        while (peeked < max) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) break;
+            target.add(slots[index]);
+            position++;
+            peeked++;
+        }
+        return peeked;
+    }
+
+    /**
+     * Очищает и освобождает для производителей count первых ячеек, полученных {@link #peek}.
+     * Вызывается только потоком-потребителем.
+     */
+    void release(int count) {
+        long position = head.get();
+        for (int i = 0; i < count; i++, position++) {
+            int index = (int) (position & mask);
+            slots[index].clear();
+            sequences.lazySet(index, position + slots.length);
+        }
+        head.lazySet(position);
+    }
+
+    /**
+     * Возвращает приблизительное количество событий в буфере.
+     */
+    int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, slots.length));
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,23 @@
+package ru.ylab.tasks.task5.audit.async;
+
+/**
+ * Поведение асинхронного аудита при заполненном буфере событий.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Поток запроса ждет, пока фоновый поток не освободит место. События не теряются.
+     */
+    BLOCK,
+
+    /**
+     * Событие, для которого нет места, отбрасывается. Поток запроса не ждет.
+     */
+    DROP,
+
+    /**
+     * При заполнении буфера выше трех четвертей принимается только каждое N-е событие,
+     * остальные отбрасываются; при полном буфере событие отбрасывается.
+     */
+    SAMPLE
+}
@@ -0,0 +1,104 @@
+package ru.ylab.tasks.task5.audit.event;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Преобразование аргументов события аудита в строку ограниченной длины.
+ * Результат совпадает с началом {@link java.util.Arrays#deepToString}, но строка собирается
+ * по элементам массивов, коллекций и словарей и перестает расти, как только достигнута maxLength.
+ * Поэтому для метода, получившего список из тысяч объектов, вызывается toString() только
+ * у тех элементов, которые попадают в первые maxLength символов.
+ */
+public final class AuditArgs {
+
+    private AuditArgs() {
+    }
+
+    /**
+     * @param args      аргументы метода
+     * @param maxLength максимальная длина строки
+     * @return строка аргументов не длиннее maxLength
+     */
+    public static String format(Object[] args, int maxLength) {
+        if (maxLength <= 0) return "";
+        StringBuilder out = new StringBuilder(Math.min(maxLength, 256));
+        append(out, args, maxLength, null);
+        return out.length() <= maxLength ? out.toString() : out.substring(0, maxLength);
+    }
+
+    /**
+     * Дописывает значение в out.
+     * @param path контейнеры на пути к значению для обнаружения циклических ссылок; создается при первом контейнере
+     * @return false, если достигнута максимальная длина и продолжать не нужно
+     */
+    private static boolean append(StringBuilder out, Object value, int maxLength, Set<Object> path) {
+        if (out.length() > maxLength) return false;
+        if (value == null) {
+            out.append("null");
+        } else if (value.getClass().isArray()) {
+            return appendContainer(out, value, new ArrayIterator(value), '[', ']', maxLength, path);
+        } else if (value instanceof Collection<?> collection) {
+            return appendContainer(out, value, collection.iterator(), '[', ']', maxLength, path);
+        } else if (value instanceof Map<?, ?> map) {
+            return appendContainer(out, value, map.entrySet().iterator(), '{', '}', maxLength, path);
+        } else if (value instanceof Map.Entry<?, ?> entry) {
+            if (!append(out, entry.getKey(), maxLength, path)) return false;
+            out.append('=');
+            return append(out, entry.getValue(), maxLength, path);
+        } else {
+            String text = String.valueOf(value);
+            out.append(text, 0, Math.min(text.length(), maxLength + 1 - out.length()));
+        }
+        return out.length() <= maxLength;
+    }
+
+    private static boolean appendContainer(StringBuilder out, Object container, Iterator<?> elements,
+                                           char open, char close, int maxLength, Set<Object> path) {
+        if (path == null) path = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (!path.add(container)) {
+            out.append(open).append("...").append(close);
+            return out.length() <= maxLength;
+        }
+        out.append(open);
+        boolean first = true;
+        while (elements.hasNext()) {
+            if (!first) out.append(", ");
+            first = false;
+            if (!append(out, elements.next(), maxLength, path)) return false;
+        }
+        out.append(close);
+        path.remove(container);
+        return out.length() <= maxLength;
+    }
+
+    /**
+     * Обход массива любого типа, в том числе примитивного, без копирования.
+     */
+    private static final class ArrayIterator implements Iterator<Object> {
+
+        private final Object array;
+        private final int length;
+        private int index;
+
+        ArrayIterator(Object array) {
+            this.array = array;
+            this.length = Array.getLength(array);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < length;
+        }
+
+        @Override
+        public Object next() {
+            return Array.get(array, index++);
+        }
+    }
+}
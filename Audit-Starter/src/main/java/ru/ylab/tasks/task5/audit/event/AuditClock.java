@@ -0,0 +1,42 @@
+package ru.ylab.tasks.task5.audit.event;
+
+import java.time.Instant;
+
+/**
+ * Время событий аудита в наносекундах от начала эпохи без выделения памяти на вызов.
+ * Время вычисляется по System.nanoTime от опорной точки, которая раз в секунду сверяется
+ * с системными часами через Instant.now(), поэтому коррекция часов ОС учитывается не позже чем через секунду.
+ * Точность времени ограничена системными часами, в пределах секунды время монотонно.
+ */
+public final class AuditClock {
+
+    private static final long CALIBRATION_INTERVAL_NANOS = 1_000_000_000L;
+
+    private static volatile Calibration calibration = calibrate();
+
+    private AuditClock() {
+    }
+
+    /**
+     * @return текущее время в наносекундах от начала эпохи
+     */
+    public static long epochNanos() {
+        long now = System.nanoTime();
+        Calibration current = calibration;
+        if (now - current.nanoTime() >= CALIBRATION_INTERVAL_NANOS) {
+            current = calibrate();
+            calibration = current;
+            return current.epochNanos();
+        }
+        return current.epochNanos() + (now - current.nanoTime());
+    }
+
+    private static Calibration calibrate() {
+        Instant now = Instant.now();
+        long nanoTime = System.nanoTime();
+        return new Calibration(now.getEpochSecond() * 1_000_000_000L + now.getNano(), nanoTime);
+    }
+
+    private record Calibration(long epochNanos, long nanoTime) {
+    }
+}
@@ -0,0 +1,117 @@
+package ru.ylab.tasks.task5.audit.event;
+
+import java.time.Instant;
+
+/**
+ * Событие аудита.
+ * При асинхронном аудите события не создаются на каждый вызов: они заранее размещены в ячейках
+ * кольцевого буфера, заполняются потоком запроса через {@link #set} и после записи обработчиком
+ * используются повторно. Поэтому событие, полученное в {@link ru.ylab.tasks.task5.audit.handler.AuditHandler#handleBatch},
+ * действительно только во время вызова; чтобы сохранить его дольше, нужна копия {@link #copy()}.
+ * Аргументы метода сохраняются по ссылке и преобразуются в строку только по запросу
+ * обработчика через {@link #argsAsString(int)}, то есть в потоке записи, а не в потоке запроса.
+ * Строка собирается {@link AuditArgs#format} не длиннее нужного обработчику предела,
+ * поэтому большие коллекции в аргументах не преобразуются в строку целиком.
+ */
+public final class AuditEvent {
+
+    private String action;
+    private Object[] args;
+    private String principal;
+    private long timestampNanos;
+    private String argsString;
+    private int argsStringLimit = -1;
+
+    /**
+     * Создает пустое событие для повторного использования.
+     */
+    public AuditEvent() {
+    }
+
+    /**
+     * @param action         описание выполненного действия
+     * @param args           аргументы метода, вызвавшего событие аудита
+     * @param principal      пользователь, выполнивший действие, или null, если он неизвестен
+     * @param timestampNanos время события в наносекундах от начала эпохи
+     */
+    public AuditEvent(String action, Object[] args, String principal, long timestampNanos) {
+        set(action, args, principal, timestampNanos);
+    }
+
+    /**
+     * Заполняет событие заново.
+     */
+    public void set(String action, Object[] args, String principal, long timestampNanos) {
+        this.action = action;
+        this.args = args;
+        this.principal = principal;
+        this.timestampNanos = timestampNanos;
+        this.argsString = null;
+        this.argsStringLimit = -1;
+    }
+
+    /**
+     * Освобождает ссылки на аргументы и строки, чтобы ячейка буфера не удерживала их от сборки мусора.
+     */
+    public void clear() {
+        set(null, null, null, 0);
+    }
+
+    /**
+     * @return копия события, которую можно хранить после возврата из обработчика
+     */
+    public AuditEvent copy() {
+        return new AuditEvent(action, args, principal, timestampNanos);
+    }
+
+    public String action() {
+        return action;
+    }
+
+    public Object[] args() {
+        return args;
+    }
+
+    public String principal() {
+        return principal;
+    }
+
+    /**
+     * @return время события в наносекундах от начала эпохи
+     */
+    public long timestampNanos() {
+        return timestampNanos;
+    }
+
+    /**
+     * @return время события в миллисекундах от начала эпохи
+     */
+    public long timestampMillis() {
+        return Math.floorDiv(timestampNanos, 1_000_000L);
+    }
+
+    public Instant timestamp() {
+        return Instant.ofEpochSecond(Math.floorDiv(timestampNanos, 1_000_000_000L),
+                Math.floorMod(timestampNanos, 1_000_000_000L));
+    }
+
+    /**
+     * Преобразует аргументы в строку при первом обращении и запоминает результат,
+     * пока событие не заполнено заново.
+     * @param maxLength максимальная длина строки
+     * @return строка аргументов не длиннее maxLength или null, если аргументов нет
+     */
+    public String argsAsString(int maxLength) {
+        if (args == null || args.length == 0) return null;
+        if (argsStringLimit != maxLength) {
+            argsString = AuditArgs.format(args, maxLength);
+            argsStringLimit = maxLength;
+        }
+        return argsString;
+    }
+
+    @Override
+    public String toString() {
+        return "AuditEvent[action=" + action + ", principal=" + principal + ", timestamp=" + timestamp() + "]";
+    }
+}
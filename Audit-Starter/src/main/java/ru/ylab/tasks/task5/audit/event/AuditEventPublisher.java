@@ -0,0 +1,18 @@
+package ru.ylab.tasks.task5.audit.event;
+
+/**
+ * Получатель данных события аудита от AuditAspect.
+ * Принимает поля события, а не готовый {@link AuditEvent}, чтобы асинхронный аудит
+ * мог записать их в заранее созданную ячейку буфера без создания объекта на каждый вызов.
+ */
+@FunctionalInterface
+public interface AuditEventPublisher {
+
+    /**
+     * @param action         описание выполненного действия
+     * @param args           аргументы метода
+     * @param principal      пользователь или null
+     * @param timestampNanos время события в наносекундах от начала эпохи
+     */
+    void publish(String action, Object[] args, String principal, long timestampNanos);
+}
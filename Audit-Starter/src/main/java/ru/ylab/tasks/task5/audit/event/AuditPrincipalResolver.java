@@ -0,0 +1,20 @@
+package ru.ylab.tasks.task5.audit.event;
+
+/**
+ * Определение пользователя, выполняющего действие, для события аудита.
+ * Вызывается в потоке запроса при регистрации события, поэтому пользователь сохраняется
+ * в событии и при асинхронной записи. Приложение может предоставить свою реализацию бином.
+ */
+@FunctionalInterface
+public interface AuditPrincipalResolver {
+
+    /**
+     * Пользователь не определяется.
+     */
+    AuditPrincipalResolver NONE = () -> null;
+
+    /**
+     * @return идентификатор текущего пользователя или null
+     */
+    String currentPrincipal();
+}
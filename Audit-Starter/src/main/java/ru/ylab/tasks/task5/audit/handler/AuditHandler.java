@@ -1,5 +1,9 @@
 package ru.ylab.tasks.task5.audit.handler;
 
+import ru.ylab.tasks.task5.audit.event.AuditEvent;
+
+import java.util.List;
+
 /**
  * Интерфейс для обработки событий аудита.
  * Определяет контракт для регистрации аудит-событий.
@@ -12,5 +16,27 @@ public interface AuditHandler {
      * @param args аргументы метода, вызвавшего событие аудита
      */
     void handle(String action, Object[] args);
-}
 
+    /**
+     * Обрабатывает событие аудита с пользователем и временем события.
+     * Реализация по умолчанию передает только действие и аргументы.
+     * @param event событие аудита
+     */
+    default void handle(AuditEvent event) {
+        handle(event.action(), event.args());
+    }
+
+    /**
+     * Обрабатывает пакет событий аудита.
+     * Вызывается фоновым потоком асинхронного аудита. Реализация по умолчанию обрабатывает
+     * события по одному, реализации могут записывать пакет целиком.
+     * Список и события действительны только во время вызова: после возврата ячейки событий
+     * используются повторно, поэтому событие для дальнейшего хранения копируется через {@link AuditEvent#copy()}.
+     * @param events события в порядке их регистрации
+     */
+    default void handleBatch(List<AuditEvent> events) {
+        for (AuditEvent event : events) {
+            handle(event);
+        }
+    }
+}
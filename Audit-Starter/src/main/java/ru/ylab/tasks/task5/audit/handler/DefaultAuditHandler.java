@@ -1,15 +1,18 @@
 package ru.ylab.tasks.task5.audit.handler;
 
-import org.springframework.stereotype.Component;
+import ru.ylab.tasks.task5.audit.event.AuditEvent;
+
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
 
 /**
  * Реализация AuditHandler по умолчанию.
  * Записывает аудит-события в стандартный вывод (System.out)
- * в формате: [AUDIT] <время> | action=<действие>.
- * Может быть заменен пользовательской реализацией через Spring DI.
+ * в формате: [AUDIT] <время> | action=<действие>[ | user=<пользователь>].
+ * Создается AuditAutoConfiguration при audit.handler=stdout и
+ * может быть заменен пользовательской реализацией через Spring DI.
  */
-@Component
 public class DefaultAuditHandler implements AuditHandler {
 
     /**
@@ -22,4 +25,38 @@ public class DefaultAuditHandler implements AuditHandler {
         System.out.println("[AUDIT] " + LocalDateTime.now() +
                 " | action=" + action);
     }
+
+    /**
+     * Выводит событие со временем его регистрации и пользователем.
+     * @param event событие аудита
+     */
+    @Override
+    public void handle(AuditEvent event) {
+        System.out.print(append(new StringBuilder(64), event, ZoneId.systemDefault()));
+    }
+
+    /**
+     * Выводит пакет событий одной записью в стандартный вывод,
+     * чтобы блокировка System.out захватывалась один раз на пакет.
+     * @param events события в порядке их регистрации
+     */
+    @Override
+    public void handleBatch(List<AuditEvent> events) {
+        if (events.isEmpty()) return;
+
+        ZoneId zone = ZoneId.systemDefault();
+        StringBuilder out = new StringBuilder(events.size() * 64);
+        for (AuditEvent event : events) {
+            append(out, event, zone);
+        }
+        System.out.print(out);
+    }
+
+    private static StringBuilder append(StringBuilder out, AuditEvent event, ZoneId zone) {
+        out.append("[AUDIT] ")
+                .append(LocalDateTime.ofInstant(event.timestamp(), zone))
+                .append(" | action=").append(event.action());
+        if (event.principal() != null) out.append(" | user=").append(event.principal());
+        return out.append(System.lineSeparator());
+    }
 }
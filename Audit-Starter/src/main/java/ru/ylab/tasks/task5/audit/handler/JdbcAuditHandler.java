@@ -0,0 +1,184 @@
+package ru.ylab.tasks.task5.audit.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.ylab.tasks.task5.audit.event.AuditClock;
+import ru.ylab.tasks.task5.audit.event.AuditEvent;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Запись событий аудита в таблицу базы данных пакетными вставками.
+ * Таблица должна содержать столбцы action, principal, created_at (timestamp with time zone) и args (text).
+ * Пакет событий от асинхронного аудита записывается сразу одной транзакцией через executeBatch.
+ * Одиночные события синхронного аудита накапливаются в буфере, который записывается,
+ * когда в нем набирается batchSize событий, и не реже чем раз в flushInterval,
+ * а также при закрытии. Аргументы сохраняются строкой длиной не больше maxArgsLength.
+ */
+public class JdbcAuditHandler implements AuditHandler, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcAuditHandler.class);
+
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?");
+
+    private final DataSource dataSource;
+    private final String insertSql;
+    private final int batchSize;
+    private final int maxArgsLength;
+    private final List<AuditEvent> pending;
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * @param dataSource    источник соединений
+     * @param table         имя таблицы аудита, допускается со схемой
+     * @param batchSize     максимальное количество строк в одном executeBatch
+     * @param flushInterval максимальное время хранения одиночных событий в буфере
+     * @param maxArgsLength максимальная длина строки аргументов
+     */
+    public JdbcAuditHandler(DataSource dataSource, String table, int batchSize, Duration flushInterval,
+                            int maxArgsLength) {
+        if (!TABLE_NAME.matcher(table).matches()) throw new IllegalArgumentException("Invalid audit table: " + table);
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize must be positive");
+        this.dataSource = dataSource;
+        this.insertSql = "INSERT INTO " + table + " (action, principal, created_at, args) VALUES (?, ?, ?, ?)";
+        this.batchSize = batchSize;
+        this.maxArgsLength = maxArgsLength;
+        this.pending = new ArrayList<>(batchSize);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "audit-jdbc-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Регистрирует событие без пользователя с текущим временем.
+     * @param action описание выполненного действия
+     * @param args аргументы метода
+     */
+    @Override
+    public void handle(String action, Object[] args) {
+        handle(new AuditEvent(action, args, null, AuditClock.epochNanos()));
+    }
+
+    /**
+     * Добавляет событие в буфер и записывает буфер, если в нем набрался пакет.
+     * Ошибка записи пишется в журнал и не прерывает вызвавший метод.
+     * @param event событие аудита
+     */
+    @Override
+    public void handle(AuditEvent event) {
+        List<AuditEvent> full = null;
+        synchronized (pending) {
+            pending.add(event);
+            if (pending.size() >= batchSize) full = takePending();
+        }
+        if (full != null) writeQuietly(full);
+    }
+
+    /**
+     * Записывает пакет событий одной транзакцией.
+     * Ошибка записи пробрасывается, чтобы асинхронный аудит учел пакет как незаписанный.
+     * @param events события в порядке их регистрации
+     */
+    @Override
+    public void handleBatch(List<AuditEvent> events) {
+        write(events);
+    }
+
+    /**
+     * Записывает накопленные одиночные события.
+     */
+    public void flush() {
+        List<AuditEvent> events;
+        synchronized (pending) {
+            if (pending.isEmpty()) return;
+            events = takePending();
+        }
+        write(events);
+    }
+
+    /**
+     * Останавливает периодическую запись и записывает оставшиеся события.
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        flush();
+    }
+
+    private List<AuditEvent> takePending() {
+        List<AuditEvent> events = new ArrayList<>(pending);
+        pending.clear();
+        return events;
+    }
+
+    private void flushQuietly() {
+        List<AuditEvent> events;
+        synchronized (pending) {
+            if (pending.isEmpty()) return;
+            events = takePending();
+        }
+        writeQuietly(events);
+    }
+
+    private void writeQuietly(List<AuditEvent> events) {
+        try {
+            write(events);
+        } catch (RuntimeException e) {
+            log.error("Ошибка записи аудита, потеряно событий: {}", events.size(), e);
+        }
+    }
+
+    private void write(List<AuditEvent> events) {
+        if (events.isEmpty()) return;
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(insertSql)) {
+                for (int from = 0; from < events.size(); from += batchSize) {
+                    int to = Math.min(from + batchSize, events.size());
+                    for (AuditEvent event : events.subList(from, to)) {
+                        ps.setString(1, event.action());
+                        ps.setString(2, event.principal());
+                        ps.setObject(3, OffsetDateTime.ofInstant(event.timestamp(), ZoneOffset.UTC));
+                        ps.setString(4, serializeArgs(event));
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Ошибка записи " + events.size() + " событий аудита", e);
+        }
+    }
+
+    /**
+     * Преобразует аргументы события в строку для столбца args.
+     * @param event событие аудита
+     * @return строка не длиннее maxArgsLength или null, если аргументов нет
+     */
+    protected String serializeArgs(AuditEvent event) {
+        return event.argsAsString(maxArgsLength);
+    }
+}
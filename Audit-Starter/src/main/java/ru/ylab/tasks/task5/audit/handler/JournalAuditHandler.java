@@ -0,0 +1,102 @@
+package ru.ylab.tasks.task5.audit.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.ylab.tasks.task5.audit.event.AuditClock;
+import ru.ylab.tasks.task5.audit.event.AuditEvent;
+import ru.ylab.tasks.task5.audit.journal.AuditJournal;
+import ru.ylab.tasks.task5.audit.journal.AuditJournalReader;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Запись событий аудита в журнал {@link AuditJournal} в отображаемых в память файлах.
+ * Не требует базы данных, а записанные события, в отличие от стандартного вывода,
+ * сохраняются при аварийном завершении процесса и читаются через {@link AuditJournalReader}.
+ * При force=true после каждого события или пакета изменения принудительно записываются на диск,
+ * что сохраняет их и при сбое ОС ценой системного вызова на запись.
+ * Аргументы сохраняются строкой длиной не больше maxArgsLength.
+ */
+public class JournalAuditHandler implements AuditHandler, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalAuditHandler.class);
+
+    private final AuditJournal journal;
+    private final int maxArgsLength;
+    private final boolean force;
+
+    /**
+     * @param journal       журнал аудита
+     * @param maxArgsLength максимальная длина строки аргументов
+     * @param force         записывать изменения на диск после каждого события или пакета
+     */
+    public JournalAuditHandler(AuditJournal journal, int maxArgsLength, boolean force) {
+        this.journal = journal;
+        this.maxArgsLength = maxArgsLength;
+        this.force = force;
+    }
+
+    /**
+     * Регистрирует событие без пользователя с текущим временем.
+     * @param action описание выполненного действия
+     * @param args аргументы метода
+     */
+    @Override
+    public void handle(String action, Object[] args) {
+        handle(new AuditEvent(action, args, null, AuditClock.epochNanos()));
+    }
+
+    /**
+     * Добавляет событие в журнал.
+     * Ошибка записи пишется в журнал приложения и не прерывает вызвавший метод.
+     * @param event событие аудита
+     */
+    @Override
+    public void handle(AuditEvent event) {
+        try {
+            append(event);
+            if (force) journal.force();
+        } catch (RuntimeException e) {
+            log.error("Ошибка записи события аудита {} в журнал", event.action(), e);
+        }
+    }
+
+    /**
+     * Добавляет пакет событий в журнал.
+     * Ошибка записи пробрасывается, чтобы асинхронный аудит учел пакет как незаписанный.
+     * @param events события в порядке их регистрации
+     */
+    @Override
+    public void handleBatch(List<AuditEvent> events) {
+        for (AuditEvent event : events) {
+            append(event);
+        }
+        if (force) journal.force();
+    }
+
+    public AuditJournal journal() {
+        return journal;
+    }
+
+    /**
+     * Записывает изменения на диск и закрывает журнал.
+     */
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    private void append(AuditEvent event) {
+        journal.append(event.timestampNanos(), event.action(), event.principal(), serializeArgs(event));
+    }
+
+    /**
+     * Преобразует аргументы события в строку для записи журнала.
+     * @param event событие аудита
+     * @return строка не длиннее maxArgsLength или null, если аргументов нет
+     */
+    protected String serializeArgs(AuditEvent event) {
+        return event.argsAsString(maxArgsLength);
+    }
+}
@@ -0,0 +1,236 @@
+package ru.ylab.tasks.task5.audit.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static ru.ylab.tasks.task5.audit.journal.JournalFormat.HEADER_SIZE;
+import static ru.ylab.tasks.task5.audit.journal.JournalFormat.INT;
+import static ru.ylab.tasks.task5.audit.journal.JournalFormat.MAGIC;
+import static ru.ylab.tasks.task5.audit.journal.JournalFormat.ORDER;
+import static ru.ylab.tasks.task5.audit.journal.JournalFormat.RECORD_HEADER_SIZE;
+import static ru.ylab.tasks.task5.audit.journal.JournalFormat.VERSION;
+
+/**
+ * Журнал аудита только для добавления в отображаемых в память файлах.
+ * Запись события - копирование нескольких десятков байт в {@link MappedByteBuffer} без системных вызовов,
+ * данные попадают в страничный кеш ОС и сохраняются при аварийном завершении процесса.
+ * Для сохранности при сбое ОС служит {@link #force()}.
+ * Когда запись не помещается в текущий сегмент, он записывается на диск и создается следующий сегмент
+ * размера segmentSize, поэтому {@link #force()} после пакета сохраняет и записи, попавшие в предыдущий сегмент;
+ * при maxSegments &gt; 0 самые старые сегменты сверх этого количества удаляются.
+ * При открытии последний сегмент проверяется по CRC, запись продолжается после последней целой записи,
+ * а остаток сегмента после нее обнуляется. Формат файлов описан в {@link JournalFormat}.
+ * Методы записи синхронизированы: журнал в каталоге должен открывать только один писатель.
+ * Читать журнал, в том числе во время записи, можно через {@link AuditJournalReader}.
+ */
+public class AuditJournal implements AutoCloseable {
+
+    /**
+     * Минимальный размер сегмента.
+     */
+    public static final int MIN_SEGMENT_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final CRC32C crc = new CRC32C();
+
+    private ByteBuffer scratch = ByteBuffer.allocate(1024).order(ORDER);
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private long segment;
+    private int position;
+    private long appended;
+    private boolean closed;
+
+    /**
+     * Открывает журнал в каталоге, создавая каталог и первый сегмент при необходимости.
+     * @param directory   каталог журнала
+     * @param segmentSize размер сегмента в байтах, не меньше {@link #MIN_SEGMENT_SIZE}
+     * @param maxSegments максимальное количество хранимых сегментов; 0 - без ограничения
+     */
+    public AuditJournal(Path directory, int segmentSize, int maxSegments) throws IOException {
+        if (segmentSize < MIN_SEGMENT_SIZE) throw new IllegalArgumentException("segmentSize must be at least " + MIN_SEGMENT_SIZE);
+        if (maxSegments < 0) throw new IllegalArgumentException("maxSegments must not be negative");
+        this.directory = directory;
+        this.segmentSize = segmentSize & ~7;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+
+        List<Long> segments = JournalFormat.segments(directory);
+        if (segments.isEmpty()) {
+            openSegment(0, true);
+        } else {
+            openSegment(segments.get(segments.size() - 1), false);
+            recover();
+        }
+    }
+
+    /**
+     * Добавляет запись в журнал.
+     * @param timestampNanos время события в наносекундах от начала эпохи
+     * @param action         описание действия
+     * @param principal      пользователь или null
+     * @param args           аргументы строкой или null
+     * @throws IllegalArgumentException если запись больше сегмента
+     * @throws UncheckedIOException     при ошибке создания следующего сегмента
+     */
+    public synchronized void append(long timestampNanos, String action, String principal, String args) {
+        if (closed) throw new IllegalStateException("Audit journal is closed");
+
+        int length = encode(timestampNanos, action, principal, args);
+        int size = RECORD_HEADER_SIZE + length;
+        if (size > segmentSize - HEADER_SIZE) {
+            throw new IllegalArgumentException("Audit record of " + size + " bytes exceeds segment size " + segmentSize);
+        }
+        if (position + size > segmentSize) roll();
+
+        crc.reset();
+        crc.update(scratch.array(), 0, length);
+        mapped.put(position + RECORD_HEADER_SIZE, scratch.array(), 0, length);
+        mapped.putInt(position + 4, (int) crc.getValue());
+        INT.setRelease(mapped, position, length);
+
+        position = JournalFormat.align(position + size);
+        appended++;
+    }
+
+    /**
+     * Принудительно записывает изменения текущего сегмента на диск.
+     */
+    public synchronized void force() {
+        if (!closed) mapped.force();
+    }
+
+    /**
+     * @return положение, с которого будет добавлена следующая запись
+     */
+    public synchronized JournalPosition position() {
+        return new JournalPosition(segment, position);
+    }
+
+    /**
+     * @return количество записей, добавленных с момента открытия
+     */
+    public synchronized long appendedCount() {
+        return appended;
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * Записывает изменения на диск и закрывает файл текущего сегмента.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        mapped.force();
+        channel.close();
+    }
+
+    /**
+     * Кодирует данные записи в scratch.
+     * @return длина данных в байтах
+     */
+    private int encode(long timestampNanos, String action, String principal, String args) {
+        byte[] actionBytes = bytes(action);
+        byte[] principalBytes = bytes(principal);
+        byte[] argsBytes = bytes(args);
+        int length = Long.BYTES + 3 * Integer.BYTES + lengthOf(actionBytes) + lengthOf(principalBytes) + lengthOf(argsBytes);
+        if (scratch.capacity() < length) {
+            scratch = ByteBuffer.allocate(Math.max(length, scratch.capacity() * 2)).order(ORDER);
+        }
+        scratch.clear();
+        scratch.putLong(timestampNanos);
+        putString(actionBytes);
+        putString(principalBytes);
+        putString(argsBytes);
+        return length;
+    }
+
+    private void putString(byte[] bytes) {
+        if (bytes == null) {
+            scratch.putInt(-1);
+        } else {
+            scratch.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int lengthOf(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    /**
+     * Записывает текущий сегмент на диск, переходит к следующему сегменту и удаляет устаревшие сегменты.
+     * Сегмент записывается при переходе, так как после него {@link #force()} относится только к новому сегменту.
+     */
+    private void roll() {
+        try {
+            mapped.force();
+            channel.close();
+            openSegment(segment + 1, true);
+            if (maxSegments > 0) {
+                for (long old = segment - maxSegments; old >= 0; old--) {
+                    if (!Files.deleteIfExists(JournalFormat.segmentPath(directory, old))) break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка создания сегмента журнала аудита " + (segment + 1), e);
+        }
+    }
+
+    private void openSegment(long number, boolean create) throws IOException {
+        Path path = JournalFormat.segmentPath(directory, number);
+        channel = create
+                ? FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        mapped.order(ORDER);
+        segment = number;
+        position = HEADER_SIZE;
+        int magic = mapped.getInt(0);
+        if (magic == 0) {
+            mapped.putInt(4, VERSION);
+            INT.setRelease(mapped, 0, MAGIC);
+        } else if (magic != MAGIC) {
+            throw new IOException("Файл " + path + " не является сегментом журнала аудита");
+        }
+    }
+
+    /**
+     * Находит конец последней целой записи открытого сегмента и обнуляет остаток сегмента.
+     * У недописанной записи длина может быть нулевой при уже записанных данных; если их не обнулить,
+     * более короткая следующая запись оставит их за своим концом, и читатель примет их за длину записи.
+     * Обнуляются только ненулевые слова, чтобы не делать грязными страницы неиспользованной части сегмента.
+     */
+    private void recover() {
+        while (position + RECORD_HEADER_SIZE <= segmentSize) {
+            int length = mapped.getInt(position);
+            int end = position + RECORD_HEADER_SIZE + length;
+            if (length <= 0 || end > segmentSize) break;
+            crc.reset();
+            crc.update(mapped.slice(position + RECORD_HEADER_SIZE, length));
+            if ((int) crc.getValue() != mapped.getInt(position + 4)) break;
+            position = JournalFormat.align(end);
+        }
+        for (int i = position; i < segmentSize; i += Long.BYTES) {
+            if (mapped.getLong(i) != 0L) mapped.putLong(i, 0L);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package ru.ylab.tasks.task5.audit.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+import static ru.ylab.tasks.task5.audit.journal.JournalFormat.HEADER_SIZE;
+import static ru.ylab.tasks.task5.audit.journal.JournalFormat.INT;
+import static ru.ylab.tasks.task5.audit.journal.JournalFormat.MAGIC;
+import static ru.ylab.tasks.task5.audit.journal.JournalFormat.ORDER;
+import static ru.ylab.tasks.task5.audit.journal.JournalFormat.RECORD_HEADER_SIZE;
+
+/**
+ * Последовательное чтение журнала аудита, записанного {@link AuditJournal}.
+ * Используется для воспроизведения и выгрузки журнала, а также для чтения новых записей
+ * по мере их добавления, в том числе из другого процесса: {@link #next()} возвращает null,
+ * когда прочитаны все записи, и при следующем вызове продолжает с того же места.
+ * Запись с неверной CRC считается концом данных сегмента; если за ним уже есть следующий сегмент,
+ * чтение продолжается с него, а запись учитывается в {@link #corruptedCount()}.
+ * Если начальные сегменты удалены по ограничению количества, чтение начинается с первого сохранившегося.
+ * Экземпляр не потокобезопасен.
+ */
+public class AuditJournalReader implements AutoCloseable {
+
+    private final Path directory;
+    private final CRC32C crc = new CRC32C();
+
+    private MappedByteBuffer mapped;
+    private long segment;
+    private int offset;
+    private long corrupted;
+
+    /**
+     * Открывает журнал для чтения с начала.
+     * @param directory каталог журнала
+     */
+    public AuditJournalReader(Path directory) {
+        this(directory, JournalPosition.START);
+    }
+
+    /**
+     * Открывает журнал для чтения с сохраненного положения.
+     * @param directory каталог журнала
+     * @param from      положение записи, с которой начинается чтение, например {@link JournalRecord#position()}
+     *                  следующей непрочитанной записи или {@link #position()}
+     */
+    public AuditJournalReader(Path directory, JournalPosition from) {
+        this.directory = directory;
+        this.segment = from.segment();
+        this.offset = Math.max(from.offset(), HEADER_SIZE);
+    }
+
+    /**
+     * Читает следующую запись.
+     * @return запись или null, если записей больше нет
+     */
+    public JournalRecord next() throws IOException {
+        while (true) {
+            if (mapped == null && !mapSegment()) return null;
+
+            int length = length();
+            if (length == 0) {
+                if (!nextSegmentExists()) return null;
+                // Писатель переходит к следующему сегменту только после записи в этот,
+                // поэтому повторное чтение длины видит запись, добавленную до его создания.
+                if (length() != 0) continue;
+            } else {
+                JournalRecord record = length > 0 ? read(length) : null;
+                if (record != null) return record;
+                if (!nextSegmentExists()) return null;
+                corrupted++;
+            }
+            segment++;
+            offset = HEADER_SIZE;
+            mapped = null;
+        }
+    }
+
+    /**
+     * Передает обработчику все записи, имеющиеся в журнале на момент вызова.
+     * @param consumer обработчик записей
+     * @return количество прочитанных записей
+     */
+    public long forEach(Consumer<? super JournalRecord> consumer) throws IOException {
+        long count = 0;
+        for (JournalRecord record = next(); record != null; record = next()) {
+            consumer.accept(record);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Читает журнал и ждет новых записей, проверяя их появление раз в pollInterval,
+     * пока поток не будет прерван.
+     * @param consumer     обработчик записей
+     * @param pollInterval пауза между проверками при отсутствии новых записей
+     */
+    public void tail(Consumer<? super JournalRecord> consumer, Duration pollInterval) throws IOException {
+        long pauseNanos = pollInterval.toNanos();
+        while (!Thread.currentThread().isInterrupted()) {
+            if (forEach(consumer) == 0) LockSupport.parkNanos(this, pauseNanos);
+        }
+    }
+
+    /**
+     * @return положение следующей записи
+     */
+    public JournalPosition position() {
+        return new JournalPosition(segment, offset);
+    }
+
+    /**
+     * @return количество пропущенных поврежденных записей
+     */
+    public long corruptedCount() {
+        return corrupted;
+    }
+
+    @Override
+    public void close() {
+        mapped = null;
+    }
+
+    private boolean nextSegmentExists() {
+        return Files.exists(JournalFormat.segmentPath(directory, segment + 1));
+    }
+
+    /**
+     * @return длина записи в текущем положении, 0 - записей пока нет, -1 - запись повреждена
+     */
+    private int length() {
+        if (offset + RECORD_HEADER_SIZE > mapped.capacity()) return 0;
+        int length = (int) INT.getAcquire(mapped, offset);
+        if (length < 0 || offset + RECORD_HEADER_SIZE + length > mapped.capacity()) return -1;
+        return length;
+    }
+
+    /**
+     * Проверяет CRC и разбирает запись в текущем положении.
+     * @return запись или null, если CRC не совпадает
+     */
+    private JournalRecord read(int length) {
+        int start = offset + RECORD_HEADER_SIZE;
+        crc.reset();
+        crc.update(mapped.slice(start, length));
+        if ((int) crc.getValue() != mapped.getInt(offset + 4)) return null;
+
+        JournalPosition position = new JournalPosition(segment, offset);
+        long timestamp = mapped.getLong(start);
+        int[] cursor = {start + Long.BYTES};
+        String action = readString(cursor);
+        String principal = readString(cursor);
+        String args = readString(cursor);
+        offset = JournalFormat.align(start + length);
+        return new JournalRecord(position, timestamp, action, principal, args);
+    }
+
+    private String readString(int[] cursor) {
+        int length = mapped.getInt(cursor[0]);
+        cursor[0] += Integer.BYTES;
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        mapped.get(cursor[0], bytes);
+        cursor[0] += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Отображает в память текущий сегмент или первый сохранившийся после него.
+     * @return false, если сегмента еще нет или писатель не закончил его создание
+     */
+    private boolean mapSegment() throws IOException {
+        List<Long> segments = JournalFormat.segments(directory);
+        Long existing = segments.stream().filter(number -> number >= segment).findFirst().orElse(null);
+        if (existing == null) return false;
+        if (existing != segment) {
+            segment = existing;
+            offset = HEADER_SIZE;
+        }
+        try (FileChannel channel = FileChannel.open(JournalFormat.segmentPath(directory, segment), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) return false;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ORDER);
+            if ((int) INT.getAcquire(buffer, 0) != MAGIC) return false;
+            mapped = buffer;
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+}
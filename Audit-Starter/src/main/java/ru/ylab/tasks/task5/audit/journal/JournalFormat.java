@@ -0,0 +1,71 @@
+package ru.ylab.tasks.task5.audit.journal;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Формат файлов журнала аудита.
+ * Журнал - каталог сегментов одинакового размера с именами audit-&lt;номер&gt;.journal.
+ * Сегмент начинается с заголовка (магическое число и версия формата), за которым идут записи,
+ * выровненные по 8 байт. Запись: длина данных (int), CRC32C данных (int) и данные:
+ * время события в наносекундах от начала эпохи (long), действие, пользователь и аргументы строками в UTF-8,
+ * каждая с длиной (int, -1 для null). Нулевая длина означает конец записанных данных сегмента:
+ * новый сегмент заполнен нулями, а длина записи публикуется последней.
+ * Все числа записываются в порядке little-endian.
+ */
+final class JournalFormat {
+
+    static final int MAGIC = 0x4A445541;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int RECORD_HEADER_SIZE = 8;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /**
+     * Доступ к длине записи с семантикой release/acquire: писатель публикует длину после данных,
+     * и читатель, увидевший длину, видит данные записи целиком.
+     */
+    static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ORDER);
+
+    private static final String PREFIX = "audit-";
+    private static final String SUFFIX = ".journal";
+
+    private JournalFormat() {
+    }
+
+    static Path segmentPath(Path directory, long segment) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, segment, SUFFIX));
+    }
+
+    static int align(int offset) {
+        return (offset + 7) & ~7;
+    }
+
+    /**
+     * @return номера существующих сегментов журнала по возрастанию
+     */
+    static List<Long> segments(Path directory) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            segments.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+                        } catch (NumberFormatException ignored) {
+                            // посторонний файл с похожим именем
+                        }
+                    });
+        }
+        segments.sort(null);
+        return segments;
+    }
+}
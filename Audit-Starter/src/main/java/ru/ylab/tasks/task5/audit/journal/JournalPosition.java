@@ -0,0 +1,21 @@
+package ru.ylab.tasks.task5.audit.journal;
+
+/**
+ * Положение в журнале аудита: номер сегмента и смещение внутри него.
+ * Сохраненное положение позволяет продолжить чтение журнала с места остановки.
+ * @param segment номер сегмента
+ * @param offset  смещение записи от начала сегмента
+ */
+public record JournalPosition(long segment, int offset) implements Comparable<JournalPosition> {
+
+    /**
+     * Начало журнала.
+     */
+    public static final JournalPosition START = new JournalPosition(0, JournalFormat.HEADER_SIZE);
+
+    @Override
+    public int compareTo(JournalPosition other) {
+        int bySegment = Long.compare(segment, other.segment);
+        return bySegment != 0 ? bySegment : Integer.compare(offset, other.offset);
+    }
+}
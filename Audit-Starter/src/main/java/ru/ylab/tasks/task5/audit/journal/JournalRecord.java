@@ -0,0 +1,13 @@
+package ru.ylab.tasks.task5.audit.journal;
+
+/**
+ * Запись журнала аудита.
+ * @param position       положение записи в журнале
+ * @param timestampNanos время события в наносекундах от начала эпохи
+ * @param action         описание выполненного действия
+ * @param principal      пользователь или null
+ * @param args           аргументы метода строкой или null, если аргументов не было
+ */
+public record JournalRecord(JournalPosition position, long timestampNanos, String action, String principal,
+                            String args) {
+}
@@ -1,18 +1,133 @@
 package ru.ylab.tasks.task5.timing;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultBeanFactoryPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.env.Environment;
+import org.springframework.util.ClassUtils;
+import ru.ylab.tasks.task5.timing.aspect.SpanAspect;
 import ru.ylab.tasks.task5.timing.aspect.TimingAspect;
+import ru.ylab.tasks.task5.timing.endpoint.TimingEndpoint;
+import ru.ylab.tasks.task5.timing.metrics.TimingRecorder;
+import ru.ylab.tasks.task5.timing.metrics.TimingSummaryLogger;
+
+import java.lang.annotation.Annotation;
 
 /**
  * Конфигурация Spring для настройки аспекта логирования времени выполнения.
  * Создает и регистрирует бин TimingAspect в контексте Spring.
+ * Аспект применяется к методам по срезу из {@link TimingFilter}, заданному в @EnableLogging,
+ * а без него - к методам RestController. Сам аспект и его зависимости создаются при первом вызове,
+ * а не вместе с советником, чтобы реестр метрик не создавался раньше своей настройки.
+ * Время записывается в таймеры реестра метрик приложения, а если его нет - в собственный
+ * SimpleMeterRegistry. Сводка пишется в журнал раз в timing.summary-interval,
+ * эндпоинт timings регистрируется, если подключен Spring Boot Actuator.
+ * При timing.spans.enabled=true измеряются также методы сервисов, репозиториев и типов из timing.spans.types,
+ * а медленные вызовы пишутся в журнал с разбивкой времени по ним.
  */
 @Configuration
+@EnableConfigurationProperties(TimingProperties.class)
 public class LoggingConfiguration {
 
     @Bean
-    public TimingAspect timingAspect() {
-        return new TimingAspect();
+    public TimingRecorder timingRecorder(ObjectProvider<MeterRegistry> meterRegistry, TimingProperties properties) {
+        double[] percentiles = properties.percentiles().stream().mapToDouble(Double::doubleValue).toArray();
+        return new TimingRecorder(meterRegistry.getIfAvailable(SimpleMeterRegistry::new), percentiles);
+    }
+
+    @Bean
+    public TimingAspect timingAspect(TimingRecorder timingRecorder, TimingProperties properties) {
+        TimingProperties.SlowCall slowCall = properties.slowCall();
+        TimingProperties.Spans spans = properties.spans();
+        return new TimingAspect(timingRecorder, properties.sampleRate(), slowCall.threshold(),
+                slowCall.logArguments(), slowCall.maxArgumentsLength(), spans.enabled() ? spans.maxSpans() : 0);
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor timingAdvisor(ObjectProvider<TimingFilter> timingFilter) {
+        AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+        pointcut.setExpression(timingFilter.getIfAvailable(() -> TimingFilter.DEFAULT).expression());
+        DefaultBeanFactoryPointcutAdvisor advisor = new DefaultBeanFactoryPointcutAdvisor();
+        advisor.setPointcut(pointcut);
+        advisor.setAdviceBeanName("timingAspect");
+        return advisor;
+    }
+
+    @Bean
+    public TimingSummaryLogger timingSummaryLogger(TimingRecorder timingRecorder, TimingProperties properties) {
+        return new TimingSummaryLogger(timingRecorder, properties.summaryInterval());
+    }
+
+    /**
+     * Измерение методов классов с аннотациями из timing.spans.annotations, по умолчанию @Service и @Repository,
+     * и классов, реализующих типы из timing.spans.types. Типы позволяют измерять бины, созданные
+     * фабричными методами, не добавляя аннотаций их классам или интерфейсам.
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = "timing.spans", name = "enabled", havingValue = "true")
+    static class SpanConfiguration {
+
+        @Bean
+        public SpanAspect spanAspect(TimingRecorder timingRecorder, TimingProperties properties) {
+            return new SpanAspect(timingRecorder, properties.sampleRate());
+        }
+
+        @Bean
+        @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+        public static Advisor spanAdvisor(Environment environment) {
+            // советник создается раньше TimingProperties, поэтому настройки читаются из окружения напрямую
+            TimingProperties.Spans spans = Binder.get(environment).bindOrCreate("timing.spans", TimingProperties.Spans.class);
+            ClassLoader classLoader = LoggingConfiguration.class.getClassLoader();
+            ComposablePointcut pointcut = null;
+            for (String name : spans.annotations()) {
+                @SuppressWarnings("unchecked")
+                Class<? extends Annotation> type =
+                        (Class<? extends Annotation>) ClassUtils.resolveClassName(name, classLoader);
+                pointcut = union(pointcut, new AnnotationMatchingPointcut(type, true).getClassFilter());
+            }
+            for (String name : spans.types()) {
+                pointcut = union(pointcut, new RootClassFilter(ClassUtils.resolveClassName(name, classLoader)));
+            }
+            if (pointcut == null) {
+                throw new IllegalArgumentException("timing.spans.annotations and timing.spans.types must not both be empty");
+            }
+            DefaultBeanFactoryPointcutAdvisor advisor = new DefaultBeanFactoryPointcutAdvisor();
+            advisor.setPointcut(pointcut);
+            advisor.setAdviceBeanName("spanAspect");
+            return advisor;
+        }
+
+        private static ComposablePointcut union(ComposablePointcut pointcut, ClassFilter classFilter) {
+            return pointcut == null ? new ComposablePointcut(classFilter) : pointcut.union(classFilter);
+        }
+    }
+
+    /**
+     * Эндпоинт статистики, регистрируется только при наличии Actuator.
+     */
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+    static class TimingEndpointConfiguration {
+
+        @Bean
+        public TimingEndpoint timingEndpoint(TimingRecorder timingRecorder) {
+            return new TimingEndpoint(timingRecorder);
+        }
     }
-}
\ No newline at end of file
+}
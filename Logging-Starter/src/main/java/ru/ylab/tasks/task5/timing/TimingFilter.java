@@ -0,0 +1,43 @@
+package ru.ylab.tasks.task5.timing;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Отбор методов для измерения времени выполнения.
+ * Метод измеряется, если его класс или сам метод помечен одной из аннотаций
+ * и класс находится в одном из пакетов (включая вложенные). Пустой список пакетов означает любой пакет.
+ * @param packages    пакеты классов
+ * @param annotations полные имена аннотаций
+ */
+public record TimingFilter(List<String> packages, List<String> annotations) {
+
+    /**
+     * Все методы классов с @RestController.
+     */
+    public static final TimingFilter DEFAULT =
+            new TimingFilter(List.of(), List.of("org.springframework.web.bind.annotation.RestController"));
+
+    public TimingFilter {
+        packages = List.copyOf(packages);
+        annotations = List.copyOf(annotations);
+        if (packages.isEmpty() && annotations.isEmpty()) {
+            throw new IllegalArgumentException("Timing filter needs at least one package or annotation");
+        }
+    }
+
+    /**
+     * @return выражение среза AspectJ для отобранных методов
+     */
+    public String expression() {
+        String byAnnotation = annotations.stream()
+                .map(annotation -> "@within(" + annotation + ") || @annotation(" + annotation + ")")
+                .collect(Collectors.joining(" || ", "(", ")"));
+        String byPackage = packages.stream()
+                .map(pkg -> "within(" + pkg + "..*)")
+                .collect(Collectors.joining(" || ", "(", ")"));
+        if (packages.isEmpty()) return byAnnotation;
+        if (annotations.isEmpty()) return byPackage;
+        return byAnnotation + " && " + byPackage;
+    }
+}
@@ -0,0 +1,31 @@
+package ru.ylab.tasks.task5.timing;
+
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.context.annotation.ImportBeanDefinitionRegistrar;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.type.AnnotationMetadata;
+import ru.ylab.tasks.task5.timing.annotation.EnableLogging;
+
+import java.util.List;
+
+/**
+ * Регистрирует {@link TimingFilter} из атрибутов {@link EnableLogging}.
+ */
+public class TimingFilterRegistrar implements ImportBeanDefinitionRegistrar {
+
+    static final String BEAN_NAME = "timingFilter";
+
+    @Override
+    public void registerBeanDefinitions(AnnotationMetadata metadata, BeanDefinitionRegistry registry) {
+        AnnotationAttributes attributes =
+                AnnotationAttributes.fromMap(metadata.getAnnotationAttributes(EnableLogging.class.getName()));
+        if (attributes == null || registry.containsBeanDefinition(BEAN_NAME)) return;
+
+        TimingFilter filter = new TimingFilter(List.of(attributes.getStringArray("packages")),
+                List.of(attributes.getStringArray("annotations")));
+        registry.registerBeanDefinition(BEAN_NAME, BeanDefinitionBuilder
+                .genericBeanDefinition(TimingFilter.class, () -> filter)
+                .getBeanDefinition());
+    }
+}
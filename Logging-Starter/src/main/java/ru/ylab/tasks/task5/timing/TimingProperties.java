@@ -0,0 +1,52 @@
+package ru.ylab.tasks.task5.timing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Настройки измерения времени выполнения с префиксом timing.
+ * @param percentiles     процентили, публикуемые для каждого метода
+ * @param summaryInterval период записи сводки по методам в журнал; 0 отключает сводку
+ * @param sampleRate      доля вызовов от 0 до 1, время которых записывается в метрики
+ * @param slowCall        журнал медленных вызовов
+ * @param spans           измерение сервисов и репозиториев с разбивкой медленных вызовов
+ */
+@ConfigurationProperties(prefix = "timing")
+public record TimingProperties(
+        @DefaultValue({"0.5", "0.95", "0.99"}) List<Double> percentiles,
+        @DefaultValue("1m") Duration summaryInterval,
+        @DefaultValue("1.0") double sampleRate,
+        @DefaultValue SlowCall slowCall,
+        @DefaultValue Spans spans
+) {
+
+    /**
+     * @param threshold          вызовы не короче порога пишутся в журнал независимо от доли; 0 отключает журнал
+     * @param logArguments       писать ли в журнал аргументы медленного вызова
+     * @param maxArgumentsLength максимальная длина строки аргументов в журнале
+     */
+    public record SlowCall(
+            @DefaultValue("0") Duration threshold,
+            @DefaultValue("true") boolean logArguments,
+            @DefaultValue("1000") int maxArgumentsLength
+    ) {
+    }
+
+    /**
+     * @param enabled     измерять ли методы классов из annotations и types и разбивать по ним время медленных вызовов
+     * @param annotations полные имена аннотаций классов; аннотация ищется и на интерфейсах класса
+     * @param types       полные имена классов и интерфейсов; измеряются бины, которые их расширяют или реализуют
+     * @param maxSpans    максимальное количество вызовов в разбивке одного запроса
+     */
+    public record Spans(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue({"org.springframework.stereotype.Service", "org.springframework.stereotype.Repository"})
+            List<String> annotations,
+            @DefaultValue List<String> types,
+            @DefaultValue("256") int maxSpans
+    ) {
+    }
+}
@@ -2,6 +2,8 @@ package ru.ylab.tasks.task5.timing.annotation;
 
 import org.springframework.context.annotation.Import;
 import ru.ylab.tasks.task5.timing.LoggingConfiguration;
+import ru.ylab.tasks.task5.timing.TimingFilter;
+import ru.ylab.tasks.task5.timing.TimingFilterRegistrar;
 
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
@@ -13,9 +15,24 @@ import java.lang.annotation.Target;
  * При добавлении этой аннотации к классу конфигурации Spring активируется аспект TimingAspect,
  * который будет измерять и логировать время выполнения всех методов в классах,
  * помеченных аннотацией @RestController.
+ * Набор измеряемых методов можно сузить пакетами или заменить другими аннотациями классов и методов.
+ * Доля измеряемых вызовов и порог медленного вызова задаются параметрами timing.*.
  */
 @Target(ElementType.TYPE)
 @Retention(RetentionPolicy.RUNTIME)
-@Import(LoggingConfiguration.class)
-public @interface EnableLogging {}
+@Import({LoggingConfiguration.class, TimingFilterRegistrar.class})
+public @interface EnableLogging {
 
+    /**
+     * Пакеты измеряемых классов, включая вложенные; по умолчанию любые.
+     * @return имена пакетов
+     */
+    String[] packages() default {};
+
+    /**
+     * Полные имена аннотаций: измеряются методы, помеченные ими, и все методы помеченных ими классов.
+     * @return имена аннотаций
+     * @see TimingFilter#DEFAULT
+     */
+    String[] annotations() default "org.springframework.web.bind.annotation.RestController";
+}
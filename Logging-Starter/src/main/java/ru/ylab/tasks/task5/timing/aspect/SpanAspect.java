@@ -0,0 +1,56 @@
+package ru.ylab.tasks.task5.timing.aspect;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import ru.ylab.tasks.task5.timing.metrics.TimingRecorder;
+import ru.ylab.tasks.task5.timing.span.Span;
+import ru.ylab.tasks.task5.timing.span.SpanTree;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Аспект для измерения времени выполнения методов сервисов и репозиториев.
+ * Время записывается в {@link TimingRecorder} с той же долей sampleRate, что и время контроллеров.
+ * Если вызов выполняется внутри измеряемого запроса, он добавляется в {@link SpanTree} этого запроса
+ * узлом, вложенным в вызвавший его метод, независимо от доли.
+ */
+public class SpanAspect implements MethodInterceptor {
+
+    private final TimingRecorder recorder;
+    private final double sampleRate;
+
+    /**
+     * @param recorder   получатель времени вызовов
+     * @param sampleRate доля записываемых в метрики вызовов от 0 до 1
+     */
+    public SpanAspect(TimingRecorder recorder, double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) throw new IllegalArgumentException("sampleRate must be between 0 and 1");
+        this.recorder = recorder;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Совет, выполняемый вокруг методов сервисов и репозиториев.
+     * @param invocation вызов метода
+     * @return результат выполнения метода
+     */
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        boolean sampled = sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+        SpanTree tree = SpanTree.current();
+        if (!sampled && tree == null) return invocation.proceed();
+
+        Span span = tree != null ? tree.enter(TimingAspect.targetClass(invocation), invocation.getMethod()) : null;
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            Object result = invocation.proceed();
+            succeeded = true;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (span != null) tree.exit(span, elapsed, succeeded);
+            if (sampled) recorder.record(invocation.getMethod(), elapsed, succeeded);
+        }
+    }
+}
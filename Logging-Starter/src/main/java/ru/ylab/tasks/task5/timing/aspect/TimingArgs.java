@@ -0,0 +1,108 @@
+package ru.ylab.tasks.task5.timing.aspect;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Строка аргументов медленного вызова для журнала.
+ * Совпадает с началом {@link java.util.Arrays#deepToString}, но обходит массивы, коллекции и словари
+ * поэлементно и останавливается, как только строка превысила maxLength. Элементы за пределом
+ * в строку не преобразуются, поэтому запись медленного вызова с большим списком в аргументах
+ * не становится еще медленнее.
+ */
+final class TimingArgs {
+
+    private static final String TRUNCATED = "...";
+
+    private TimingArgs() {
+    }
+
+    /**
+     * @param args      аргументы метода
+     * @param maxLength максимальная длина строки без признака усечения
+     * @return строка аргументов; усеченная строка заканчивается многоточием
+     */
+    static String format(Object[] args, int maxLength) {
+        int limit = Math.max(maxLength, 0);
+        StringBuilder out = new StringBuilder(Math.min(limit + TRUNCATED.length(), 256));
+        append(out, args, limit, null);
+        if (out.length() <= limit) return out.toString();
+        out.setLength(limit);
+        return out.append(TRUNCATED).toString();
+    }
+
+    /**
+     * Дописывает значение в out.
+     * @param path контейнеры на пути к значению для обнаружения циклических ссылок; создается при первом контейнере
+     * @return false, если строка уже длиннее maxLength
+     */
+    private static boolean append(StringBuilder out, Object value, int maxLength, Set<Object> path) {
+        if (out.length() > maxLength) return false;
+        if (value == null) {
+            out.append("null");
+        } else if (value.getClass().isArray()) {
+            return appendContainer(out, value, new ArrayIterator(value), '[', ']', maxLength, path);
+        } else if (value instanceof Collection<?> collection) {
+            return appendContainer(out, value, collection.iterator(), '[', ']', maxLength, path);
+        } else if (value instanceof Map<?, ?> map) {
+            return appendContainer(out, value, map.entrySet().iterator(), '{', '}', maxLength, path);
+        } else if (value instanceof Map.Entry<?, ?> entry) {
+            if (!append(out, entry.getKey(), maxLength, path)) return false;
+            out.append('=');
+            return append(out, entry.getValue(), maxLength, path);
+        } else {
+            String text = String.valueOf(value);
+            out.append(text, 0, Math.min(text.length(), maxLength + 1 - out.length()));
+        }
+        return out.length() <= maxLength;
+    }
+
+    private static boolean appendContainer(StringBuilder out, Object container, Iterator<?> elements,
+                                           char open, char close, int maxLength, Set<Object> path) {
+        if (path == null) path = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (!path.add(container)) {
+            out.append(open).append(TRUNCATED).append(close);
+            return out.length() <= maxLength;
+        }
+        out.append(open);
+        boolean first = true;
+        while (elements.hasNext()) {
+            if (!first) out.append(", ");
+            first = false;
+            if (!append(out, elements.next(), maxLength, path)) return false;
+        }
+        out.append(close);
+        path.remove(container);
+        return out.length() <= maxLength;
+    }
+
+    /**
+     * Обход массива любого типа, в том числе примитивного, без копирования.
+     */
+    private static final class ArrayIterator implements Iterator<Object> {
+
+        private final Object array;
+        private final int length;
+        private int index;
+
+        ArrayIterator(Object array) {
+            this.array = array;
+            this.length = Array.getLength(array);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < length;
+        }
+
+        @Override
+        public Object next() {
+            return Array.get(array, index++);
+        }
+    }
+}
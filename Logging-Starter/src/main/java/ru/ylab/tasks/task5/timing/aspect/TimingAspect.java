@@ -1,41 +1,131 @@
 package ru.ylab.tasks.task5.timing.aspect;
 
-import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.annotation.Around;
-import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Pointcut;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+import ru.ylab.tasks.task5.timing.TimingFilter;
+import ru.ylab.tasks.task5.timing.metrics.TimingRecorder;
+import ru.ylab.tasks.task5.timing.span.Span;
+import ru.ylab.tasks.task5.timing.span.SpanTree;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Аспект для измерения времени выполнения методов в RestController.
- * Аспект перехватывает выполнение всех методов в классах, помеченных аннотацией @RestController,
- * измеряет время их выполнения и выводит результат в стандартный вывод.
+ * Аспект для измерения времени выполнения методов, по умолчанию в RestController.
+ * Применяется к методам, отобранным {@link TimingFilter}, измеряет время их выполнения
+ * по System.nanoTime и записывает его в {@link TimingRecorder}.
+ * В метрики попадает только доля sampleRate вызовов, поэтому количество вызовов в них
+ * при sampleRate &lt; 1 приблизительно в 1/sampleRate раз меньше действительного.
+ * Вызовы не короче slowCallThreshold пишутся в журнал с аргументами независимо от доли;
+ * строка аргументов собирается {@link TimingArgs} не длиннее maxArgumentsLength;
+ * если журнал медленных вызовов отключен, не попавший в долю вызов выполняется без измерения.
+ * При maxSpans &gt; 0 и включенном журнале медленных вызовов внешний вызов открывает {@link SpanTree},
+ * в который {@link SpanAspect} добавляет вызовы сервисов и репозиториев, а запись о медленном
+ * вызове дополняется разбивкой его времени по этим вызовам.
  */
-@Aspect
-public class TimingAspect {
+public class TimingAspect implements MethodInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(TimingAspect.class);
+
+    private final TimingRecorder recorder;
+    private final double sampleRate;
+    private final long slowCallNanos;
+    private final boolean logArguments;
+    private final int maxArgumentsLength;
+    private final int maxSpans;
+
+    public TimingAspect(TimingRecorder recorder) {
+        this(recorder, 1.0, Duration.ZERO, false, 0);
+    }
+
+    public TimingAspect(TimingRecorder recorder, double sampleRate, Duration slowCallThreshold,
+                        boolean logArguments, int maxArgumentsLength) {
+        this(recorder, sampleRate, slowCallThreshold, logArguments, maxArgumentsLength, 0);
+    }
 
     /**
-     * Срез точек соединения для методов в RestController.
-     * Определяет, какие методы должны быть перехвачены аспектом - все методы в классах,
-     * помеченных аннотацией @RestController.
+     * @param recorder           получатель времени вызовов
+     * @param sampleRate         доля записываемых вызовов от 0 до 1
+     * @param slowCallThreshold  порог медленного вызова; нулевой отключает журнал
+     * @param logArguments       писать ли аргументы медленного вызова
+     * @param maxArgumentsLength максимальная длина строки аргументов
+     * @param maxSpans           максимальное количество вызовов в разбивке медленного вызова; 0 отключает разбивку
      */
-    @Pointcut("@within(org.springframework.web.bind.annotation.RestController)")
-    public void anyRestControllerMethod() {}
+    public TimingAspect(TimingRecorder recorder, double sampleRate, Duration slowCallThreshold,
+                        boolean logArguments, int maxArgumentsLength, int maxSpans) {
+        if (sampleRate < 0 || sampleRate > 1) throw new IllegalArgumentException("sampleRate must be between 0 and 1");
+        this.recorder = recorder;
+        this.sampleRate = sampleRate;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.logArguments = logArguments;
+        this.maxArgumentsLength = maxArgumentsLength;
+        this.maxSpans = slowCallNanos > 0 ? Math.max(maxSpans, 0) : 0;
+    }
 
     /**
-     * Совет, выполняемый вокруг методов в RestController.
-     * Измеряет время выполнения метода и выводит информацию в формате:
-     * "LOGGING: <сигнатура метода> took <время> ms"
-     * @param pjp точка соединения, предоставляющая информацию о методе
+     * Совет, выполняемый вокруг отобранных методов.
+     * Измеряет время выполнения метода, в том числе завершившегося исключением,
+     * и записывает его с результатом вызова.
+     * @param invocation вызов метода
      * @return результат выполнения метода
      */
-    @Around("anyRestControllerMethod()")
-    public Object measureExecutionTime(ProceedingJoinPoint pjp) throws Throwable {
-        long start = System.currentTimeMillis();
-        Object result = pjp.proceed();
-        long time = System.currentTimeMillis() - start;
-
-        System.out.println("LOGGING: " + pjp.getSignature() + " took " + time + " ms");
-        return result;
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        boolean sampled = sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+        if (!sampled && slowCallNanos <= 0) return invocation.proceed();
+
+        SpanTree tree = maxSpans > 0 ? SpanTree.current() : null;
+        boolean root = maxSpans > 0 && tree == null;
+        if (root) tree = SpanTree.open(maxSpans);
+        Span span = tree != null ? tree.enter(targetClass(invocation), invocation.getMethod()) : null;
+
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            Object result = invocation.proceed();
+            succeeded = true;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (span != null) tree.exit(span, elapsed, succeeded);
+            if (root) tree.close();
+            if (sampled) recorder.record(invocation.getMethod(), elapsed, succeeded);
+            if (slowCallNanos > 0 && elapsed >= slowCallNanos) {
+                logSlowCall(invocation, elapsed, succeeded, root ? tree : null);
+            }
+        }
+    }
+
+    /**
+     * @param invocation вызов метода
+     * @return класс объекта, метод которого вызван, без подклассов CGLIB
+     */
+    static Class<?> targetClass(MethodInvocation invocation) {
+        Object target = invocation.getThis();
+        return target != null ? ClassUtils.getUserClass(target) : invocation.getMethod().getDeclaringClass();
     }
-}
 
+    private void logSlowCall(MethodInvocation invocation, long elapsedNanos, boolean succeeded, SpanTree tree) {
+        Method method = invocation.getMethod();
+        if (tree == null) {
+            log.warn("Медленный вызов {}.{}: {} мс, успешно: {}, аргументы: {}",
+                    method.getDeclaringClass().getSimpleName(), method.getName(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), succeeded, arguments(invocation.getArguments()));
+        } else {
+            log.warn("Медленный вызов {}.{}: {} мс, успешно: {}, аргументы: {}, разбивка:\n{}",
+                    method.getDeclaringClass().getSimpleName(), method.getName(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), succeeded, arguments(invocation.getArguments()),
+                    tree.format());
+        }
+    }
+
+    private String arguments(Object[] args) {
+        if (!logArguments) return "[скрыты]";
+        return TimingArgs.format(args, maxArgumentsLength);
+    }
+}
@@ -0,0 +1,42 @@
+package ru.ylab.tasks.task5.timing.endpoint;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import ru.ylab.tasks.task5.timing.metrics.TimingRecorder;
+import ru.ylab.tasks.task5.timing.metrics.TimingSnapshot;
+
+import java.util.List;
+
+/**
+ * Actuator-эндпоинт /actuator/timings со статистикой времени выполнения методов.
+ * GET возвращает количество вызовов, суммарное и среднее время с запуска или сброса,
+ * процентили и максимум за скользящее окно {@link TimingRecorder#STATISTICS_WINDOW} по каждому методу,
+ * DELETE сбрасывает накопленную статистику. Те же значения доступны как метрика timing.method.
+ */
+@Endpoint(id = "timings")
+public class TimingEndpoint {
+
+    private final TimingRecorder recorder;
+
+    public TimingEndpoint(TimingRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Возвращает статистику методов.
+     * @return снимок статистики по именам методов
+     */
+    @ReadOperation
+    public List<TimingSnapshot> timings() {
+        return recorder.snapshot();
+    }
+
+    /**
+     * Сбрасывает статистику всех методов.
+     */
+    @DeleteOperation
+    public void reset() {
+        recorder.reset();
+    }
+}
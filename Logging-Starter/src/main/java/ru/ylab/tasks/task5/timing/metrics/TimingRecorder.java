@@ -0,0 +1,115 @@
+package ru.ylab.tasks.task5.timing.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накопление времени выполнения методов в таймерах Micrometer.
+ * Таймер timing.method помечается тегами class, method и outcome (success или error)
+ * и публикует заданные процентили и гистограмму. Таймер создается один раз для каждой пары
+ * метода и результата, поэтому запись вызова - поиск в хеш-таблице и запись в гистограмму без вывода.
+ * Процентили и максимум считаются по скользящему окну {@link #STATISTICS_WINDOW}, а количество
+ * и суммарное время накапливаются с запуска или последнего сброса.
+ */
+public class TimingRecorder {
+
+    public static final String METHOD_TIMER = "timing.method";
+
+    /**
+     * Окно, по которому Micrometer считает процентили и максимум. Задается явно, а не берется
+     * из настроек реестра, чтобы сводка в журнале могла указать, за какое время эти значения.
+     */
+    public static final Duration STATISTICS_WINDOW = Duration.ofMinutes(2);
+
+    private final MeterRegistry registry;
+    private final double[] percentiles;
+    private final Map<Method, Timer> success = new ConcurrentHashMap<>();
+    private final Map<Method, Timer> error = new ConcurrentHashMap<>();
+
+    /**
+     * @param registry    реестр метрик
+     * @param percentiles публикуемые процентили, например 0.5, 0.95, 0.99
+     */
+    public TimingRecorder(MeterRegistry registry, double[] percentiles) {
+        this.registry = registry;
+        this.percentiles = percentiles.clone();
+    }
+
+    /**
+     * Записывает длительность вызова метода.
+     * @param method       вызванный метод
+     * @param elapsedNanos длительность по System.nanoTime
+     * @param succeeded    завершился ли вызов без исключения
+     */
+    public void record(Method method, long elapsedNanos, boolean succeeded) {
+        Map<Method, Timer> timers = succeeded ? success : error;
+        Timer timer = timers.get(method);
+        if (timer == null) timer = timers.computeIfAbsent(method, m -> register(m, succeeded ? "success" : "error"));
+        timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return статистика всех методов, у которых были вызовы, по имени класса и метода
+     */
+    public List<TimingSnapshot> snapshot() {
+        List<TimingSnapshot> snapshots = new ArrayList<>();
+        collect(success, snapshots);
+        collect(error, snapshots);
+        snapshots.sort(Comparator.comparing(TimingSnapshot::name).thenComparing(TimingSnapshot::outcome));
+        return snapshots;
+    }
+
+    /**
+     * Удаляет все таймеры из реестра, чтобы статистика накапливалась заново.
+     */
+    public void reset() {
+        for (Map<Method, Timer> timers : List.of(success, error)) {
+            timers.values().forEach(registry::remove);
+            timers.clear();
+        }
+    }
+
+    private void collect(Map<Method, Timer> timers, List<TimingSnapshot> target) {
+        // один таймер может быть зарегистрирован для перегруженных методов с одинаковым именем
+        timers.values().stream().distinct().forEach(timer -> {
+            HistogramSnapshot histogram = timer.takeSnapshot();
+            if (histogram.count() == 0) return;
+            Map<String, Double> values = new LinkedHashMap<>();
+            for (ValueAtPercentile value : histogram.percentileValues()) {
+                values.put(percentileName(value.percentile()), value.value(TimeUnit.MILLISECONDS));
+            }
+            target.add(new TimingSnapshot(timer.getId().getTag("class"), timer.getId().getTag("method"),
+                    timer.getId().getTag("outcome"), histogram.count(), histogram.total(TimeUnit.MILLISECONDS),
+                    histogram.mean(TimeUnit.MILLISECONDS), histogram.max(TimeUnit.MILLISECONDS), values));
+        });
+    }
+
+    private static String percentileName(double percentile) {
+        return "p" + BigDecimal.valueOf(percentile * 100).stripTrailingZeros().toPlainString();
+    }
+
+    private Timer register(Method method, String outcome) {
+        return Timer.builder(METHOD_TIMER)
+                .description("Method execution time")
+                .tag("class", method.getDeclaringClass().getSimpleName())
+                .tag("method", method.getName())
+                .tag("outcome", outcome)
+                .publishPercentiles(percentiles)
+                .publishPercentileHistogram()
+                .distributionStatisticExpiry(STATISTICS_WINDOW)
+                .register(registry);
+    }
+}
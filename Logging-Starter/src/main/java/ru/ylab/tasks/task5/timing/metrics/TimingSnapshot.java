@@ -0,0 +1,27 @@
+package ru.ylab.tasks.task5.timing.metrics;
+
+import java.util.Map;
+
+/**
+ * Снимок статистики времени выполнения одного метода.
+ * Количество, суммарное и среднее время накапливаются с запуска или последнего сброса,
+ * процентили и максимум считаются по скользящему окну {@link TimingRecorder#STATISTICS_WINDOW}.
+ * @param type        простое имя класса
+ * @param method      имя метода
+ * @param outcome     success или error
+ * @param count       количество вызовов
+ * @param totalMillis суммарное время вызовов в миллисекундах
+ * @param meanMillis  среднее время вызова в миллисекундах
+ * @param maxMillis   максимальное время вызова за окно в миллисекундах
+ * @param percentiles процентили за окно в миллисекундах по именам вида p50, p95, p99.9
+ */
+public record TimingSnapshot(String type, String method, String outcome, long count, double totalMillis,
+                             double meanMillis, double maxMillis, Map<String, Double> percentiles) {
+
+    /**
+     * @return имя метода вида Class.method
+     */
+    public String name() {
+        return type + "." + method;
+    }
+}
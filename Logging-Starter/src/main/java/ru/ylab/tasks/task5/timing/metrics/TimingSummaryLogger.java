@@ -0,0 +1,94 @@
+package ru.ylab.tasks.task5.timing.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодически пишет в журнал сводку по методам, которые вызывались за прошедший период:
+ * одна строка на метод с количеством вызовов, средним, процентилями и максимумом.
+ * Заменяет вывод строки на каждый вызов. Нулевой период отключает сводку.
+ * Значения в строке относятся к разным окнам, и каждое окно подписано: количество и среднее
+ * за период считаются по разнице накопленных количества и суммарного времени с прошлой сводки,
+ * процентили и максимум - по скользящему окну {@link TimingRecorder#STATISTICS_WINDOW},
+ * а количество и среднее "всего" - с запуска или последнего сброса статистики.
+ */
+public class TimingSummaryLogger implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TimingSummaryLogger.class);
+
+    private final TimingRecorder recorder;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, TimingSnapshot> previous = new HashMap<>();
+
+    /**
+     * @param recorder накопленная статистика
+     * @param interval период записи сводки; нулевой или отрицательный отключает сводку
+     */
+    public TimingSummaryLogger(TimingRecorder recorder, Duration interval) {
+        this.recorder = recorder;
+        if (interval.isZero() || interval.isNegative()) {
+            this.scheduler = null;
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "timing-summary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = interval.toMillis();
+        scheduler.scheduleAtFixedRate(this::logSummary, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Пишет строку для каждого метода, количество вызовов которого изменилось с прошлой сводки.
+     * Вызывается по расписанию; может быть вызван и напрямую, тогда следующий период начнется с этого вызова.
+     */
+    public synchronized void logSummary() {
+        try {
+            for (TimingSnapshot snapshot : recorder.snapshot()) {
+                TimingSnapshot last = previous.put(snapshot.name() + ":" + snapshot.outcome(), snapshot);
+                // после сброса статистики счетчики начинаются заново
+                boolean restarted = last == null || last.count() > snapshot.count();
+                long calls = restarted ? snapshot.count() : snapshot.count() - last.count();
+                if (calls == 0) continue;
+                double totalMillis = restarted ? snapshot.totalMillis() : snapshot.totalMillis() - last.totalMillis();
+                log.info("TIMING: {} [{}] за период: calls={} mean={} ms; за {}: {} max={} ms; всего: calls={} mean={} ms",
+                        snapshot.name(), snapshot.outcome(), calls, format(totalMillis / calls),
+                        formatWindow(TimingRecorder.STATISTICS_WINDOW), formatPercentiles(snapshot.percentiles()),
+                        format(snapshot.maxMillis()), snapshot.count(), format(snapshot.meanMillis()));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Ошибка записи сводки времени выполнения", e);
+        }
+    }
+
+    private static String formatPercentiles(Map<String, Double> percentiles) {
+        StringBuilder out = new StringBuilder();
+        percentiles.forEach((name, value) -> {
+            if (!out.isEmpty()) out.append(' ');
+            out.append(name).append('=').append(format(value)).append(" ms");
+        });
+        return out.toString();
+    }
+
+    private static String format(double millis) {
+        return String.format(Locale.ROOT, "%.3f", millis);
+    }
+
+    private static String formatWindow(Duration window) {
+        return window.toSeconds() % 60 == 0 ? window.toMinutes() + "m" : window.toSeconds() + "s";
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,61 @@
+package ru.ylab.tasks.task5.timing.span;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Узел дерева вызовов {@link SpanTree}: вызов метода с длительностью и вложенными вызовами.
+ * Изменяется только потоком, которому принадлежит дерево.
+ */
+public final class Span {
+
+    private final Class<?> type;
+    private final Method method;
+    private final Span parent;
+    private List<Span> children;
+    private long elapsedNanos;
+    private boolean succeeded;
+
+    Span(Class<?> type, Method method, Span parent) {
+        this.type = type;
+        this.method = method;
+        this.parent = parent;
+    }
+
+    /**
+     * @return имя класса и метода, например ProductServiceImpl.search
+     */
+    public String name() {
+        return type.getSimpleName() + "." + method.getName();
+    }
+
+    public Span parent() {
+        return parent;
+    }
+
+    /**
+     * @return вложенные вызовы в порядке их начала
+     */
+    public List<Span> children() {
+        return children == null ? List.of() : children;
+    }
+
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public boolean succeeded() {
+        return succeeded;
+    }
+
+    void addChild(Span child) {
+        if (children == null) children = new ArrayList<>(4);
+        children.add(child);
+    }
+
+    void finish(long elapsedNanos, boolean succeeded) {
+        this.elapsedNanos = elapsedNanos;
+        this.succeeded = succeeded;
+    }
+}
@@ -0,0 +1,143 @@
+package ru.ylab.tasks.task5.timing.span;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Дерево вызовов одного запроса, хранящееся в ThreadLocal потока, который его обрабатывает.
+ * Открывается внешним вызовом (методом контроллера), вложенные измеряемые вызовы того же потока
+ * добавляются в него узлами {@link Span}. Вызовы в других потоках в дерево не попадают.
+ * Количество узлов ограничено maxSpans, чтобы запрос с циклом вызовов не занимал память без предела:
+ * вызовы сверх лимита не добавляются, а только подсчитываются.
+ */
+public final class SpanTree {
+
+    private static final ThreadLocal<SpanTree> CURRENT = new ThreadLocal<>();
+
+    private final int maxSpans;
+    private Span root;
+    private Span current;
+    private int size;
+    private int dropped;
+
+    private SpanTree(int maxSpans) {
+        this.maxSpans = maxSpans;
+    }
+
+    /**
+     * @return дерево текущего потока или null, если запрос не измеряется
+     */
+    public static SpanTree current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Открывает дерево в текущем потоке. Первый вызов {@link #enter} станет его корнем.
+     * @param maxSpans максимальное количество узлов
+     * @return открытое дерево
+     */
+    public static SpanTree open(int maxSpans) {
+        if (maxSpans <= 0) throw new IllegalArgumentException("maxSpans must be positive");
+        SpanTree tree = new SpanTree(maxSpans);
+        CURRENT.set(tree);
+        return tree;
+    }
+
+    /**
+     * Отвязывает дерево от текущего потока. Дерево остается доступным для {@link #format()}.
+     */
+    public void close() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Добавляет вызов вложенным в текущий.
+     * @param type   класс объекта, метод которого вызван
+     * @param method вызванный метод
+     * @return узел вызова или null, если лимит узлов исчерпан
+     */
+    public Span enter(Class<?> type, Method method) {
+        if (size >= maxSpans) {
+            dropped++;
+            return null;
+        }
+        Span span = new Span(type, method, current);
+        if (current == null) {
+            root = span;
+        } else {
+            current.addChild(span);
+        }
+        current = span;
+        size++;
+        return span;
+    }
+
+    /**
+     * Завершает вызов, текущим снова становится вызвавший его.
+     * @param span         узел, полученный из {@link #enter}
+     * @param elapsedNanos длительность вызова
+     * @param succeeded    завершился ли вызов без исключения
+     */
+    public void exit(Span span, long elapsedNanos, boolean succeeded) {
+        span.finish(elapsedNanos, succeeded);
+        current = span.parent();
+    }
+
+    public Span root() {
+        return root;
+    }
+
+    /**
+     * @return количество вызовов, не добавленных из-за лимита узлов
+     */
+    public int dropped() {
+        return dropped;
+    }
+
+    /**
+     * Разбивка времени запроса по вложенным вызовам, по строке на вызов с отступом по глубине.
+     * Вызовы одного метода с общим родителем объединяются в строку с количеством и суммарным временем,
+     * а их вложенные вызовы - в общее поддерево. Собственное время - время вызова без вложенных измеряемых вызовов.
+     * @return многострочная разбивка или пустая строка, если вызовов не было
+     */
+    public String format() {
+        if (root == null) return "";
+        StringBuilder out = new StringBuilder();
+        format(List.of(root), 0, out);
+        if (dropped > 0) out.append("  вызовов сверх лимита: ").append(dropped).append('\n');
+        out.setLength(out.length() - 1);
+        return out.toString();
+    }
+
+    private static void format(List<Span> group, int depth, StringBuilder out) {
+        long total = 0;
+        int errors = 0;
+        List<Span> children = new ArrayList<>();
+        for (Span span : group) {
+            total += span.elapsedNanos();
+            if (!span.succeeded()) errors++;
+            children.addAll(span.children());
+        }
+        long childrenTotal = 0;
+        for (Span child : children) childrenTotal += child.elapsedNanos();
+
+        out.append("  ".repeat(depth + 1)).append(group.get(0).name());
+        if (group.size() > 1) out.append(" x").append(group.size());
+        out.append(": ").append(millis(total)).append(" мс");
+        if (!children.isEmpty()) out.append(", собственное ").append(millis(total - childrenTotal)).append(" мс");
+        if (errors > 0) out.append(", ошибок ").append(errors);
+        out.append('\n');
+
+        Map<String, List<Span>> byName = new LinkedHashMap<>();
+        for (Span child : children) byName.computeIfAbsent(child.name(), name -> new ArrayList<>()).add(child);
+        for (List<Span> same : byName.values()) format(same, depth + 1, out);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+}
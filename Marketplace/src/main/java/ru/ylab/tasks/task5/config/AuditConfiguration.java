@@ -0,0 +1,24 @@
+package ru.ylab.tasks.task5.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.ylab.tasks.task5.audit.event.AuditPrincipalResolver;
+import ru.ylab.tasks.task5.security.AuthService;
+
+/**
+ * Конфигурационный класс для интеграции с Audit-Starter.
+ * Обработчик аудита и режим записи настраиваются параметрами audit.* из конфигурации.
+ */
+@Configuration
+public class AuditConfiguration {
+
+    /**
+     * Определяет пользователя события аудита по текущей сессии.
+     * @param authService сервис авторизации
+     * @return логин текущего пользователя или null
+     */
+    @Bean
+    public AuditPrincipalResolver auditPrincipalResolver(AuthService authService) {
+        return authService::getCurrentUserLogin;
+    }
+}
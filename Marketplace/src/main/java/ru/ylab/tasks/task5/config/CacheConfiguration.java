@@ -0,0 +1,57 @@
+package ru.ylab.tasks.task5.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.ylab.tasks.task5.model.Product;
+import ru.ylab.tasks.task5.service.performance.LruCache;
+import ru.ylab.tasks.task5.service.performance.LruCacheMetrics;
+import ru.ylab.tasks.task5.service.performance.SearchCacheEndpoint;
+import ru.ylab.tasks.task5.util.FilterKey;
+
+import java.util.List;
+
+/**
+ * Конфигурационный класс для создания кешей приложения.
+ * Размер кеша и количество сегментов задаются параметрами cache.search.* из конфигурации.
+ * Счетчики кеша публикуются в Micrometer и через actuator-эндпоинт searchcache.
+ */
+@Configuration
+public class CacheConfiguration {
+
+    /**
+     * Создает кеш результатов поиска товаров.
+     * @param capacity         максимальное количество закешированных результатов поиска
+     * @param concurrencyLevel количество независимо блокируемых сегментов кеша
+     * @return кеш результатов поиска
+     */
+    @Bean
+    public LruCache<FilterKey, List<Product>> searchCache(
+            @Value("${cache.search.capacity:50}") int capacity,
+            @Value("${cache.search.concurrency-level:8}") int concurrencyLevel
+    ) {
+        return new LruCache<>(capacity, concurrencyLevel);
+    }
+
+    /**
+     * Регистрирует метрики кеша результатов поиска в Micrometer с тегом cache=search.
+     * @param searchCache кеш результатов поиска
+     * @return binder, который Spring Boot привязывает к реестру метрик
+     */
+    @Bean
+    public MeterBinder searchCacheMetrics(LruCache<FilterKey, List<Product>> searchCache) {
+        return new LruCacheMetrics(searchCache, "search", Tags.empty());
+    }
+
+    /**
+     * Создает actuator-эндпоинт со снимком счетчиков кеша результатов поиска.
+     * @param searchCache кеш результатов поиска
+     * @return эндпоинт /actuator/searchcache
+     */
+    @Bean
+    public SearchCacheEndpoint searchCacheEndpoint(LruCache<FilterKey, List<Product>> searchCache) {
+        return new SearchCacheEndpoint(searchCache);
+    }
+}
@@ -1,13 +1,22 @@
 package ru.ylab.tasks.task5.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import ru.ylab.tasks.task5.repository.CachedJdbcProductRepositoryImpl;
 import ru.ylab.tasks.task5.repository.ProductRepository;
 import ru.ylab.tasks.task5.repository.UserRepository;
 import ru.ylab.tasks.task5.repository.JdbcProductRepositoryImpl;
 import ru.ylab.tasks.task5.repository.JdbcUserRepositoryImpl;
+import ru.ylab.tasks.task5.constant.SqlConstants;
+import ru.ylab.tasks.task5.repository.jdbc.QueryExecutor;
+import ru.ylab.tasks.task5.repository.jdbc.QueryMetrics;
+import ru.ylab.tasks.task5.repository.jdbc.StatementNames;
+import ru.ylab.tasks.task5.util.KeywordSearchMode;
 import javax.sql.DataSource;
+import java.time.Duration;
 
 /**
  * Конфигурационный класс для создания репозиториев на основе типа, указанного в настройках.
@@ -17,40 +26,85 @@ import javax.sql.DataSource;
 @Configuration
 public class RepositoryConfiguration {
 
+    /**
+     * Создает общий для JDBC-репозиториев исполнитель запросов.
+     * Длительность и количество строк каждого запроса публикуются в Micrometer
+     * под именем константы запроса из SqlConstants.
+     * @param dataSource источник данных для подключения к базе данных
+     * @param meterRegistry реестр метрик
+     * @param fetchSize количество строк, получаемых драйвером за одно обращение к серверу
+     * @param slowQueryThreshold порог, начиная с которого запрос пишется в журнал медленных запросов
+     * @return исполнитель запросов
+     */
+    @Bean
+    public QueryExecutor queryExecutor(
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            @Value("${repository.fetch-size:1000}") int fetchSize,
+            @Value("${repository.slow-query-threshold:200ms}") Duration slowQueryThreshold
+    ) {
+        QueryMetrics metrics = new QueryMetrics(meterRegistry, new StatementNames(SqlConstants.class), slowQueryThreshold);
+        return new QueryExecutor(dataSource, fetchSize, metrics);
+    }
+
     /**
      * Создает экземпляр ProductRepository в зависимости от указанного типа.
      * Поддерживаемые типы:
      * - "jdbc": создает JdbcProductRepositoryImpl
-     * @param dataSource источник данных для подключения к базе данных
+     * - "cached-jdbc": создает CachedJdbcProductRepositoryImpl поверх JdbcProductRepositoryImpl,
+     *   чтение выполняется из индексов в памяти, запись - в базу данных и в индексы
+     * @param queryExecutor исполнитель запросов к базе данных
      * @param type тип репозитория из конфигурации
+     * @param keywordSearch способ поиска по ключевому слову в базе данных: substring или full-text
+     * @param batchSize количество строк в одном пакете при пакетном сохранении
      * @return экземпляр ProductRepository
      */
     @Bean
     public ProductRepository productRepository(
-            DataSource dataSource,
-            @Value("${repository.type}") String type
+            QueryExecutor queryExecutor,
+            @Value("${repository.type}") String type,
+            @Value("${repository.keyword-search:substring}") String keywordSearch,
+            @Value("${repository.batch-size:500}") int batchSize
     ) {
+        KeywordSearchMode mode = KeywordSearchMode.parse(keywordSearch);
         return switch (type) {
-            case "jdbc" -> new JdbcProductRepositoryImpl(dataSource);
+            case "jdbc" -> new JdbcProductRepositoryImpl(queryExecutor, mode, batchSize);
+            case "cached-jdbc" -> new CachedJdbcProductRepositoryImpl(
+                    new JdbcProductRepositoryImpl(queryExecutor, mode, batchSize));
             default -> throw new IllegalArgumentException("Unknown product repo type");
         };
     }
 
+    /**
+     * Загружает товары в модель чтения репозитория "cached-jdbc".
+     * Загрузка выполняется после создания всех синглтонов, то есть после применения миграций Liquibase.
+     * @param productRepository репозиторий товаров
+     * @return обработчик завершения инициализации контекста
+     */
+    @Bean
+    public SmartInitializingSingleton productReadModelLoader(ProductRepository productRepository) {
+        return () -> {
+            if (productRepository instanceof CachedJdbcProductRepositoryImpl cached) {
+                cached.load();
+            }
+        };
+    }
+
     /**
      * Создает экземпляр UserRepository в зависимости от указанного типа.
      * Поддерживаемые типы:
-     * - "jdbc": создает JdbcUserRepositoryImpl
-     * @param dataSource источник данных для подключения к базе данных
+     * - "jdbc", "cached-jdbc": создает JdbcUserRepositoryImpl
+     * @param queryExecutor исполнитель запросов к базе данных
      * @param type тип репозитория из конфигурации
      * @return экземпляр UserRepository
      */
     @Bean
     public UserRepository userRepository(
-            DataSource dataSource,
+            QueryExecutor queryExecutor,
             @Value("${repository.type}") String type
     ) {
         return switch (type) {
-            case "jdbc" -> new JdbcUserRepositoryImpl(dataSource);
+            case "jdbc", "cached-jdbc" -> new JdbcUserRepositoryImpl(queryExecutor);
             default -> throw new IllegalArgumentException("Unknown user repo type");
         };
     }
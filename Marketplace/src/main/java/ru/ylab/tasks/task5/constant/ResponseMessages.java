@@ -13,13 +13,17 @@ public final class ResponseMessages {
      */
     public static final String PRODUCT_DELETED_SUCCESS = "Product deleted successfully";
     public static final String PRODUCT_CREATE_SUCCESS = "Product created successfully";
+    public static final String PRODUCTS_BULK_CREATE_SUCCESS = "Products created successfully";
+    public static final String PRODUCTS_IMPORT_SUCCESS = "Products imported successfully";
     public static final String PRODUCT_UPDATED_SUCCESS = "Product listed successfully";
 
+    public static final String PRODUCTS_BULK_EMPTY = "At least one product must be provided";
     public static final String PRODUCT_ID_MISSING = "Product id must be provided";
     public static final String PRODUCT_INVALID_MIN_MAX_PRICE = "minPrice must be less than or equal to maxPrice";
 
     public static final String PRODUCT_DELETE_FAILED = "Failed to delete product";
     public static final String PRODUCT_CREATE_FAILED = "Failed to create product";
+    public static final String PRODUCTS_IMPORT_FAILED = "Failed to import products";
     public static final String PRODUCT_SEARCH_FAILED = "Failed to search products";
     public static final String PRODUCT_UPDATE_FAILED = "Failed to update product";
 
@@ -15,10 +15,22 @@ public final class SqlConstants {
     public static final String CREATE_MARKETPLACE_SCHEMA = "CREATE SCHEMA IF NOT EXISTS marketplace;";
 
     /**
-     * SQl запрос для вставки нового продукта
+     * SQl запрос для добавления продукта с заранее выделенным id
      * */
-    public static final String INSERT_PRODUCT =
-            "INSERT INTO marketplace.products (name, category, brand, price, description) VALUES (?, ?, ?, ?, ?) RETURNING id";
+    public static final String INSERT_PRODUCT_WITH_ID =
+            "INSERT INTO marketplace.products (id, name, category, brand, price, description) VALUES (?, ?, ?, ?, ?, ?)";
+
+    /**
+     * SQl запрос для резервирования нескольких блоков id продуктов за одно обращение
+     * */
+    public static final String SELECT_NEXT_PRODUCT_ID_BLOCKS =
+            "SELECT nextval('marketplace.product_seq') FROM generate_series(1, ?)";
+
+    /**
+     * SQl запрос для получения шага последовательности id продуктов, равного размеру блока
+     * */
+    public static final String SELECT_PRODUCT_ID_INCREMENT =
+            "SELECT increment_by FROM pg_sequences WHERE schemaname = 'marketplace' AND sequencename = 'product_seq'";
 
     /**
      * SQl запрос для обновления существующего продукта
@@ -32,6 +44,12 @@ public final class SqlConstants {
     public static final String SELECT_ALL_PRODUCTS =
             "SELECT id, name, category, brand, price, description FROM marketplace.products";
 
+    /**
+     * SQl запрос для последовательного чтения всех продуктов курсором при экспорте
+     * */
+    public static final String SELECT_ALL_PRODUCTS_ORDERED_BY_ID =
+            "SELECT id, name, category, brand, price, description FROM marketplace.products ORDER BY id";
+
     /**
      * SQl запрос для поиска продукта по id
      * */
@@ -42,19 +60,19 @@ public final class SqlConstants {
      * SQl запрос для удаления продукта по id
      * */
     public static final String DELETE_PRODUCT_BY_ID =
-            "DELETE FROM marketplace.products WHERE id=?";
+            "DELETE FROM marketplace.products WHERE id=? RETURNING price";
 
     /**
      * SQl запрос для поиска продуктов по категории
      * */
     public static final String SELECT_PRODUCTS_BY_CATEGORY =
-            "SELECT id, name, category, brand, price, description FROM marketplace.products WHERE category=?";
+            "SELECT id, name, category, brand, price, description FROM marketplace.products WHERE lower(category) = lower(?)";
 
     /**
      * SQl запрос для поиска продуктов по бренду
      * */
     public static final String SELECT_PRODUCTS_BY_BRAND =
-            "SELECT id, name, category, brand, price, description FROM marketplace.products WHERE brand=?";
+            "SELECT id, name, category, brand, price, description FROM marketplace.products WHERE lower(brand) = lower(?)";
 
     /**
      * SQl запрос для поиска продуктов по ценовому диапазону
@@ -63,16 +81,79 @@ public final class SqlConstants {
             "SELECT id, name, category, brand, price, description FROM marketplace.products WHERE price BETWEEN ? AND ?";
 
     /**
-     * SQl запрос для получения минимальной цены среди всех продуктов
-     * */
-    public static final String SELECT_MIN_PRICE =
-            "SELECT MIN(price) AS min_price FROM marketplace.products";
-
-    /**
-     * SQl запрос для получения максимальной цены среди всех продуктов
-     * */
-    public static final String SELECT_MAX_PRICE =
-            "SELECT MAX(price) AS max_price FROM marketplace.products";
+     * Базовый SQl запрос для поиска продуктов по фильтру.
+     * Условия добавляются фрагментами SEARCH_* в зависимости от заданных критериев.
+     * */
+    public static final String SEARCH_PRODUCTS_BASE =
+            "SELECT id, name, category, brand, price, description FROM marketplace.products WHERE TRUE";
+
+    /**
+     * Фрагменты условий для поиска продуктов по фильтру
+     * */
+    public static final String SEARCH_BY_CATEGORY = " AND lower(category) = lower(?)";
+    public static final String SEARCH_BY_BRAND = " AND lower(brand) = lower(?)";
+    public static final String SEARCH_BY_PRICE_RANGE = " AND price BETWEEN ? AND ?";
+    public static final String SEARCH_BY_MIN_PRICE = " AND price >= ?";
+    public static final String SEARCH_BY_MAX_PRICE = " AND price <= ?";
+    public static final String SEARCH_BY_KEYWORD =
+            " AND (name ILIKE ? OR description ILIKE ? OR category ILIKE ? OR brand ILIKE ?)";
+    public static final String SEARCH_BY_KEYWORD_FULL_TEXT =
+            " AND to_tsvector('simple', name || ' ' || coalesce(description, '') || ' ' || category || ' ' || brand)"
+                    + " @@ to_tsquery('simple', ?)";
+    public static final String SEARCH_NOTHING = " AND FALSE";
+    public static final String SEARCH_ORDER_BY_ID = " ORDER BY id";
+
+    /**
+     * Фрагменты для keyset-пагинации: продолжение после последнего товара страницы,
+     * порядок сортировки и размер страницы
+     * */
+    public static final String SEARCH_AFTER_ID = " AND id > ?";
+    public static final String SEARCH_AFTER_PRICE_ID = " AND (price, id) > (?, ?)";
+    public static final String SEARCH_ORDER_BY_PRICE_ID = " ORDER BY price, id";
+    public static final String SEARCH_LIMIT = " LIMIT ?";
+
+    /**
+     * SQl запросы для массовой загрузки каталога через COPY:
+     * временная таблица на время транзакции, COPY в нее (разделитель подставляется через format),
+     * сдвиг последовательности за максимальный id каталога и загрузки, выдача id строкам без id
+     * блоками последовательности и слияние с products по id
+     * */
+    public static final String CREATE_PRODUCTS_STAGING =
+            "CREATE TEMP TABLE products_staging (id BIGINT, name VARCHAR(255), category VARCHAR(255), "
+                    + "brand VARCHAR(255), price NUMERIC(12,2), description TEXT) ON COMMIT DROP";
+    public static final String COPY_PRODUCTS_STAGING =
+            "COPY products_staging (id, name, category, brand, price, description) "
+                    + "FROM STDIN WITH (FORMAT csv, HEADER true, DELIMITER E'%s')";
+    public static final String SYNC_PRODUCT_SEQUENCE =
+            "SELECT setval('marketplace.product_seq', GREATEST("
+                    + "(SELECT COALESCE(MAX(id), 1) FROM marketplace.products), "
+                    + "(SELECT COALESCE(MAX(id), 1) FROM products_staging), "
+                    + "(SELECT last_value FROM marketplace.product_seq)))";
+    /**
+     * Каждое nextval резервирует блок из шага последовательности id, поэтому n-я строка без id получает
+     * (n / шаг)-й блок со смещением n % шаг. Все четыре параметра - шаг последовательности.
+     * */
+    public static final String ASSIGN_PRODUCTS_STAGING_IDS =
+            "WITH pending AS MATERIALIZED ("
+                    + "SELECT ctid AS row_id, row_number() OVER () - 1 AS n FROM products_staging WHERE id IS NULL), "
+                    + "blocks AS MATERIALIZED ("
+                    + "SELECT nextval('marketplace.product_seq') AS start, row_number() OVER () - 1 AS b "
+                    + "FROM generate_series(1, (SELECT ((count(*) + ? - 1) / ?)::int FROM pending))) "
+                    + "UPDATE products_staging s SET id = blocks.start + pending.n % ? "
+                    + "FROM pending JOIN blocks ON blocks.b = pending.n / ? "
+                    + "WHERE s.ctid = pending.row_id";
+    public static final String MERGE_PRODUCTS_STAGING =
+            "INSERT INTO marketplace.products (id, name, category, brand, price, description) "
+                    + "SELECT id, name, category, brand, price, description "
+                    + "FROM products_staging "
+                    + "ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, category = EXCLUDED.category, "
+                    + "brand = EXCLUDED.brand, price = EXCLUDED.price, description = EXCLUDED.description";
+
+    /**
+     * SQl запрос для получения минимальной и максимальной цены среди всех продуктов
+     * */
+    public static final String SELECT_PRICE_BOUNDS =
+            "SELECT MIN(price) AS min_price, MAX(price) AS max_price FROM marketplace.products";
 
 
     /**
@@ -3,6 +3,7 @@ package ru.ylab.tasks.task5.dto.request.user;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 /**
  * DTO для запроса на аутентификацию пользователя.
@@ -14,6 +15,7 @@ import lombok.NoArgsConstructor;
 public class LoginRequest {
 
     private String login;
+    @ToString.Exclude
     private String password;
 
 }
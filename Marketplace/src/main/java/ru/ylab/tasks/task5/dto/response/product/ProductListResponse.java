@@ -8,7 +8,7 @@ import java.util.List;
 
 /**
  * DTO для ответа со списком продуктов.
- * Содержит коллекцию продуктов.
+ * Содержит страницу продуктов и курсор следующей страницы.
  */
 @Data
 @NoArgsConstructor
@@ -16,6 +16,7 @@ import java.util.List;
 public class ProductListResponse {
 
     private List<ProductResponse> products;
+    private String nextCursor;
 
 }
 
@@ -8,7 +8,7 @@ import java.util.List;
 
 /**
  * DTO для ответа на запрос поиска продуктов.
- * Содержит результаты поиска продуктов.
+ * Содержит страницу результатов поиска и курсор следующей страницы.
  */
 @Data
 @AllArgsConstructor
@@ -16,6 +16,7 @@ import java.util.List;
 public class ProductSearchResponse {
 
     private List<ProductResponse> results;
+    private String nextCursor;
 
 }
 
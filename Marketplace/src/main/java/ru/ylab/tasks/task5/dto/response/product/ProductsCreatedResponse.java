@@ -0,0 +1,21 @@
+package ru.ylab.tasks.task5.dto.response.product;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO для ответа на успешное пакетное создание продуктов.
+ * Содержит идентификаторы созданных продуктов в порядке запроса и сообщение.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductsCreatedResponse {
+
+    private List<Long> productIds;
+    private String message;
+
+}
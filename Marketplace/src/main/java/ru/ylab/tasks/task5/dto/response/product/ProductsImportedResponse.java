@@ -0,0 +1,19 @@
+package ru.ylab.tasks.task5.dto.response.product;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO для ответа на успешную массовую загрузку продуктов.
+ * Содержит количество добавленных и обновленных продуктов и сообщение.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductsImportedResponse {
+
+    private long imported;
+    private String message;
+
+}
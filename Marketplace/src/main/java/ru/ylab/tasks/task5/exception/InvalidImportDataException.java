@@ -0,0 +1,18 @@
+package ru.ylab.tasks.task5.exception;
+
+/**
+ * Исключение, которое выбрасывается при массовой загрузке, если ошибка вызвана содержимым загружаемых данных:
+ * нарушен формат CSV/TSV, значение не соответствует типу столбца или один id встречается несколько раз.
+ * В отличие от прочих {@link DatabaseException} повторная загрузка тех же данных завершится той же ошибкой.
+ */
+public class InvalidImportDataException extends DatabaseException {
+
+    /**
+     * Создает исключение с заданным сообщением.
+     * @param message сообщение ошибки
+     * @param cause причина ошибки
+     */
+    public InvalidImportDataException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
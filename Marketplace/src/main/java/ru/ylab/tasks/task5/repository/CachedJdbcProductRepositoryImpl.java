@@ -0,0 +1,379 @@
+package ru.ylab.tasks.task5.repository;
+
+import ru.ylab.tasks.task5.model.Product;
+import ru.ylab.tasks.task5.util.BulkFormat;
+import ru.ylab.tasks.task5.util.PageCursor;
+import ru.ylab.tasks.task5.util.PageRequest;
+import ru.ylab.tasks.task5.util.ProductSort;
+import ru.ylab.tasks.task5.util.SearchFilter;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Репозиторий товаров с индексированной моделью чтения в памяти.
+ * Все товары загружаются из базового репозитория один раз при старте и хранятся в конкурентных
+ * индексах по идентификатору, категории, бренду и цене, а также в инвертированном индексе
+ * ключевых слов ({@link KeywordIndex}). Запись выполняется сквозным образом:
+ * сначала в базовый репозиторий, затем в индексы. Чтение выполняется только из памяти.
+ * Наружу отдаются копии товаров, чтобы изменение полученного объекта не нарушало индексы.
+ * Индексы собраны в один объект {@link Indexes}, на который ссылается volatile-поле. Чтение берет
+ * ссылку один раз и работает с ней до конца. Полная перезагрузка строит новые индексы рядом с текущими
+ * и публикует их одной записью ссылки, поэтому до ее окончания запросы видят прежний каталог, а не пустой.
+ */
+public class CachedJdbcProductRepositoryImpl implements ProductRepository {
+
+    private final ProductRepository delegate;
+
+    private final Object writeLock = new Object();
+
+    private volatile Indexes indexes = new Indexes();
+
+    public CachedJdbcProductRepositoryImpl(ProductRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Загружает все товары из базового репозитория и строит индексы.
+     * Вызывается после применения миграций и после массовой загрузки. Новые индексы строятся
+     * отдельно от текущих и заменяют их целиком, когда загрузка закончена.
+     */
+    public void load() {
+        synchronized (writeLock) {
+            Indexes fresh = new Indexes();
+            delegate.streamAll(p -> fresh.index(copy(p)));
+            indexes = fresh;
+        }
+    }
+
+    /**
+     * Сохраняет товар в базовом репозитории и обновляет индексы.
+     * @param product товар для сохранения
+     */
+    @Override
+    public void save(Product product) {
+        synchronized (writeLock) {
+            delegate.save(product);
+            indexes.reindex(copy(product));
+        }
+    }
+
+    /**
+     * Сохраняет набор товаров в базовом репозитории одним пакетом и обновляет индексы.
+     * @param products товары для сохранения
+     */
+    @Override
+    public void saveAll(Collection<Product> products) {
+        synchronized (writeLock) {
+            delegate.saveAll(products);
+            Indexes current = indexes;
+            for (Product product : products) {
+                current.reindex(copy(product));
+            }
+        }
+    }
+
+    /**
+     * Загружает товары в базовый репозиторий массовой загрузкой и перестраивает индексы.
+     * После массовой загрузки дешевле заново прочитать каталог, чем сопоставлять изменения построчно.
+     * Пока каталог читается, запросы обслуживаются прежними индексами.
+     * @param input  поток данных с заголовком
+     * @param format формат данных
+     * @return количество добавленных и обновленных товаров
+     */
+    @Override
+    public long importAll(Reader input, BulkFormat format) {
+        synchronized (writeLock) {
+            long merged = delegate.importAll(input, format);
+            load();
+            return merged;
+        }
+    }
+
+    /**
+     * Возвращает все товары в порядке идентификаторов.
+     * @return коллекция копий всех товаров
+     */
+    @Override
+    public Collection<Product> findAll() {
+        return copies(indexes.productsById.values().stream());
+    }
+
+    /**
+     * Последовательно передает копии всех товаров обработчику.
+     * @param consumer обработчик, вызываемый для каждого товара
+     */
+    @Override
+    public void streamAll(Consumer<? super Product> consumer) {
+        indexes.productsById.values().forEach(p -> consumer.accept(copy(p)));
+    }
+
+    /**
+     * Находит товар по идентификатору.
+     * @param id идентификатор товара
+     * @return Optional с копией товара
+     */
+    @Override
+    public Optional<Product> findById(Long id) {
+        return Optional.ofNullable(indexes.productsById.get(id)).map(CachedJdbcProductRepositoryImpl::copy);
+    }
+
+    /**
+     * Удаляет товар из базового репозитория и из индексов.
+     * @param id идентификатор товара
+     */
+    @Override
+    public void deleteById(Long id) {
+        synchronized (writeLock) {
+            delegate.deleteById(id);
+            Indexes current = indexes;
+            Product removed = current.productsById.get(id);
+            if (removed != null) current.unindex(removed);
+        }
+    }
+
+    /**
+     * Находит товары по категории без учета регистра.
+     * @param category название категории
+     * @return коллекция копий товаров
+     */
+    @Override
+    public Collection<Product> findByCategory(String category) {
+        SearchFilter filter = new SearchFilter(null, category, null, null, null);
+        Indexes current = indexes;
+        return copies(current.resolve(lookup(current.indexByCategory, category)).filter(filter::matches));
+    }
+
+    /**
+     * Находит товары по бренду без учета регистра.
+     * @param brand название бренда
+     * @return коллекция копий товаров
+     */
+    @Override
+    public Collection<Product> findByBrand(String brand) {
+        SearchFilter filter = new SearchFilter(null, null, brand, null, null);
+        Indexes current = indexes;
+        return copies(current.resolve(lookup(current.indexByBrand, brand)).filter(filter::matches));
+    }
+
+    /**
+     * Находит товары в диапазоне цен по индексу цен.
+     * @param min минимальная цена (включительно)
+     * @param max максимальная цена (включительно)
+     * @return коллекция копий товаров
+     */
+    @Override
+    public Collection<Product> findByPriceRange(BigDecimal min, BigDecimal max) {
+        SearchFilter filter = new SearchFilter(null, null, null, min, max);
+        Indexes current = indexes;
+        return copies(current.resolve(current.priceRange(min, max)).filter(filter::matches));
+    }
+
+    /**
+     * Возвращает минимальную цену по индексу цен.
+     * @return Optional с минимальной ценой, или empty если товаров нет
+     */
+    @Override
+    public Optional<BigDecimal> getMinPrice() {
+        return Optional.ofNullable(indexes.priceIndex.firstEntry()).map(Map.Entry::getKey);
+    }
+
+    /**
+     * Возвращает максимальную цену по индексу цен.
+     * @return Optional с максимальной ценой, или empty если товаров нет
+     */
+    @Override
+    public Optional<BigDecimal> getMaxPrice() {
+        return Optional.ofNullable(indexes.priceIndex.lastEntry()).map(Map.Entry::getKey);
+    }
+
+    /**
+     * Находит товары по фильтру пересечением индексов.
+     * Ключевое слово ищется по инвертированному индексу как префикс термов, а не как подстрока.
+     * Без ключевого слова из заданных в фильтре индексов (категория, бренд, цена) выбирается
+     * самый узкий набор кандидатов. Остальные условия проверяются на каждом кандидате.
+     * @param filter критерии поиска
+     * @return коллекция копий подходящих товаров в порядке идентификаторов
+     */
+    @Override
+    public Collection<Product> search(SearchFilter filter) {
+        SearchFilter rest = filter.withoutKeyword();
+        return copies(indexes.candidates(filter).filter(rest::matches)
+                .sorted(ProductSort.ID.comparator()));
+    }
+
+    /**
+     * Возвращает страницу товаров по фильтру.
+     * Страница всех товаров в порядке идентификаторов читается прямо из упорядоченного индекса
+     * без сортировки, остальные случаи сортируются после пересечения индексов.
+     * @param filter критерии поиска
+     * @param page   параметры страницы
+     * @return копии товаров страницы
+     */
+    @Override
+    public List<Product> searchPage(SearchFilter filter, PageRequest page) {
+        Indexes current = indexes;
+        PageCursor after = page.after();
+        if (page.sort() == ProductSort.ID && !hasIndexedCondition(filter)) {
+            Collection<Product> tail = after == null
+                    ? current.productsById.values()
+                    : current.productsById.tailMap(after.id(), false).values();
+            return copies(tail.stream().filter(filter::matches).limit(page.limit()));
+        }
+        SearchFilter rest = filter.withoutKeyword();
+        return copies(current.candidates(filter)
+                .filter(rest::matches)
+                .filter(p -> after == null || after.isBefore(p, page.sort()))
+                .sorted(page.sort().comparator())
+                .limit(page.limit()));
+    }
+
+    private static boolean hasIndexedCondition(SearchFilter filter) {
+        return hasText(filter.keyword()) || hasText(filter.category()) || hasText(filter.brand())
+                || filter.minPrice() != null || filter.maxPrice() != null;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private static Collection<Long> narrowest(Collection<Long> current, Collection<Long> candidate) {
+        return current == null || candidate.size() < current.size() ? candidate : current;
+    }
+
+    private static Set<Long> lookup(Map<String, Set<Long>> index, String key) {
+        return key == null ? Set.of() : index.getOrDefault(normalize(key), Set.of());
+    }
+
+    /** Добавляет ID товара в индекс по ключу */
+    private static <K> void add(Map<K, Set<Long>> map, K key, Long id) {
+        if (key == null) return;
+        map.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    /** Переносит ID товара на новый ключ индекса: сначала добавляет новый ключ, затем удаляет старый */
+    private static <K> void replace(Map<K, Set<Long>> map, K oldKey, K newKey, Long id) {
+        if (Objects.equals(oldKey, newKey)) return;
+        add(map, newKey, id);
+        remove(map, oldKey, id);
+    }
+
+    private static boolean samePrice(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    /** Удаляет ID товара из индекса, удаляя опустевший ключ */
+    private static <K> void remove(Map<K, Set<Long>> map, K key, Long id) {
+        if (key == null) return;
+        map.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static List<Product> copies(Stream<Product> products) {
+        return products.map(CachedJdbcProductRepositoryImpl::copy).toList();
+    }
+
+    private static Product copy(Product p) {
+        return new Product(p.getId(), p.getName(), p.getCategory(), p.getBrand(), p.getPrice(), p.getDescription());
+    }
+
+    /**
+     * Хранилище товаров и индексы над ним. Изменяется только под writeLock репозитория;
+     * читатели работают с ним без блокировки через ConcurrentMap.
+     */
+    private static final class Indexes {
+
+        final ConcurrentNavigableMap<Long, Product> productsById = new ConcurrentSkipListMap<>();
+        final Map<String, Set<Long>> indexByCategory = new ConcurrentHashMap<>();
+        final Map<String, Set<Long>> indexByBrand = new ConcurrentHashMap<>();
+        final ConcurrentNavigableMap<BigDecimal, Set<Long>> priceIndex = new ConcurrentSkipListMap<>();
+        final KeywordIndex keywordIndex = new KeywordIndex();
+
+        /**
+         * Возвращает кандидатов для фильтра.
+         * Если задано ключевое слово, кандидатами являются товары, найденные инвертированным индексом,
+         * иначе - товары из самого узкого из подходящих индексов.
+         */
+        Stream<Product> candidates(SearchFilter filter) {
+            if (hasText(filter.keyword())) return resolve(keywordIndex.search(filter.keyword()));
+
+            Collection<Long> best = null;
+            if (hasText(filter.category())) best = narrowest(best, lookup(indexByCategory, filter.category()));
+            if (hasText(filter.brand())) best = narrowest(best, lookup(indexByBrand, filter.brand()));
+            if (filter.minPrice() != null || filter.maxPrice() != null) {
+                best = narrowest(best, priceRange(filter.minPrice(), filter.maxPrice()));
+            }
+            return best == null ? productsById.values().stream() : resolve(best);
+        }
+
+        /** Возвращает идентификаторы товаров с ценой в диапазоне; null означает открытую границу */
+        Collection<Long> priceRange(BigDecimal min, BigDecimal max) {
+            if (min != null && max != null && min.compareTo(max) > 0) return List.of();
+
+            NavigableMap<BigDecimal, Set<Long>> range = priceIndex;
+            if (min != null) range = range.tailMap(min, true);
+            if (max != null) range = range.headMap(max, true);
+
+            List<Long> ids = new ArrayList<>();
+            range.values().forEach(ids::addAll);
+            return ids;
+        }
+
+        Stream<Product> resolve(Collection<Long> ids) {
+            return ids.stream()
+                    .map(productsById::get)
+                    .filter(Objects::nonNull);
+        }
+
+        /** Добавляет товар в хранилище и во все индексы */
+        void index(Product p) {
+            productsById.put(p.getId(), p);
+            add(indexByCategory, normalize(p.getCategory()), p.getId());
+            add(indexByBrand, normalize(p.getBrand()), p.getId());
+            add(priceIndex, p.getPrice(), p.getId());
+            keywordIndex.add(p);
+        }
+
+        /**
+         * Добавляет новый товар или заменяет проиндексированную версию существующего.
+         * Чтение идет без блокировки, поэтому товар не удаляется из индексов даже на время замены:
+         * новая версия сразу заменяет старую в хранилище, затем добавляются ее ключи вторичных индексов,
+         * и только после этого удаляются ключи старой версии, которые изменились. Пока старый ключ еще
+         * не удален, кандидат по нему отсеивается проверкой фильтра на новой версии.
+         */
+        void reindex(Product p) {
+            Product previous = productsById.put(p.getId(), p);
+            if (previous == null) {
+                index(p);
+                return;
+            }
+            replace(indexByCategory, normalize(previous.getCategory()), normalize(p.getCategory()), p.getId());
+            replace(indexByBrand, normalize(previous.getBrand()), normalize(p.getBrand()), p.getId());
+            if (!samePrice(previous.getPrice(), p.getPrice())) {
+                replace(priceIndex, previous.getPrice(), p.getPrice(), p.getId());
+            }
+            keywordIndex.replace(previous, p);
+        }
+
+        /** Удаляет товар из хранилища и из всех индексов */
+        void unindex(Product p) {
+            productsById.remove(p.getId());
+            remove(indexByCategory, normalize(p.getCategory()), p.getId());
+            remove(indexByBrand, normalize(p.getBrand()), p.getId());
+            remove(priceIndex, p.getPrice(), p.getId());
+            keywordIndex.remove(p);
+        }
+    }
+}
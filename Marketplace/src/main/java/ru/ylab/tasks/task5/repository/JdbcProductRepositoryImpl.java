@@ -1,85 +1,252 @@
 package ru.ylab.tasks.task5.repository;
 
+import org.postgresql.PGConnection;
 import ru.ylab.tasks.task5.exception.DatabaseException;
+import ru.ylab.tasks.task5.exception.InvalidImportDataException;
 import ru.ylab.tasks.task5.model.Product;
+import ru.ylab.tasks.task5.repository.PriceBoundsCache.PriceBounds;
+import ru.ylab.tasks.task5.repository.jdbc.QueryExecutor;
+import ru.ylab.tasks.task5.repository.jdbc.RowMapper;
+import ru.ylab.tasks.task5.repository.jdbc.StatementBinder;
+import ru.ylab.tasks.task5.util.BulkFormat;
+import ru.ylab.tasks.task5.util.KeywordSearchMode;
+import ru.ylab.tasks.task5.util.KeywordTerms;
+import ru.ylab.tasks.task5.util.PageCursor;
+import ru.ylab.tasks.task5.util.PageRequest;
+import ru.ylab.tasks.task5.util.ProductSort;
+import ru.ylab.tasks.task5.util.SearchFilter;
 
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
-import java.sql.*;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import static ru.ylab.tasks.task5.constant.SqlConstants.*;
 
 /**
  * Реализация репозитория продуктов на основе JDBC.
  * Обеспечивает сохранение, поиск, обновление и удаление продуктов в базе данных.
+ * Поиск по ключевому слову выполняется способом {@link KeywordSearchMode}, заданным в конфигурации.
+ * Все повторяющиеся запросы выполняются через PreparedStatement с постоянным текстом из SqlConstants:
+ * драйвер кеширует их на физическом соединении пула и после prepareThreshold выполнений
+ * переводит в именованные серверные prepared statements без повторного разбора и планирования.
+ * Выполнение запросов и обход результатов делегируются {@link QueryExecutor}, строки
+ * преобразуются в продукты по номерам столбцов, определенным один раз для каждого запроса.
  */
 public class JdbcProductRepositoryImpl implements ProductRepository {
 
-    private final DataSource dataSource;
+    /**
+     * Количество строк в одном пакете при пакетном сохранении по умолчанию.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final RowMapper<Product> PRODUCT = RowMapper.of((rs, c) -> new Product(
+            rs.getLong(c[0]),
+            rs.getString(c[1]),
+            rs.getString(c[2]),
+            rs.getString(c[3]),
+            rs.getBigDecimal(c[4]),
+            rs.getString(c[5])
+    ), "id", "name", "category", "brand", "price", "description");
+
+    private static final RowMapper<BigDecimal> PRICE = RowMapper.of((rs, c) -> rs.getBigDecimal(c[0]), "price");
+
+    private static final RowMapper<PriceBounds> PRICE_BOUNDS = RowMapper.of(
+            (rs, c) -> new PriceBounds(rs.getBigDecimal(c[0]), rs.getBigDecimal(c[1])), "min_price", "max_price");
+
+    private final QueryExecutor executor;
+    private final KeywordSearchMode keywordSearchMode;
+    private final int batchSize;
+    private final PriceBoundsCache priceBounds = new PriceBoundsCache(this::loadPriceBounds);
+    private final SequenceIdAllocator idAllocator;
 
     public JdbcProductRepositoryImpl(DataSource dataSource) {
-        this.dataSource = dataSource;
+        this(new QueryExecutor(dataSource), KeywordSearchMode.SUBSTRING, DEFAULT_BATCH_SIZE);
+    }
+
+    public JdbcProductRepositoryImpl(QueryExecutor executor, KeywordSearchMode keywordSearchMode, int batchSize) {
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize must be positive");
+        this.executor = executor;
+        this.keywordSearchMode = keywordSearchMode;
+        this.batchSize = batchSize;
+        this.idAllocator = new SequenceIdAllocator(executor, SELECT_NEXT_PRODUCT_ID_BLOCKS, SELECT_PRODUCT_ID_INCREMENT);
     }
 
     /**
      * Сохраняет продукт в базе данных.
      * Если продукт новый (id = null), выполняет вставку, иначе - обновление.
+     * Id нового продукта берется из блока, заранее выделенного из последовательности.
+     * Кешированные границы цен расширяются при вставке и сбрасываются при обновлении,
+     * так как прежняя цена обновляемого продукта неизвестна.
      * @param product продукт для сохранения
      */
     @Override
     public void save(Product product) {
-        try (Connection conn = dataSource.getConnection()) {
+        try {
             if (product.getId() == null) {
-                try (PreparedStatement ps = conn.prepareStatement(INSERT_PRODUCT, Statement.RETURN_GENERATED_KEYS)) {
-                    ps.setString(1, product.getName());
-                    ps.setString(2, product.getCategory());
-                    ps.setString(3, product.getBrand());
-                    ps.setBigDecimal(4, product.getPrice());
-                    ps.setString(5, product.getDescription());
-                    ps.executeUpdate();
-                    try (ResultSet rs = ps.getGeneratedKeys()) {
-                        if (rs.next()) {
-                            product.setId(rs.getLong(1));
-                        }
-                    }
-                }
+                long id = executor.withConnection(conn -> {
+                    long next = idAllocator.next(conn);
+                    executor.update(conn, INSERT_PRODUCT_WITH_ID, ps -> bindInsert(ps, product, next));
+                    return next;
+                });
+                product.setId(id);
+                priceBounds.onAdded(product.getPrice());
             } else {
-                try (PreparedStatement ps = conn.prepareStatement(UPDATE_PRODUCT)) {
-                    ps.setString(1, product.getName());
-                    ps.setString(2, product.getCategory());
-                    ps.setString(3, product.getBrand());
-                    ps.setBigDecimal(4, product.getPrice());
-                    ps.setString(5, product.getDescription());
-                    ps.setLong(6, product.getId());
-                    ps.executeUpdate();
-                }
+                executor.update(UPDATE_PRODUCT, ps -> bindUpdate(ps, product));
+                priceBounds.invalidate();
             }
         } catch (SQLException e) {
             throw new DatabaseException("Ошибка сохранения продукта: ", e);
         }
     }
 
+    /**
+     * Сохраняет набор продуктов в одной транзакции пакетами по batchSize строк.
+     * Id для всех новых продуктов выделяются заранее одним обращением к последовательности,
+     * после чего продукты добавляются через executeBatch без RETURNING;
+     * существующие продукты обновляются отдельными пакетами. При ошибке транзакция откатывается,
+     * а присвоенные в этом вызове id сбрасываются.
+     * @param products продукты для сохранения
+     */
+    @Override
+    public void saveAll(Collection<Product> products) {
+        if (products.isEmpty()) return;
+
+        List<Product> inserts = new ArrayList<>();
+        List<Product> updates = new ArrayList<>();
+        for (Product p : products) {
+            (p.getId() == null ? inserts : updates).add(p);
+        }
+
+        try {
+            executor.inTransaction(conn -> {
+                long[] ids = idAllocator.next(conn, inserts.size());
+                executor.batch(conn, INSERT_PRODUCT_WITH_ID, inserts, (ps, p, i) -> bindInsert(ps, p, ids[i]), batchSize);
+                executor.batch(conn, UPDATE_PRODUCT, updates, (ps, p, i) -> bindUpdate(ps, p), batchSize);
+                for (int i = 0; i < inserts.size(); i++) inserts.get(i).setId(ids[i]);
+                return null;
+            });
+        } catch (SQLException e) {
+            inserts.forEach(p -> p.setId(null));
+            throw new DatabaseException("Ошибка пакетного сохранения продуктов: ", e);
+        } catch (RuntimeException e) {
+            inserts.forEach(p -> p.setId(null));
+            throw e;
+        }
+
+        inserts.forEach(p -> priceBounds.onAdded(p.getPrice()));
+        if (!updates.isEmpty()) priceBounds.invalidate();
+    }
+
+    /**
+     * Загружает продукты через COPY FROM STDIN во временную таблицу и сливает ее
+     * с таблицей продуктов одним запросом INSERT ... ON CONFLICT (id) DO UPDATE.
+     * Данные передаются серверу потоком без разбора на стороне приложения, вся загрузка
+     * выполняется в одной транзакции. Перед слиянием последовательность сдвигается за максимальный id
+     * каталога и загрузки, а строки без id получают id блоками последовательности, по одному nextval
+     * на блок, а не на строку. После загрузки остаток текущего блока id и кешированные границы цен
+     * сбрасываются: загруженные явные id могли попасть в уже выделенный блок.
+     * @param input  поток данных с заголовком id,name,category,brand,price,description
+     * @param format формат данных
+     * @return количество добавленных и обновленных продуктов
+     */
+    @Override
+    public long importAll(Reader input, BulkFormat format) {
+        long merged;
+        try {
+            merged = executor.inTransaction(conn -> {
+                executor.execute(conn, CREATE_PRODUCTS_STAGING);
+                try {
+                    conn.unwrap(PGConnection.class).getCopyAPI()
+                            .copyIn(COPY_PRODUCTS_STAGING.formatted(format.delimiter()), input);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                int blockSize = idAllocator.blockSize(conn);
+                executor.execute(conn, SYNC_PRODUCT_SEQUENCE);
+                executor.update(conn, ASSIGN_PRODUCTS_STAGING_IDS,
+                        StatementBinder.of(blockSize, blockSize, blockSize, blockSize));
+                return executor.update(conn, MERGE_PRODUCTS_STAGING, StatementBinder.NONE);
+            });
+        } catch (SQLException e) {
+            if (isInvalidImportData(e)) {
+                throw new InvalidImportDataException("Некорректные данные массовой загрузки продуктов: " + e.getMessage(), e);
+            }
+            throw new DatabaseException("Ошибка массовой загрузки продуктов: ", e);
+        } catch (UncheckedIOException e) {
+            throw new DatabaseException("Ошибка массовой загрузки продуктов: ", e.getCause());
+        }
+        idAllocator.reset();
+        priceBounds.invalidate();
+        return merged;
+    }
+
+    /**
+     * Проверяет, вызвана ли ошибка загрузки содержимым данных, а не состоянием базы данных:
+     * класс SQLSTATE 22 - нарушение формата COPY или значение не того типа,
+     * 21000 - один id встречается в загрузке несколько раз и ON CONFLICT обновил бы строку дважды.
+     */
+    private static boolean isInvalidImportData(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("22") || state.equals("21000"));
+    }
+
+    /**
+     * Устанавливает параметры INSERT_PRODUCT_WITH_ID.
+     */
+    private static void bindInsert(PreparedStatement ps, Product p, long id) throws SQLException {
+        ps.setLong(1, id);
+        ps.setString(2, p.getName());
+        ps.setString(3, p.getCategory());
+        ps.setString(4, p.getBrand());
+        ps.setBigDecimal(5, p.getPrice());
+        ps.setString(6, p.getDescription());
+    }
+
+    /**
+     * Устанавливает параметры UPDATE_PRODUCT.
+     */
+    private static void bindUpdate(PreparedStatement ps, Product p) throws SQLException {
+        ps.setString(1, p.getName());
+        ps.setString(2, p.getCategory());
+        ps.setString(3, p.getBrand());
+        ps.setBigDecimal(4, p.getPrice());
+        ps.setString(5, p.getDescription());
+        ps.setLong(6, p.getId());
+    }
+
     /**
      * Возвращает все продукты из базы данных.
      * @return коллекция всех продуктов
      */
     @Override
     public Collection<Product> findAll() {
-        List<Product> list = new ArrayList<>();
-        try (Connection conn = dataSource.getConnection();
-             Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery(SELECT_ALL_PRODUCTS)) {
-            while (rs.next()) {
-                list.add(mapProduct(rs));
-            }
+        return queryProducts(SELECT_ALL_PRODUCTS, StatementBinder.NONE, 0, "Ошибка получения всех продуктов: ");
+    }
+
+    /**
+     * Последовательно читает все продукты серверным курсором и передает их обработчику.
+     * Драйвер PostgreSQL использует курсор только внутри транзакции и с заданным fetch size,
+     * поэтому одновременно в памяти находится не больше fetch size строк исполнителя запросов
+     * независимо от размера таблицы.
+     * @param consumer обработчик, вызываемый для каждого продукта
+     */
+    @Override
+    public void streamAll(Consumer<? super Product> consumer) {
+        try {
+            executor.stream(SELECT_ALL_PRODUCTS_ORDERED_BY_ID, StatementBinder.NONE, PRODUCT, consumer);
         } catch (SQLException e) {
-            throw new DatabaseException("Ошибка получения всех продуктов: ", e);
+            throw new DatabaseException("Ошибка потокового чтения продуктов: ", e);
         }
-        return list;
     }
 
     /**
@@ -89,13 +256,8 @@ public class JdbcProductRepositoryImpl implements ProductRepository {
      */
     @Override
     public Optional<Product> findById(Long id) {
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(SELECT_PRODUCT_BY_ID)) {
-            ps.setLong(1, id);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return Optional.of(mapProduct(rs));
-                return Optional.empty();
-            }
+        try {
+            return executor.queryOne(SELECT_PRODUCT_BY_ID, ps -> ps.setLong(1, id), PRODUCT);
         } catch (SQLException e) {
             throw new DatabaseException("Ошибка поиска продукта по id: ", e);
         }
@@ -103,57 +265,37 @@ public class JdbcProductRepositoryImpl implements ProductRepository {
 
     /**
      * Удаляет продукт по идентификатору.
+     * Цена удаленного продукта возвращается тем же запросом и учитывается в кешированных границах цен.
      * @param id идентификатор продукта для удаления
      */
     @Override
     public void deleteById(Long id) {
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(DELETE_PRODUCT_BY_ID)) {
-            ps.setLong(1, id);
-            ps.executeUpdate();
+        try {
+            executor.queryOne(DELETE_PRODUCT_BY_ID, ps -> ps.setLong(1, id), PRICE)
+                    .ifPresent(priceBounds::onRemoved);
         } catch (SQLException e) {
             throw new DatabaseException("Ошибка удаления продукта: ", e);
         }
     }
 
     /**
-     * Находит все продукты указанной категории.
+     * Находит все продукты указанной категории без учета регистра.
      * @param category категория для поиска
      * @return коллекция продуктов указанной категории
      */
     @Override
     public Collection<Product> findByCategory(String category) {
-        List<Product> list = new ArrayList<>();
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(SELECT_PRODUCTS_BY_CATEGORY)) {
-            ps.setString(1, category);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) list.add(mapProduct(rs));
-            }
-        } catch (SQLException e) {
-            throw new DatabaseException("Ошибка поиска продуктов по категории: ", e);
-        }
-        return list;
+        return queryProducts(SELECT_PRODUCTS_BY_CATEGORY, ps -> ps.setString(1, category), 0, "Ошибка поиска продуктов по категории: ");
     }
 
     /**
-     * Находит все продукты указанного бренда.
+     * Находит все продукты указанного бренда без учета регистра.
      * @param brand бренд для поиска
      * @return коллекция продуктов указанного бренда
      */
     @Override
     public Collection<Product> findByBrand(String brand) {
-        List<Product> list = new ArrayList<>();
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(SELECT_PRODUCTS_BY_BRAND)) {
-            ps.setString(1, brand);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) list.add(mapProduct(rs));
-            }
-        } catch (SQLException e) {
-            throw new DatabaseException("Ошибка поиска продуктов по бренду: ", e);
-        }
-        return list;
+        return queryProducts(SELECT_PRODUCTS_BY_BRAND, ps -> ps.setString(1, brand), 0, "Ошибка поиска продуктов по бренду: ");
     }
 
     /**
@@ -164,66 +306,177 @@ public class JdbcProductRepositoryImpl implements ProductRepository {
      */
     @Override
     public Collection<Product> findByPriceRange(BigDecimal min, BigDecimal max) {
-        List<Product> list = new ArrayList<>();
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(SELECT_PRODUCTS_BY_PRICE_RANGE)) {
+        StatementBinder binder = ps -> {
             ps.setBigDecimal(1, min);
             ps.setBigDecimal(2, max);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) list.add(mapProduct(rs));
+        };
+        return queryProducts(SELECT_PRODUCTS_BY_PRICE_RANGE, binder, 0, "Ошибка поиска продуктов по диапазону цен: ");
+    }
+
+    /**
+     * Находит продукты по фильтру одним параметризованным запросом.
+     * Все заданные критерии собираются в одно условие WHERE, поэтому
+     * из базы данных читаются только подходящие строки.
+     * @param filter критерии поиска
+     * @return коллекция найденных продуктов, упорядоченная по id
+     */
+    @Override
+    public Collection<Product> search(SearchFilter filter) {
+        StringBuilder sql = new StringBuilder(SEARCH_PRODUCTS_BASE);
+        List<Object> params = new ArrayList<>();
+        appendSearchConditions(filter, sql, params);
+        sql.append(SEARCH_ORDER_BY_ID);
+        return queryProducts(sql.toString(), StatementBinder.of(params), 0, "Ошибка поиска продуктов по фильтру: ");
+    }
+
+    /**
+     * Возвращает страницу продуктов по фильтру с keyset-пагинацией.
+     * Вместо OFFSET запрос продолжает выборку строго после ключа сортировки
+     * последнего товара предыдущей страницы, поэтому стоимость запроса
+     * не зависит от номера страницы.
+     * @param filter критерии поиска
+     * @param page   параметры страницы
+     * @return не более page.limit() продуктов в порядке сортировки
+     */
+    @Override
+    public List<Product> searchPage(SearchFilter filter, PageRequest page) {
+        StringBuilder sql = new StringBuilder(SEARCH_PRODUCTS_BASE);
+        List<Object> params = new ArrayList<>();
+        appendSearchConditions(filter, sql, params);
+
+        PageCursor after = page.after();
+        if (page.sort() == ProductSort.PRICE) {
+            if (after != null) {
+                sql.append(SEARCH_AFTER_PRICE_ID);
+                params.add(after.price());
+                params.add(after.id());
             }
-        } catch (SQLException e) {
-            throw new DatabaseException("Ошибка поиска продуктов по диапазону цен: ", e);
+            sql.append(SEARCH_ORDER_BY_PRICE_ID);
+        } else {
+            if (after != null) {
+                sql.append(SEARCH_AFTER_ID);
+                params.add(after.id());
+            }
+            sql.append(SEARCH_ORDER_BY_ID);
         }
-        return list;
+        sql.append(SEARCH_LIMIT);
+        params.add(page.limit());
+
+        return queryProducts(sql.toString(), StatementBinder.of(params), page.limit(),
+                "Ошибка получения страницы продуктов: ");
     }
 
     /**
      * Возвращает минимальную цену среди всех продуктов.
+     * Значение берется из кешированных границ цен и не требует запроса к базе данных.
      * @return Optional с минимальной ценой, или empty если продуктов нет
      */
     @Override
     public Optional<BigDecimal> getMinPrice() {
-        try (Connection conn = dataSource.getConnection();
-             Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery(SELECT_MIN_PRICE)) {
-            if (rs.next()) return Optional.ofNullable(rs.getBigDecimal("min_price"));
-            return Optional.empty();
-        } catch (SQLException e) {
-            throw new DatabaseException("Ошибка получения минимальной цены: ", e);
-        }
+        return Optional.ofNullable(priceBounds.get().min());
     }
 
     /**
      * Возвращает максимальную цену среди всех продуктов.
+     * Значение берется из кешированных границ цен и не требует запроса к базе данных.
      * @return Optional с максимальной ценой, или empty если продуктов нет
      */
     @Override
     public Optional<BigDecimal> getMaxPrice() {
-        try (Connection conn = dataSource.getConnection();
-             Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery(SELECT_MAX_PRICE)) {
-            if (rs.next()) return Optional.ofNullable(rs.getBigDecimal("max_price"));
-            return Optional.empty();
+        return Optional.ofNullable(priceBounds.get().max());
+    }
+
+    /**
+     * Загружает минимальную и максимальную цену одним запросом.
+     * Вызывается кешем границ цен при первом обращении и после сброса.
+     * @return границы цен каталога
+     */
+    private PriceBounds loadPriceBounds() {
+        try {
+            return executor.queryOne(SELECT_PRICE_BOUNDS, StatementBinder.NONE, PRICE_BOUNDS)
+                    .orElse(PriceBounds.EMPTY);
+        } catch (SQLException e) {
+            throw new DatabaseException("Ошибка получения границ цен: ", e);
+        }
+    }
+
+    /**
+     * Выполняет запрос продуктов.
+     * @param sql          текст запроса
+     * @param binder       установка параметров
+     * @param expectedRows ожидаемое количество строк; 0 - по последнему выполнению запроса
+     * @param errorMessage сообщение для исключения при ошибке базы данных
+     * @return список продуктов
+     */
+    private List<Product> queryProducts(String sql, StatementBinder binder, int expectedRows, String errorMessage) {
+        try {
+            return executor.query(sql, binder, PRODUCT, expectedRows);
         } catch (SQLException e) {
-            throw new DatabaseException("Ошибка получения максимальной цены: ", e);
+            throw new DatabaseException(errorMessage, e);
+        }
+    }
+
+    /**
+     * Дописывает в запрос условия для всех заданных критериев фильтра
+     * и собирает значения параметров в порядке их появления в запросе.
+     * @param filter критерии поиска
+     * @param sql    формируемый запрос
+     * @param params значения параметров запроса
+     */
+    private void appendSearchConditions(SearchFilter filter, StringBuilder sql, List<Object> params) {
+        if (filter.category() != null && !filter.category().isBlank()) {
+            sql.append(SEARCH_BY_CATEGORY);
+            params.add(filter.category());
+        }
+        if (filter.brand() != null && !filter.brand().isBlank()) {
+            sql.append(SEARCH_BY_BRAND);
+            params.add(filter.brand());
+        }
+        if (filter.minPrice() != null && filter.maxPrice() != null) {
+            sql.append(SEARCH_BY_PRICE_RANGE);
+            params.add(filter.minPrice());
+            params.add(filter.maxPrice());
+        } else if (filter.minPrice() != null) {
+            sql.append(SEARCH_BY_MIN_PRICE);
+            params.add(filter.minPrice());
+        } else if (filter.maxPrice() != null) {
+            sql.append(SEARCH_BY_MAX_PRICE);
+            params.add(filter.maxPrice());
+        }
+        if (filter.keyword() != null && !filter.keyword().isBlank()) {
+            appendKeywordCondition(filter.keyword(), sql, params);
+        }
+    }
+
+    /**
+     * Дописывает в запрос условие по ключевому слову в зависимости от способа поиска.
+     * Для полнотекстового поиска слова запроса объединяются через AND и ищутся по префиксу,
+     * запрос без слов (только из знаков препинания) ничего не находит.
+     */
+    private void appendKeywordCondition(String keyword, StringBuilder sql, List<Object> params) {
+        if (keywordSearchMode == KeywordSearchMode.FULL_TEXT) {
+            List<String> terms = KeywordTerms.tokenize(keyword);
+            if (terms.isEmpty()) {
+                sql.append(SEARCH_NOTHING);
+                return;
+            }
+            sql.append(SEARCH_BY_KEYWORD_FULL_TEXT);
+            params.add(terms.stream().map(term -> term + ":*").collect(Collectors.joining(" & ")));
+        } else {
+            String pattern = "%" + escapeLike(keyword) + "%";
+            sql.append(SEARCH_BY_KEYWORD);
+            for (int i = 0; i < 4; i++) params.add(pattern);
         }
     }
 
     /**
-     * Преобразует ResultSet в объект Product.
-     * @param rs ResultSet с данными продукта
-     * @return объект Product
+     * Экранирует спецсимволы шаблона LIKE, чтобы ключевое слово искалось как подстрока.
+     * @param value исходная строка
+     * @return строка с экранированными символами \, % и _
      */
-    private Product mapProduct(ResultSet rs) throws SQLException {
-        return new Product(
-                rs.getLong("id"),
-                rs.getString("name"),
-                rs.getString("category"),
-                rs.getString("brand"),
-                rs.getBigDecimal("price"),
-                rs.getString("description")
-        );
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
     }
-    
 }
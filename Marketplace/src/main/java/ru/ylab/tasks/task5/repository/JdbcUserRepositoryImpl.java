@@ -3,10 +3,12 @@ package ru.ylab.tasks.task5.repository;
 import ru.ylab.tasks.task5.constant.Role;
 import ru.ylab.tasks.task5.exception.DatabaseException;
 import ru.ylab.tasks.task5.model.User;
+import ru.ylab.tasks.task5.repository.jdbc.QueryExecutor;
+import ru.ylab.tasks.task5.repository.jdbc.RowMapper;
+import ru.ylab.tasks.task5.repository.jdbc.StatementBinder;
 
 import javax.sql.DataSource;
-import java.sql.*;
-import java.util.ArrayList;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,13 +17,28 @@ import static ru.ylab.tasks.task5.constant.SqlConstants.*;
 /**
  * Реализация репозитория пользователей на основе JDBC.
  * Обеспечивает операции CRUD для пользователей системы.
+ * Запросы выполняются через PreparedStatement с постоянным текстом, поэтому драйвер
+ * переиспользует серверные prepared statements на соединениях пула.
+ * Выполнение запросов делегируется {@link QueryExecutor}.
  */
 public class JdbcUserRepositoryImpl implements UserRepository {
 
-    private final DataSource dataSource;
+    private static final RowMapper<User> USER = RowMapper.of((rs, c) -> {
+        String role = rs.getString(c[3]);
+        return new User(rs.getLong(c[0]), rs.getString(c[1]), rs.getString(c[2]),
+                role != null ? Role.valueOf(role) : null);
+    }, "id", "login", "password", "role");
+
+    private static final RowMapper<Long> ID = RowMapper.of((rs, c) -> rs.getLong(c[0]), "id");
+
+    private final QueryExecutor executor;
 
     public JdbcUserRepositoryImpl(DataSource dataSource) {
-        this.dataSource = dataSource;
+        this(new QueryExecutor(dataSource));
+    }
+
+    public JdbcUserRepositoryImpl(QueryExecutor executor) {
+        this.executor = executor;
     }
 
     /**
@@ -31,27 +48,13 @@ public class JdbcUserRepositoryImpl implements UserRepository {
      */
     @Override
     public void save(User user) {
-        try (Connection conn = dataSource.getConnection()) {
+        try {
             if (user.getId() == null) {
-                try (PreparedStatement ps = conn.prepareStatement(INSERT_USER, Statement.RETURN_GENERATED_KEYS)) {
-                    ps.setString(1, user.getLogin());
-                    ps.setString(2, user.getPassword());
-                    ps.setString(3, user.getRole().name());
-                    ps.executeUpdate();
-                    try (ResultSet rs = ps.getGeneratedKeys()) {
-                        if (rs.next()) {
-                            user.setId(rs.getLong(1));
-                        }
-                    }
-                }
+                executor.queryOne(INSERT_USER, StatementBinder.of(user.getLogin(), user.getPassword(),
+                        user.getRole().name()), ID).ifPresent(user::setId);
             } else {
-                try (PreparedStatement ps = conn.prepareStatement(UPDATE_USER)) {
-                    ps.setString(1, user.getLogin());
-                    ps.setString(2, user.getPassword());
-                    ps.setString(3, user.getRole().name());
-                    ps.setLong(4, user.getId());
-                    ps.executeUpdate();
-                }
+                executor.update(UPDATE_USER, StatementBinder.of(user.getLogin(), user.getPassword(),
+                        user.getRole().name(), user.getId()));
             }
         } catch (SQLException e) {
             throw new DatabaseException("Ошибка сохранения пользователя: ", e);
@@ -65,13 +68,8 @@ public class JdbcUserRepositoryImpl implements UserRepository {
      */
     @Override
     public Optional<User> findById(Long id) {
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(SELECT_USER_BY_ID)) {
-            ps.setLong(1, id);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return Optional.of(mapRow(rs));
-                return Optional.empty();
-            }
+        try {
+            return executor.queryOne(SELECT_USER_BY_ID, ps -> ps.setLong(1, id), USER);
         } catch (SQLException e) {
             throw new DatabaseException("Ошибка поиска пользователя по id: ", e);
         }
@@ -84,13 +82,8 @@ public class JdbcUserRepositoryImpl implements UserRepository {
      */
     @Override
     public Optional<User> findByLogin(String login) {
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(SELECT_USER_BY_LOGIN)) {
-            ps.setString(1, login);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return Optional.of(mapRow(rs));
-                return Optional.empty();
-            }
+        try {
+            return executor.queryOne(SELECT_USER_BY_LOGIN, ps -> ps.setString(1, login), USER);
         } catch (SQLException e) {
             throw new DatabaseException("Ошибка поиска пользователя по login: ", e);
         }
@@ -102,14 +95,8 @@ public class JdbcUserRepositoryImpl implements UserRepository {
      */
     @Override
     public List<User> findAll() {
-        try (Connection conn = dataSource.getConnection();
-             Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery(SELECT_ALL_USERS)) {
-            List<User> users = new ArrayList<>();
-            while (rs.next()) {
-                users.add(mapRow(rs));
-            }
-            return users;
+        try {
+            return executor.query(SELECT_ALL_USERS, StatementBinder.NONE, USER);
         } catch (SQLException e) {
             throw new DatabaseException("Ошибка получения всех пользователей: ", e);
         }
@@ -122,12 +109,8 @@ public class JdbcUserRepositoryImpl implements UserRepository {
      */
     @Override
     public boolean existsByLogin(String login) {
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(EXISTS_USER_BY_LOGIN)) {
-            ps.setString(1, login);
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next();
-            }
+        try {
+            return executor.exists(EXISTS_USER_BY_LOGIN, ps -> ps.setString(1, login));
         } catch (SQLException e) {
             throw new DatabaseException("Ошибка проверки существования login: ", e);
         }
@@ -140,27 +123,10 @@ public class JdbcUserRepositoryImpl implements UserRepository {
      */
     @Override
     public boolean deleteById(Long id) {
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(DELETE_USER_BY_ID)) {
-            ps.setLong(1, id);
-            return ps.executeUpdate() > 0;
+        try {
+            return executor.update(DELETE_USER_BY_ID, ps -> ps.setLong(1, id)) > 0;
         } catch (SQLException e) {
             throw new DatabaseException("Ошибка удаления пользователя: ", e);
         }
     }
-
-    /**
-     * Преобразует ResultSet в объект User.
-     * @param rs ResultSet с данными пользователя
-     * @return объект User
-     */
-    private User mapRow(ResultSet rs) throws SQLException {
-        Long id = rs.getLong("id");
-        String login = rs.getString("login");
-        String password = rs.getString("password");
-        String roleStr = rs.getString("role");
-        Role role = roleStr != null ? Role.valueOf(roleStr) : null;
-        return new User(id, login, password, role);
-    }
-
 }
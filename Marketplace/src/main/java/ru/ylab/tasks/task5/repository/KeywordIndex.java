@@ -0,0 +1,121 @@
+package ru.ylab.tasks.task5.repository;
+
+import ru.ylab.tasks.task5.model.Product;
+import ru.ylab.tasks.task5.util.KeywordTerms;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Инвертированный индекс для поиска товаров по ключевому слову.
+ * Название, описание, категория и бренд товара разбиваются на термы ({@link KeywordTerms}),
+ * для каждого терма хранится отсортированный список идентификаторов товаров.
+ * Каждый терм запроса ищется как префикс, поэтому запрос "lapt" находит товар "Laptop Pro".
+ * Если в запросе несколько термов, результатом является пересечение их списков.
+ * Поиск не перебирает товары и не создает строк для каждого товара.
+ */
+public class KeywordIndex {
+
+    private final ConcurrentNavigableMap<String, NavigableSet<Long>> postings = new ConcurrentSkipListMap<>();
+
+    /**
+     * Добавляет термы товара в индекс.
+     * @param p товар с заполненным идентификатором
+     */
+    public void add(Product p) {
+        for (String term : terms(p)) {
+            postings.computeIfAbsent(term, t -> new ConcurrentSkipListSet<>()).add(p.getId());
+        }
+    }
+
+    /**
+     * Удаляет термы товара из индекса. Передается та версия товара, которая была проиндексирована.
+     * @param p ранее добавленный товар
+     */
+    public void remove(Product p) {
+        for (String term : terms(p)) {
+            postings.computeIfPresent(term, (t, ids) -> {
+                ids.remove(p.getId());
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * Заменяет проиндексированную версию товара новой. Сначала добавляются термы новой версии,
+     * затем удаляются только те термы старой версии, которых в новой нет, чтобы поиск
+     * по общим термам находил товар и во время замены.
+     * @param previous ранее добавленная версия товара
+     * @param next     новая версия товара с тем же идентификатором
+     */
+    public void replace(Product previous, Product next) {
+        Set<String> nextTerms = terms(next);
+        for (String term : nextTerms) {
+            postings.computeIfAbsent(term, t -> new ConcurrentSkipListSet<>()).add(next.getId());
+        }
+        for (String term : terms(previous)) {
+            if (nextTerms.contains(term)) continue;
+            postings.computeIfPresent(term, (t, ids) -> {
+                ids.remove(previous.getId());
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * Находит товары, у которых для каждого терма запроса есть терм, начинающийся с него.
+     * @param query ключевое слово или фраза
+     * @return идентификаторы товаров по возрастанию; пустой список, если в запросе нет термов
+     */
+    public List<Long> search(String query) {
+        List<String> terms = KeywordTerms.tokenize(query);
+        if (terms.isEmpty()) return List.of();
+
+        List<NavigableSet<Long>> lists = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            NavigableSet<Long> ids = prefixPostings(term);
+            if (ids.isEmpty()) return List.of();
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        List<Long> result = new ArrayList<>();
+        outer:
+        for (Long id : lists.get(0)) {
+            for (int i = 1; i < lists.size(); i++) {
+                if (!lists.get(i).contains(id)) continue outer;
+            }
+            result.add(id);
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает идентификаторы товаров, имеющих терм с заданным префиксом.
+     * Если префиксу соответствует один терм, его список возвращается без копирования.
+     * Диапазон термов обходится одним итератором: индекс изменяется без блокировки читателей,
+     * поэтому размер диапазона, проверенный заранее, мог бы не совпасть с его содержимым.
+     */
+    private NavigableSet<Long> prefixPostings(String prefix) {
+        Iterator<NavigableSet<Long>> range =
+                postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values().iterator();
+        if (!range.hasNext()) return Collections.emptyNavigableSet();
+        NavigableSet<Long> first = range.next();
+        if (!range.hasNext()) return first;
+
+        NavigableSet<Long> union = new TreeSet<>(first);
+        range.forEachRemaining(union::addAll);
+        return union;
+    }
+
+    private static Set<String> terms(Product p) {
+        Set<String> terms = new HashSet<>();
+        terms.addAll(KeywordTerms.tokenize(p.getName()));
+        terms.addAll(KeywordTerms.tokenize(p.getDescription()));
+        terms.addAll(KeywordTerms.tokenize(p.getCategory()));
+        terms.addAll(KeywordTerms.tokenize(p.getBrand()));
+        return terms;
+    }
+}
@@ -0,0 +1,98 @@
+package ru.ylab.tasks.task5.repository;
+
+import java.math.BigDecimal;
+import java.util.function.Supplier;
+
+/**
+ * Кешированные минимальная и максимальная цены каталога.
+ * Границы загружаются одним запросом при первом обращении и дальше поддерживаются
+ * инкрементально: добавление цены расширяет диапазон без обращения к базе данных,
+ * а удаление цены, совпадающей с одной из границ, сбрасывает кеш до следующего обращения.
+ * Счетчик версий не дает сохранить результат загрузки, начатой до параллельного изменения.
+ */
+public class PriceBoundsCache {
+
+    /**
+     * Границы цен каталога. Для пустого каталога обе границы равны null.
+     */
+    public record PriceBounds(BigDecimal min, BigDecimal max) {
+
+        public static final PriceBounds EMPTY = new PriceBounds(null, null);
+
+        PriceBounds include(BigDecimal price) {
+            if (min == null) return new PriceBounds(price, price);
+            return new PriceBounds(min.min(price), max.max(price));
+        }
+
+        boolean isBound(BigDecimal price) {
+            return min == null || price.compareTo(min) == 0 || price.compareTo(max) == 0;
+        }
+    }
+
+    private final Supplier<PriceBounds> loader;
+    private final Object lock = new Object();
+
+    private volatile PriceBounds bounds;
+    private long version;
+
+    /**
+     * @param loader загрузка текущих границ из хранилища
+     */
+    public PriceBoundsCache(Supplier<PriceBounds> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Возвращает текущие границы цен, загружая их при необходимости.
+     * @return границы цен каталога
+     */
+    public PriceBounds get() {
+        PriceBounds current = bounds;
+        if (current != null) return current;
+
+        long loadVersion;
+        synchronized (lock) {
+            loadVersion = version;
+        }
+        PriceBounds loaded = loader.get();
+        synchronized (lock) {
+            if (version == loadVersion && bounds == null) {
+                bounds = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Учитывает цену добавленного товара.
+     * @param price цена
+     */
+    public void onAdded(BigDecimal price) {
+        synchronized (lock) {
+            version++;
+            if (bounds != null) bounds = bounds.include(price);
+        }
+    }
+
+    /**
+     * Учитывает цену удаленного товара.
+     * Если цена была границей, точное значение новой границы неизвестно и кеш сбрасывается.
+     * @param price цена
+     */
+    public void onRemoved(BigDecimal price) {
+        synchronized (lock) {
+            version++;
+            if (bounds != null && bounds.isBound(price)) bounds = null;
+        }
+    }
+
+    /**
+     * Сбрасывает кеш, например после изменения цены, старое значение которой неизвестно.
+     */
+    public void invalidate() {
+        synchronized (lock) {
+            version++;
+            bounds = null;
+        }
+    }
+}
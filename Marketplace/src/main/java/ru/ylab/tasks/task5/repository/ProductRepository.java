@@ -1,9 +1,15 @@
 package ru.ylab.tasks.task5.repository;
 
 import ru.ylab.tasks.task5.model.Product;
+import ru.ylab.tasks.task5.util.BulkFormat;
+import ru.ylab.tasks.task5.util.PageCursor;
+import ru.ylab.tasks.task5.util.PageRequest;
+import ru.ylab.tasks.task5.util.SearchFilter;
 
+import java.io.Reader;
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Репозиторий для управления товарами.
@@ -16,12 +22,40 @@ public interface ProductRepository {
      */
     void save(Product product);
 
+    /**
+     * Сохраняет набор товаров: новые добавляются, существующие обновляются.
+     * Реализация по умолчанию сохраняет товары по одному через {@link #save(Product)}.
+     * @param products товары для сохранения
+     */
+    default void saveAll(Collection<Product> products) {
+        products.forEach(this::save);
+    }
+
+    /**
+     * Загружает товары из потока CSV/TSV средствами хранилища для массовой загрузки.
+     * Товары с id, которые уже есть в хранилище, обновляются, остальные добавляются.
+     * @param input  поток данных с заголовком
+     * @param format формат данных
+     * @return количество добавленных и обновленных товаров
+     * @throws ru.ylab.tasks.task5.exception.InvalidImportDataException если данные некорректны
+     */
+    long importAll(Reader input, BulkFormat format);
+
     /**
      * Возвращает все товары.
      * @return коллекция всех товаров
      */
     Collection<Product> findAll();
 
+    /**
+     * Последовательно передает все товары обработчику, не накапливая их в памяти.
+     * Реализация по умолчанию обходит результат {@link #findAll()}.
+     * @param consumer обработчик, вызываемый для каждого товара
+     */
+    default void streamAll(Consumer<? super Product> consumer) {
+        findAll().forEach(consumer);
+    }
+
     /**
      * Находит товар по его идентификатору.
      * @param id идентификатор товара
@@ -57,6 +91,16 @@ public interface ProductRepository {
      */
     Collection<Product> findByPriceRange(BigDecimal min, BigDecimal max);
 
+    /**
+     * Находит товары по ключевому слову в названии, описании, категории или бренде.
+     * Реализация по умолчанию выполняет {@link #search(SearchFilter)} с одним ключевым словом.
+     * @param keyword ключевое слово
+     * @return коллекция подходящих товаров
+     */
+    default Collection<Product> findByKeyword(String keyword) {
+        return search(new SearchFilter(keyword, null, null, null, null));
+    }
+
     /**
      * Возвращает минимальную цену среди всех товаров.
      * @return минимальная цена, если товары есть
@@ -68,4 +112,34 @@ public interface ProductRepository {
      * @return максимальная цена, если товары есть
      */
     Optional<BigDecimal> getMaxPrice();
+
+    /**
+     * Находит товары, удовлетворяющие всем критериям фильтра.
+     * Реализация по умолчанию фильтрует {@link #findAll()} в памяти и служит запасным
+     * вариантом для репозиториев, которые не умеют выполнять фильтрацию на стороне хранилища.
+     * @param filter критерии поиска
+     * @return коллекция подходящих товаров
+     */
+    default Collection<Product> search(SearchFilter filter) {
+        return findAll().stream()
+                .filter(filter::matches)
+                .toList();
+    }
+
+    /**
+     * Возвращает страницу товаров, удовлетворяющих фильтру, в порядке сортировки запроса.
+     * Страница начинается сразу после курсора и содержит не более {@code page.limit()} товаров.
+     * Реализация по умолчанию сортирует результат {@link #search(SearchFilter)} в памяти.
+     * @param filter критерии поиска
+     * @param page   параметры страницы
+     * @return товары страницы
+     */
+    default List<Product> searchPage(SearchFilter filter, PageRequest page) {
+        PageCursor after = page.after();
+        return search(filter).stream()
+                .filter(p -> after == null || after.isBefore(p, page.sort()))
+                .sorted(page.sort().comparator())
+                .limit(page.limit())
+                .toList();
+    }
 }
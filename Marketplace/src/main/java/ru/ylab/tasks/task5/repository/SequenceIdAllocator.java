@@ -0,0 +1,131 @@
+package ru.ylab.tasks.task5.repository;
+
+import ru.ylab.tasks.task5.repository.jdbc.QueryExecutor;
+import ru.ylab.tasks.task5.repository.jdbc.RowMapper;
+import ru.ylab.tasks.task5.repository.jdbc.StatementBinder;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Выдача идентификаторов блоками из последовательности базы данных (схема pooled-lo).
+ * Последовательность увеличивается на размер блока, поэтому каждое значение nextval
+ * резервирует за процессом диапазон [value, value + blockSize). Идентификаторы внутри блока
+ * выдаются без обращения к базе данных, а для пакета из n товаров все нужные блоки
+ * запрашиваются одним запросом. Размер блока должен совпадать с шагом последовательности,
+ * иначе блоки разных процессов пересекаются, поэтому он может читаться из самой последовательности
+ * при первом резервировании.
+ */
+public class SequenceIdAllocator {
+
+    private static final RowMapper<Long> BLOCK_START = RowMapper.of((rs, c) -> rs.getLong(c[0]), "nextval");
+    private static final RowMapper<Long> INCREMENT = RowMapper.of((rs, c) -> rs.getLong(c[0]), "increment_by");
+
+    private final QueryExecutor executor;
+    private final String nextValuesSql;
+    private final String incrementSql;
+    private int blockSize;
+
+    private long next;
+    private long limit;
+
+    /**
+     * @param executor      исполнитель запросов
+     * @param nextValuesSql запрос, возвращающий заданное параметром количество значений nextval
+     * @param blockSize     шаг последовательности
+     */
+    public SequenceIdAllocator(QueryExecutor executor, String nextValuesSql, int blockSize) {
+        if (blockSize <= 0) throw new IllegalArgumentException("blockSize must be positive");
+        this.executor = executor;
+        this.nextValuesSql = nextValuesSql;
+        this.incrementSql = null;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Создает выделение id, размер блока которого равен шагу последовательности.
+     * Шаг читается при первом резервировании, то есть после применения миграций.
+     * @param executor      исполнитель запросов
+     * @param nextValuesSql запрос, возвращающий заданное параметром количество значений nextval
+     * @param incrementSql  запрос, возвращающий шаг последовательности в столбце increment_by
+     */
+    public SequenceIdAllocator(QueryExecutor executor, String nextValuesSql, String incrementSql) {
+        this.executor = executor;
+        this.nextValuesSql = nextValuesSql;
+        this.incrementSql = incrementSql;
+    }
+
+    /**
+     * Возвращает следующий идентификатор, запрашивая новый блок только при исчерпании текущего.
+     * @param conn соединение для запроса к последовательности
+     * @return идентификатор
+     */
+    public synchronized long next(Connection conn) throws SQLException {
+        if (next == limit) reserve(conn);
+        return next++;
+    }
+
+    /**
+     * Возвращает count идентификаторов подряд из текущего и новых блоков.
+     * Недостающие блоки запрашиваются одним запросом.
+     * @param conn  соединение для запроса к последовательности
+     * @param count количество идентификаторов
+     * @return массив идентификаторов
+     */
+    public synchronized long[] next(Connection conn, int count) throws SQLException {
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count && next < limit) ids[filled++] = next++;
+        if (filled == count) return ids;
+
+        int blockSize = blockSize(conn);
+        int missing = count - filled;
+        long[] blocks = fetch(conn, (missing + blockSize - 1) / blockSize);
+        for (long start : blocks) {
+            next = start;
+            limit = start + blockSize;
+            while (filled < count && next < limit) ids[filled++] = next++;
+        }
+        return ids;
+    }
+
+    /**
+     * Отбрасывает остаток текущего блока, например после загрузки товаров с явными id.
+     */
+    public synchronized void reset() {
+        next = limit;
+    }
+
+    /**
+     * Возвращает размер блока, при необходимости читая шаг последовательности.
+     * @param conn соединение для запроса шага
+     * @return размер блока
+     * @throws SQLException если последовательность не найдена или ее шаг не положительный
+     */
+    public synchronized int blockSize(Connection conn) throws SQLException {
+        if (blockSize > 0) return blockSize;
+        List<Long> increments = executor.query(conn, incrementSql, StatementBinder.NONE, INCREMENT, 1);
+        if (increments.isEmpty() || increments.get(0) <= 0 || increments.get(0) > Integer.MAX_VALUE) {
+            throw new SQLException("Не удалось определить шаг последовательности: " + increments);
+        }
+        blockSize = increments.get(0).intValue();
+        return blockSize;
+    }
+
+    private void reserve(Connection conn) throws SQLException {
+        int blockSize = blockSize(conn);
+        long start = fetch(conn, 1)[0];
+        next = start;
+        limit = start + blockSize;
+    }
+
+    private long[] fetch(Connection conn, int blocks) throws SQLException {
+        List<Long> values = executor.query(conn, nextValuesSql, ps -> ps.setInt(1, blocks), BLOCK_START, blocks);
+        if (values.size() < blocks) throw new SQLException("Последовательность вернула меньше значений, чем запрошено");
+
+        long[] starts = new long[blocks];
+        for (int i = 0; i < blocks; i++) starts[i] = values.get(i);
+        return starts;
+    }
+}
@@ -0,0 +1,19 @@
+package ru.ylab.tasks.task5.repository.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Установка параметров запроса для одного элемента пакета.
+ * @param <T> тип элемента
+ */
+@FunctionalInterface
+public interface BatchBinder<T> {
+
+    /**
+     * @param ps    подготовленный запрос
+     * @param item  элемент пакета
+     * @param index позиция элемента в исходном списке
+     */
+    void bind(PreparedStatement ps, T item, int index) throws SQLException;
+}
@@ -0,0 +1,14 @@
+package ru.ylab.tasks.task5.repository.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Действие над соединением, полученным от {@link QueryExecutor}.
+ * @param <R> тип результата
+ */
+@FunctionalInterface
+public interface ConnectionCallback<R> {
+
+    R doInConnection(Connection conn) throws SQLException;
+}
@@ -0,0 +1,369 @@
+package ru.ylab.tasks.task5.repository.jdbc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Выполнение JDBC-запросов репозиториев.
+ * Берет на себя получение соединения, подготовку запроса, установку параметров, обход ResultSet
+ * и управление транзакцией, чтобы репозитории описывали только текст запроса, параметры
+ * и преобразование строки ({@link RowMapper}).
+ * Для каждого текста запроса запоминается количество строк последнего выполнения,
+ * и список результата следующего выполнения сразу создается нужной емкости.
+ * Каждое выполнение запроса сообщается {@link QueryObserver} с длительностью по System.nanoTime
+ * и количеством строк; время получения соединения из пула в длительность не входит.
+ * Методы пробрасывают SQLException: перевод в исключение приложения с понятным сообщением
+ * остается за репозиторием.
+ */
+public class QueryExecutor {
+
+    /**
+     * Количество строк, которое драйвер получает от сервера за одно обращение по умолчанию.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Верхняя граница запоминаемой емкости, чтобы один большой результат
+     * не заставлял все следующие выполнения выделять большой массив.
+     */
+    private static final int MAX_CAPACITY_HINT = 10_000;
+
+    private final DataSource dataSource;
+    private final int fetchSize;
+    private final QueryObserver observer;
+    private final Map<String, Integer> capacityHints = new ConcurrentHashMap<>();
+
+    public QueryExecutor(DataSource dataSource) {
+        this(dataSource, DEFAULT_FETCH_SIZE, QueryObserver.NONE);
+    }
+
+    /**
+     * @param dataSource источник соединений
+     * @param fetchSize  количество строк, получаемых драйвером за одно обращение к серверу
+     * @param observer   получатель длительности и количества строк каждого запроса
+     */
+    public QueryExecutor(DataSource dataSource, int fetchSize, QueryObserver observer) {
+        if (fetchSize <= 0) throw new IllegalArgumentException("fetchSize must be positive");
+        this.dataSource = dataSource;
+        this.fetchSize = fetchSize;
+        this.observer = observer;
+    }
+
+    /**
+     * Выполняет запрос на новом соединении и возвращает все строки результата.
+     * @param sql    текст запроса
+     * @param binder установка параметров
+     * @param mapper преобразование строки
+     * @return список объектов в порядке строк результата
+     */
+    public <T> List<T> query(String sql, StatementBinder binder, RowMapper<T> mapper) throws SQLException {
+        return query(sql, binder, mapper, 0);
+    }
+
+    /**
+     * Выполняет запрос на новом соединении и возвращает все строки результата.
+     * @param sql          текст запроса
+     * @param binder       установка параметров
+     * @param mapper       преобразование строки
+     * @param expectedRows ожидаемое количество строк, например размер страницы; 0 - неизвестно
+     * @return список объектов в порядке строк результата
+     */
+    public <T> List<T> query(String sql, StatementBinder binder, RowMapper<T> mapper, int expectedRows)
+            throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            return query(conn, sql, binder, mapper, expectedRows);
+        }
+    }
+
+    /**
+     * Выполняет запрос на переданном соединении и возвращает все строки результата.
+     * @param conn         соединение, например внутри {@link #inTransaction}
+     * @param sql          текст запроса
+     * @param binder       установка параметров
+     * @param mapper       преобразование строки
+     * @param expectedRows ожидаемое количество строк; 0 - неизвестно
+     * @return список объектов в порядке строк результата
+     */
+    public <T> List<T> query(Connection conn, String sql, StatementBinder binder, RowMapper<T> mapper,
+                             int expectedRows) throws SQLException {
+        return observe(sql, List::size, () -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setFetchSize(fetchSize);
+                binder.bind(ps);
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<T> rows = new ArrayList<>(capacity(sql, expectedRows));
+                    if (rs.next()) {
+                        int[] columns = mapper.columns(sql, rs);
+                        do {
+                            rows.add(mapper.map(rs, columns));
+                        } while (rs.next());
+                    }
+                    if (expectedRows <= 0) capacityHints.put(sql, Math.min(rows.size(), MAX_CAPACITY_HINT));
+                    return rows;
+                }
+            }
+        });
+    }
+
+    /**
+     * Выполняет запрос и возвращает первую строку результата.
+     * @param sql    текст запроса
+     * @param binder установка параметров
+     * @param mapper преобразование строки
+     * @return Optional с объектом первой строки, или empty если строк нет
+     */
+    public <T> Optional<T> queryOne(String sql, StatementBinder binder, RowMapper<T> mapper) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            return queryOne(conn, sql, binder, mapper);
+        }
+    }
+
+    /**
+     * Выполняет запрос на переданном соединении и возвращает первую строку результата.
+     */
+    public <T> Optional<T> queryOne(Connection conn, String sql, StatementBinder binder, RowMapper<T> mapper)
+            throws SQLException {
+        return observe(sql, row -> row.isPresent() ? 1 : 0, () -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                binder.bind(ps);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return Optional.empty();
+                    return Optional.of(mapper.map(rs, mapper.columns(sql, rs)));
+                }
+            }
+        });
+    }
+
+    /**
+     * Проверяет, вернул ли запрос хотя бы одну строку.
+     * @param sql    текст запроса
+     * @param binder установка параметров
+     * @return true, если результат не пуст
+     */
+    public boolean exists(String sql, StatementBinder binder) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            return observe(sql, found -> found ? 1 : 0, () -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    binder.bind(ps);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        return rs.next();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Выполняет изменяющий запрос на новом соединении.
+     * @param sql    текст запроса
+     * @param binder установка параметров
+     * @return количество измененных строк
+     */
+    public int update(String sql, StatementBinder binder) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            return update(conn, sql, binder);
+        }
+    }
+
+    /**
+     * Выполняет изменяющий запрос на переданном соединении.
+     * @return количество измененных строк
+     */
+    public int update(Connection conn, String sql, StatementBinder binder) throws SQLException {
+        return observe(sql, Integer::intValue, () -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                binder.bind(ps);
+                return ps.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Выполняет запрос, результат которого не нужен, например DDL или SELECT setval(...).
+     * @param conn соединение
+     * @param sql  текст запроса без параметров
+     */
+    public void execute(Connection conn, String sql) throws SQLException {
+        observe(sql, ignored -> 0, () -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                return ps.execute();
+            }
+        });
+    }
+
+    /**
+     * Выполняет один и тот же запрос для всех элементов пакетами по batchSize строк.
+     * Количеством строк считается размер пакета: при reWriteBatchedInserts драйвер
+     * не сообщает количество измененных строк.
+     * @param conn      соединение, обычно внутри {@link #inTransaction}
+     * @param sql       текст запроса
+     * @param items     элементы пакета
+     * @param binder    установка параметров для элемента
+     * @param batchSize максимальное количество строк в одном executeBatch
+     */
+    public <T> void batch(Connection conn, String sql, List<T> items, BatchBinder<? super T> binder, int batchSize)
+            throws SQLException {
+        if (items.isEmpty()) return;
+        observe(sql, ignored -> items.size(), () -> {
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int from = 0; from < items.size(); from += batchSize) {
+                    int to = Math.min(from + batchSize, items.size());
+                    for (int i = from; i < to; i++) {
+                        binder.bind(ps, items.get(i), i);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Последовательно читает результат серверным курсором и передает объекты обработчику.
+     * Драйвер PostgreSQL использует курсор только внутри транзакции и с заданным fetch size,
+     * поэтому одновременно в памяти находится не больше fetchSize строк независимо от размера результата.
+     * Длительность запроса не включает время работы обработчика: при выгрузке он пишет ответ клиенту,
+     * и время сети не должно попадать в метрики и журнал медленных запросов.
+     * Транзакция курсора фиксируется после чтения всех строк, а при ошибке запроса или обработчика
+     * (например, клиент разорвал соединение во время выгрузки) откатывается, как в {@link #inTransaction}.
+     * @param sql      текст запроса
+     * @param binder   установка параметров
+     * @param mapper   преобразование строки
+     * @param consumer обработчик, вызываемый для каждой строки
+     */
+    public <T> void stream(String sql, StatementBinder binder, RowMapper<T> mapper, Consumer<? super T> consumer)
+            throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            long start = System.nanoTime();
+            long consumerNanos = 0;
+            int rows = 0;
+            boolean success = false;
+            try {
+                try (PreparedStatement ps = conn.prepareStatement(sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    ps.setFetchSize(fetchSize);
+                    binder.bind(ps);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) {
+                            int[] columns = mapper.columns(sql, rs);
+                            do {
+                                T row = mapper.map(rs, columns);
+                                long consumerStart = System.nanoTime();
+                                consumer.accept(row);
+                                consumerNanos += System.nanoTime() - consumerStart;
+                                rows++;
+                            } while (rs.next());
+                        }
+                    }
+                    success = true;
+                } finally {
+                    observer.onQuery(sql, System.nanoTime() - start - consumerNanos, success ? rows : 0, success);
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                rollback(conn, autoCommit, e);
+                throw e;
+            }
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Выполняет действие на одном соединении без явной транзакции.
+     * Используется, когда несколько запросов должны идти через одно соединение пула.
+     * @param callback действие над соединением
+     * @return результат действия
+     */
+    public <R> R withConnection(ConnectionCallback<R> callback) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            return callback.doInConnection(conn);
+        }
+    }
+
+    /**
+     * Выполняет действие в одной транзакции: фиксирует ее при успехе и откатывает
+     * при любом исключении, после чего восстанавливает режим autocommit соединения.
+     * @param callback действие над соединением
+     * @return результат действия
+     */
+    public <R> R inTransaction(ConnectionCallback<R> callback) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            R result;
+            try {
+                result = callback.doInConnection(conn);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                rollback(conn, autoCommit, e);
+                throw e;
+            }
+            conn.setAutoCommit(autoCommit);
+            return result;
+        }
+    }
+
+    /**
+     * Откатывает транзакцию после ошибки и восстанавливает режим autocommit.
+     * Ошибка отката или восстановления добавляется к исходной как подавленная, чтобы не скрыть ее:
+     * например, при выгрузке исходной ошибкой будет разрыв соединения с клиентом.
+     * @param conn       соединение с открытой транзакцией
+     * @param autoCommit режим autocommit до начала транзакции
+     * @param cause      исходная ошибка
+     */
+    private static void rollback(Connection conn, boolean autoCommit, Exception cause) {
+        try {
+            conn.rollback();
+            conn.setAutoCommit(autoCommit);
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Выполняет запрос и сообщает наблюдателю его длительность и количество строк,
+     * в том числе при ошибке.
+     * @param sql    текст запроса
+     * @param rows   количество строк по результату
+     * @param action выполнение запроса
+     * @return результат запроса
+     */
+    private <R> R observe(String sql, ToIntFunction<? super R> rows, SqlAction<R> action) throws SQLException {
+        long start = System.nanoTime();
+        R result = null;
+        boolean success = false;
+        try {
+            result = action.run();
+            success = true;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            observer.onQuery(sql, elapsed, success ? rows.applyAsInt(result) : 0, success);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlAction<R> {
+        R run() throws SQLException;
+    }
+
+    private int capacity(String sql, int expectedRows) {
+        if (expectedRows > 0) return expectedRows;
+        return capacityHints.getOrDefault(sql, DEFAULT_CAPACITY);
+    }
+}
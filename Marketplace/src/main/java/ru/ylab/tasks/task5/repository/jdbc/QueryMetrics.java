@@ -0,0 +1,80 @@
+package ru.ylab.tasks.task5.repository.jdbc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Публикует длительность и количество строк каждого запроса в Micrometer
+ * и пишет в журнал запросы дольше заданного порога.
+ * Метрики marketplace.jdbc.query (таймер) и marketplace.jdbc.query.rows (распределение)
+ * помечаются тегом statement с именем запроса из {@link StatementNames} и тегом outcome
+ * (success или error) и публикуют процентили p50/p95/p99 и гистограмму.
+ * Метры создаются один раз для каждой пары имени и результата запроса.
+ */
+public class QueryMetrics implements QueryObserver {
+
+    public static final String QUERY_TIMER = "marketplace.jdbc.query";
+    public static final String QUERY_ROWS = "marketplace.jdbc.query.rows";
+
+    private static final Logger log = LoggerFactory.getLogger(QueryMetrics.class);
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry registry;
+    private final StatementNames statementNames;
+    private final long slowQueryNanos;
+    private final Map<String, Meters> success = new ConcurrentHashMap<>();
+    private final Map<String, Meters> error = new ConcurrentHashMap<>();
+
+    /**
+     * @param registry           реестр метрик
+     * @param statementNames     имена запросов
+     * @param slowQueryThreshold порог медленного запроса; нулевой или отрицательный отключает журнал
+     */
+    public QueryMetrics(MeterRegistry registry, StatementNames statementNames, Duration slowQueryThreshold) {
+        this.registry = registry;
+        this.statementNames = statementNames;
+        this.slowQueryNanos = slowQueryThreshold.toNanos();
+    }
+
+    @Override
+    public void onQuery(String sql, long elapsedNanos, int rows, boolean succeeded) {
+        String name = statementNames.nameOf(sql);
+        Map<String, Meters> byName = succeeded ? success : error;
+        Meters meters = byName.computeIfAbsent(name, n -> register(n, succeeded ? "success" : "error"));
+        meters.timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        meters.rows.record(rows);
+
+        if (slowQueryNanos > 0 && elapsedNanos >= slowQueryNanos) {
+            log.warn("Медленный запрос {}: {} мс, строк: {}, успешно: {}, sql: {}",
+                    name, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), rows, succeeded, sql);
+        }
+    }
+
+    private Meters register(String name, String outcome) {
+        Timer timer = Timer.builder(QUERY_TIMER)
+                .description("JDBC query execution time")
+                .tag("statement", name)
+                .tag("outcome", outcome)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry);
+        DistributionSummary rows = DistributionSummary.builder(QUERY_ROWS)
+                .description("Rows read or written by a JDBC query")
+                .tag("statement", name)
+                .tag("outcome", outcome)
+                .publishPercentiles(PERCENTILES)
+                .register(registry);
+        return new Meters(timer, rows);
+    }
+
+    private record Meters(Timer timer, DistributionSummary rows) {}
+}
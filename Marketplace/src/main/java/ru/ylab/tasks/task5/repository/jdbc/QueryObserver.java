@@ -0,0 +1,22 @@
+package ru.ylab.tasks.task5.repository.jdbc;
+
+/**
+ * Получатель сведений о каждом запросе, выполненном {@link QueryExecutor}.
+ * Вызывается в потоке запроса после его завершения, поэтому реализация должна быть быстрой.
+ */
+@FunctionalInterface
+public interface QueryObserver {
+
+    /**
+     * Наблюдатель, который ничего не делает.
+     */
+    QueryObserver NONE = (sql, elapsedNanos, rows, success) -> {};
+
+    /**
+     * @param sql          текст запроса
+     * @param elapsedNanos длительность выполнения в наносекундах
+     * @param rows         количество прочитанных или измененных строк; 0 при ошибке
+     * @param success      false, если запрос завершился исключением
+     */
+    void onQuery(String sql, long elapsedNanos, int rows, boolean success);
+}
@@ -0,0 +1,70 @@
+package ru.ylab.tasks.task5.repository.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Преобразование строки ResultSet в объект по номерам столбцов.
+ * Номера столбцов определяются по именам один раз для каждого текста запроса и затем
+ * переиспользуются, поэтому при чтении строк не выполняется поиск столбцов по имени.
+ * @param <T> тип объекта
+ */
+public final class RowMapper<T> {
+
+    /**
+     * Чтение объекта из текущей строки.
+     * @param <T> тип объекта
+     */
+    @FunctionalInterface
+    public interface Extractor<T> {
+
+        /**
+         * @param rs      результат запроса, установленный на строку
+         * @param columns номера столбцов в порядке имен, переданных в {@link RowMapper#of}
+         * @return объект
+         */
+        T extract(ResultSet rs, int[] columns) throws SQLException;
+    }
+
+    private final String[] columnNames;
+    private final Extractor<T> extractor;
+    private final Map<String, int[]> columnsBySql = new ConcurrentHashMap<>();
+
+    private RowMapper(Extractor<T> extractor, String[] columnNames) {
+        this.extractor = extractor;
+        this.columnNames = columnNames;
+    }
+
+    /**
+     * @param extractor   чтение объекта по номерам столбцов
+     * @param columnNames имена столбцов, номера которых передаются в extractor
+     * @return преобразователь строк
+     */
+    public static <T> RowMapper<T> of(Extractor<T> extractor, String... columnNames) {
+        return new RowMapper<>(extractor, columnNames.clone());
+    }
+
+    /**
+     * Возвращает номера столбцов для запроса, определяя их при первом выполнении этого запроса.
+     * @param sql текст запроса
+     * @param rs  результат запроса
+     * @return номера столбцов
+     */
+    int[] columns(String sql, ResultSet rs) throws SQLException {
+        int[] columns = columnsBySql.get(sql);
+        if (columns != null) return columns;
+
+        columns = new int[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            columns[i] = rs.findColumn(columnNames[i]);
+        }
+        columnsBySql.put(sql, columns);
+        return columns;
+    }
+
+    T map(ResultSet rs, int[] columns) throws SQLException {
+        return extractor.extract(rs, columns);
+    }
+}
@@ -0,0 +1,41 @@
+package ru.ylab.tasks.task5.repository.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Установка параметров подготовленного запроса.
+ */
+@FunctionalInterface
+public interface StatementBinder {
+
+    /**
+     * Запрос без параметров.
+     */
+    StatementBinder NONE = ps -> {};
+
+    void bind(PreparedStatement ps) throws SQLException;
+
+    /**
+     * Устанавливает позиционные параметры в порядке перечисления через setObject.
+     * @param params значения параметров
+     * @return установщик параметров
+     */
+    static StatementBinder of(Object... params) {
+        return of(List.of(params));
+    }
+
+    /**
+     * Устанавливает позиционные параметры в порядке списка через setObject.
+     * @param params значения параметров, null не допускается
+     * @return установщик параметров
+     */
+    static StatementBinder of(List<?> params) {
+        return ps -> {
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package ru.ylab.tasks.task5.repository.jdbc;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Сопоставление текста запроса с именем константы, в которой он объявлен.
+ * Используется как имя запроса в метриках и журнале медленных запросов.
+ * Запросы, собираемые динамически из нескольких констант (поиск по фильтру),
+ * получают имя константы, с которой они начинаются. Результат сопоставления
+ * запоминается для каждого текста запроса.
+ */
+public class StatementNames {
+
+    /**
+     * Имя для запроса, не найденного среди констант.
+     */
+    public static final String UNKNOWN = "UNKNOWN";
+
+    private final Map<String, String> namesBySql;
+    private final Map<String, String> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * Собирает имена всех строковых констант public static final указанного класса.
+     * @param constants класс с константами запросов
+     */
+    public StatementNames(Class<?> constants) {
+        Map<String, String> names = new HashMap<>();
+        for (Field field : constants.getFields()) {
+            int modifiers = field.getModifiers();
+            if (field.getType() != String.class || !Modifier.isStatic(modifiers) || !Modifier.isFinal(modifiers)) {
+                continue;
+            }
+            try {
+                names.putIfAbsent((String) field.get(null), field.getName());
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Константа недоступна: " + field.getName(), e);
+            }
+        }
+        this.namesBySql = Map.copyOf(names);
+    }
+
+    /**
+     * Возвращает имя запроса.
+     * @param sql текст запроса
+     * @return имя константы с этим текстом или с самым длинным совпадающим началом текста,
+     *         либо {@link #UNKNOWN}
+     */
+    public String nameOf(String sql) {
+        String name = resolved.get(sql);
+        if (name != null) return name;
+
+        name = namesBySql.get(sql);
+        if (name == null) name = longestPrefixName(sql);
+        resolved.put(sql, name);
+        return name;
+    }
+
+    private String longestPrefixName(String sql) {
+        String best = UNKNOWN;
+        int bestLength = 0;
+        for (Map.Entry<String, String> entry : namesBySql.entrySet()) {
+            String candidate = entry.getKey();
+            if (candidate.length() > bestLength && sql.startsWith(candidate)) {
+                best = entry.getValue();
+                bestLength = candidate.length();
+            }
+        }
+        return best;
+    }
+}
@@ -1,12 +1,19 @@
 package ru.ylab.tasks.task5.restcontroller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletRequest;
 import org.mapstruct.factory.Mappers;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.ylab.tasks.task5.audit.annotation.Auditable;
 import ru.ylab.tasks.task5.constant.ResponseMessages;
 import ru.ylab.tasks.task5.dto.mapper.ProductMapper;
@@ -20,16 +27,25 @@ import ru.ylab.tasks.task5.dto.response.product.ProductListResponse;
 import ru.ylab.tasks.task5.dto.response.product.ProductResponse;
 import ru.ylab.tasks.task5.dto.response.product.ProductSearchResponse;
 import ru.ylab.tasks.task5.dto.response.product.ProductUpdatedResponse;
+import ru.ylab.tasks.task5.dto.response.product.ProductsCreatedResponse;
+import ru.ylab.tasks.task5.dto.response.product.ProductsImportedResponse;
 import ru.ylab.tasks.task5.exception.AccessDeniedException;
+import ru.ylab.tasks.task5.exception.InvalidImportDataException;
 import ru.ylab.tasks.task5.model.Product;
 import ru.ylab.tasks.task5.security.AuthService;
 import ru.ylab.tasks.task5.service.product.ProductService;
+import ru.ylab.tasks.task5.util.BulkFormat;
+import ru.ylab.tasks.task5.util.PageRequest;
 import ru.ylab.tasks.task5.util.ParseUtils;
+import ru.ylab.tasks.task5.util.ProductPage;
 import ru.ylab.tasks.task5.util.ResponseHelper;
 import ru.ylab.tasks.task5.util.SearchFilter;
 import ru.ylab.tasks.task5.util.validation.ProductValidator;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -37,6 +53,10 @@ import static ru.ylab.tasks.task5.constant.ResponseMessages.VALIDATION_FAILED;
 import static ru.ylab.tasks.task5.constant.ResponseMessages.PRODUCT_CREATE_FAILED;
 import static ru.ylab.tasks.task5.constant.ResponseMessages.INVALID_DATA;
 import static ru.ylab.tasks.task5.constant.ResponseMessages.PRODUCT_CREATE_SUCCESS;
+import static ru.ylab.tasks.task5.constant.ResponseMessages.PRODUCTS_BULK_CREATE_SUCCESS;
+import static ru.ylab.tasks.task5.constant.ResponseMessages.PRODUCTS_BULK_EMPTY;
+import static ru.ylab.tasks.task5.constant.ResponseMessages.PRODUCTS_IMPORT_FAILED;
+import static ru.ylab.tasks.task5.constant.ResponseMessages.PRODUCTS_IMPORT_SUCCESS;
 import static ru.ylab.tasks.task5.constant.ResponseMessages.PRODUCT_ID_MISSING;
 import static ru.ylab.tasks.task5.constant.ResponseMessages.PRODUCT_DELETE_FAILED;
 import static ru.ylab.tasks.task5.constant.ResponseMessages.PRODUCT_DELETED_SUCCESS;
@@ -59,16 +79,19 @@ public class ProductRestController {
     private final ProductService productService;
     private final ProductValidator productValidator;
     private final ResponseHelper responseHelper;
+    private final ObjectMapper objectMapper;
     private final ProductMapper productMapper = Mappers.getMapper(ProductMapper.class);
 
     public ProductRestController(AuthService authService,
                                  ProductService productService,
                                  ProductValidator productValidator,
-                                 ResponseHelper responseHelper) {
+                                 ResponseHelper responseHelper,
+                                 ObjectMapper objectMapper) {
         this.authService = authService;
         this.productService = productService;
         this.productValidator = productValidator;
         this.responseHelper = responseHelper;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -108,6 +131,86 @@ public class ProductRestController {
         return responseHelper.created(new ProductCreatedResponse(product.getId(), PRODUCT_CREATE_SUCCESS));
     }
 
+    /**
+     * Создает набор продуктов одной пакетной операцией.
+     * Все продукты валидируются до сохранения; при ошибке в любом из них ничего не сохраняется,
+     * а в ответе указываются позиции продуктов с ошибками.
+     * Требует аутентификации и прав администратора.
+     * @param dtos список DTO с данными для создания продуктов
+     * @return ResponseEntity с идентификаторами созданных продуктов
+     */
+    @Auditable(action = "product_bulk_create")
+    @PostMapping("/create/bulk")
+    public ResponseEntity<?> createProducts(@RequestBody List<ProductCreateRequest> dtos) {
+
+        ResponseEntity<?> authError = checkAuth();
+        if (authError != null) return authError;
+
+        ResponseEntity<?> roleError = checkRole();
+        if (roleError != null) return roleError;
+
+        if (dtos == null || dtos.isEmpty()) {
+            return responseHelper.badRequest(VALIDATION_FAILED, PRODUCTS_BULK_EMPTY);
+        }
+
+        List<String> dtoErrors = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            List<String> errors = productValidator.validateCreate(dtos.get(i));
+            if (!errors.isEmpty()) dtoErrors.add("[" + i + "] " + String.join(", ", errors));
+        }
+        if (!dtoErrors.isEmpty()) {
+            return responseHelper.badRequest(VALIDATION_FAILED, String.join("; ", dtoErrors));
+        }
+
+        List<Product> products;
+        try {
+            products = dtos.stream().map(productMapper::toEntity).toList();
+        } catch (Exception e) {
+            return responseHelper.badRequest(INVALID_DATA, e.getMessage());
+        }
+
+        try {
+            productService.createAll(products);
+        } catch (Exception e) {
+            return responseHelper.serverError(PRODUCT_CREATE_FAILED, e.getMessage());
+        }
+
+        List<Long> ids = products.stream().map(Product::getId).toList();
+        return responseHelper.created(new ProductsCreatedResponse(ids, PRODUCTS_BULK_CREATE_SUCCESS));
+    }
+
+    /**
+     * Загружает каталог продуктов из тела запроса в формате CSV или TSV.
+     * Тело передается в базу данных потоком через COPY, не накапливаясь в памяти приложения.
+     * Продукты с существующими id обновляются, остальные добавляются.
+     * Некорректные данные (формат, тип значения, повторяющийся id) отклоняются с кодом 400.
+     * Требует аутентификации и прав администратора.
+     * @param request запрос с телом text/csv или text/tab-separated-values
+     * @return ResponseEntity с количеством загруженных продуктов
+     */
+    @Auditable(action = "product_import")
+    @PostMapping(value = "/import", consumes = {"text/csv", "text/tab-separated-values"})
+    public ResponseEntity<?> importProducts(HttpServletRequest request) {
+
+        ResponseEntity<?> authError = checkAuth();
+        if (authError != null) return authError;
+
+        ResponseEntity<?> roleError = checkRole();
+        if (roleError != null) return roleError;
+
+        long imported;
+        try {
+            BulkFormat format = BulkFormat.fromContentType(request.getContentType());
+            imported = productService.importAll(request.getReader(), format);
+        } catch (InvalidImportDataException | IllegalArgumentException e) {
+            return responseHelper.badRequest(INVALID_DATA, e.getMessage());
+        } catch (Exception e) {
+            return responseHelper.serverError(PRODUCTS_IMPORT_FAILED, e.getMessage());
+        }
+
+        return responseHelper.ok(new ProductsImportedResponse(imported, PRODUCTS_IMPORT_SUCCESS));
+    }
+
     /**
      * Удаляет продукт по идентификатору.
      * Требует аутентификации и прав администратора.
@@ -139,39 +242,90 @@ public class ProductRestController {
     }
 
     /**
-     * Возвращает список всех продуктов в системе.
+     * Возвращает страницу продуктов в системе.
      * Требует аутентификации пользователя.
-     * @return ResponseEntity со списком продуктов
+     * @param limit  размер страницы (по умолчанию 20, не более 100)
+     * @param sort   порядок сортировки: id (по умолчанию) или price
+     * @param cursor курсор следующей страницы из предыдущего ответа
+     * @return ResponseEntity со страницей продуктов
      */
     @GetMapping(value = "/list")
-    public ResponseEntity<?> getAllProducts() {
+    public ResponseEntity<?> getAllProducts(@RequestParam(required = false) Integer limit,
+                                            @RequestParam(required = false) String sort,
+                                            @RequestParam(required = false) String cursor) {
 
         if (checkAuth() != null) {
             return responseHelper.unauthorized(USER_UNAUTHORIZED, "User must be logged in");
         }
 
-        List<Product> products;
+        PageRequest page;
         try {
-            products = productService.getAll();
+            page = PageRequest.of(limit, sort, cursor);
+        } catch (IllegalArgumentException e) {
+            return responseHelper.badRequest(INVALID_DATA, e.getMessage());
+        }
+
+        ProductPage products;
+        try {
+            products = productService.getPage(page);
         } catch (Exception e) {
             return responseHelper.serverError(PRODUCT_SEARCH_FAILED, e.getMessage());
         }
 
-        List<ProductResponse> responseList = products.stream()
+        List<ProductResponse> responseList = products.products().stream()
                 .map(productMapper::toResponse)
                 .toList();
 
-        return responseHelper.ok(new ProductListResponse(responseList));
+        return responseHelper.ok(new ProductListResponse(responseList, products.nextCursor()));
+    }
+
+    /**
+     * Выгружает весь каталог продуктов в формате NDJSON (один JSON-объект на строку).
+     * Продукты пишутся в ответ по мере чтения из базы данных, поэтому
+     * потребление памяти не зависит от размера каталога.
+     * Требует аутентификации пользователя.
+     * @return ResponseEntity с потоковым телом ответа
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportProducts() {
+
+        ResponseEntity<?> authError = checkAuth();
+        if (authError != null) return authError;
+
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = objectMapper.writerFor(ProductResponse.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n")
+                    .writeValues(out)) {
+                productService.exportAll(product -> {
+                    try {
+                        writer.write(productMapper.toResponse(product));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     /**
      * Выполняет поиск продуктов по заданным критериям.
      * Требует аутентификации пользователя.
-     * @param dto DTO с критериями поиска (ключевые слова, категория, бренд, диапазон цен)
-     * @return ResponseEntity со списком найденных продуктов
+     * @param dto    DTO с критериями поиска (ключевые слова, категория, бренд, диапазон цен)
+     * @param limit  размер страницы (по умолчанию 20, не более 100)
+     * @param sort   порядок сортировки: id (по умолчанию) или price
+     * @param cursor курсор следующей страницы из предыдущего ответа
+     * @return ResponseEntity со страницей найденных продуктов
      */
     @PostMapping("/search")
-    public ResponseEntity<?> searchProducts(@RequestBody ProductSearchRequest dto) {
+    public ResponseEntity<?> searchProducts(@RequestBody ProductSearchRequest dto,
+                                            @RequestParam(required = false) Integer limit,
+                                            @RequestParam(required = false) String sort,
+                                            @RequestParam(required = false) String cursor) {
 
         ResponseEntity<?> authError = checkAuth();
         if (authError != null) return authError;
@@ -181,8 +335,14 @@ public class ProductRestController {
             return responseHelper.badRequest(PRODUCT_INVALID_MIN_MAX_PRICE, String.join(", ", validationError));
         }
 
+        PageRequest page;
+        try {
+            page = PageRequest.of(limit, sort, cursor);
+        } catch (IllegalArgumentException e) {
+            return responseHelper.badRequest(INVALID_DATA, e.getMessage());
+        }
 
-                BigDecimal min = ParseUtils.parseBigDecimal(dto.getMinPrice());
+        BigDecimal min = ParseUtils.parseBigDecimal(dto.getMinPrice());
         BigDecimal max = ParseUtils.parseBigDecimal(dto.getMaxPrice());
 
         SearchFilter filter = new SearchFilter(
@@ -193,18 +353,18 @@ public class ProductRestController {
                 max
         );
 
-        List<Product> products;
+        ProductPage products;
         try {
-            products = productService.search(filter);
+            products = productService.search(filter, page);
         } catch (Exception e) {
             return responseHelper.serverError(PRODUCT_SEARCH_FAILED, e.getMessage());
         }
 
-        List<ProductResponse> responseList = products.stream()
+        List<ProductResponse> responseList = products.products().stream()
                 .map(productMapper::toResponse)
                 .collect(Collectors.toList());
 
-        return responseHelper.ok(new ProductSearchResponse(responseList));
+        return responseHelper.ok(new ProductSearchResponse(responseList, products.nextCursor()));
     }
 
     /**
@@ -0,0 +1,33 @@
+package ru.ylab.tasks.task5.service.performance;
+
+/**
+ * Снимок счетчиков кеша на момент запроса.
+ * @param hits          количество обращений, найденных в кеше
+ * @param misses        количество обращений, не найденных в кеше
+ * @param puts          количество записей в кеш
+ * @param evictions     количество элементов, вытесненных из-за переполнения
+ * @param invalidations количество элементов, удаленных при инвалидации
+ * @param loads         количество загрузок значений при промахах
+ * @param loadTimeNanos суммарное время загрузок в наносекундах
+ * @param size          текущее количество элементов
+ */
+public record CacheStats(long hits, long misses, long puts, long evictions, long invalidations,
+                         long loads, long loadTimeNanos, int size) {
+
+    /**
+     * Доля обращений, найденных в кеше.
+     * @return значение от 0 до 1, или 0 если обращений не было
+     */
+    public double hitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    /**
+     * Среднее время загрузки значения при промахе.
+     * @return среднее время в наносекундах, или 0 если загрузок не было
+     */
+    public double averageLoadNanos() {
+        return loads == 0 ? 0 : (double) loadTimeNanos / loads;
+    }
+}
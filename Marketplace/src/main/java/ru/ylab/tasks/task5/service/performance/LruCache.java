@@ -1,12 +1,27 @@
 package ru.ylab.tasks.task5.service.performance;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 
 /**
- * Реализация простого LRU-кеша (Least Recently Used).
- * Кеш автоматически удаляет самые старые элементы при переполнении.
+ * Потокобезопасный LRU-кеш (Least Recently Used) с разбиением на сегменты.
+ * Ключи распределяются по сегментам по хешу, каждый сегмент - это LinkedHashMap
+ * в режиме accessOrder со своей блокировкой. Потоки, обращающиеся к разным сегментам,
+ * не блокируют друг друга, а вытеснение выполняется внутри сегмента, поэтому
+ * порядок LRU соблюдается приближенно - в пределах сегмента.
+ * Кеш ведет счетчики попаданий, промахов, записей, вытеснений, инвалидаций
+ * и суммарное время загрузки значений.
+ * Каждая инвалидация и очистка увеличивает номер поколения кеша. Значение, загруженное через
+ * {@link #get(Object, Function)}, кладется в кеш, только если за время загрузки поколение не изменилось:
+ * иначе загрузчик мог прочитать данные до изменения, которое уже удалило устаревшие элементы,
+ * и такой результат остался бы в кеше навсегда. Так же устроен счетчик версий в PriceBoundsCache.
  * Используется для ускорения поиска товаров с одинаковыми фильтрами.
  *
  * @param <K> тип ключа (например, FilterKey)
@@ -14,36 +29,203 @@ import java.util.Map;
  */
 public class LruCache<K, V> {
 
-    private final int maxSize;
-    private final LinkedHashMap<K, V> cache;
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 8;
 
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final AtomicLong generation = new AtomicLong();
+
+    public LruCache(int maxSize) {
+        this(maxSize, DEFAULT_CONCURRENCY_LEVEL);
+    }
 
     /**
-     * Конструктор создает LinkedHashMap с флагом accessOrder = true,
-     * чтобы при каждом обращении к элементу он перемещался в конец списка.
-     * При превышении maxSize самый старый элемент будет удален автоматически.
+     * Создает кеш заданной емкости.
+     * Количество сегментов - ближайшая степень двойки, не превышающая ни concurrencyLevel,
+     * ни maxSize, чтобы в каждом сегменте помещался хотя бы один элемент.
+     * @param maxSize          максимальное количество элементов в кеше
+     * @param concurrencyLevel желаемое количество сегментов
      */
-    public LruCache(int maxSize) {
-        this.maxSize = maxSize;
-        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
-            // Переопределяем метод для удаления самого старого элемента при переполнении
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-                return size() > LruCache.this.maxSize;
-            }
-        };
+    @SuppressWarnings("unchecked")
+    public LruCache(int maxSize, int concurrencyLevel) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + maxSize);
+        }
+        int count = 1;
+        while (count * 2 <= concurrencyLevel && count * 2 <= maxSize) {
+            count *= 2;
+        }
+        this.segments = new Segment[count];
+        this.segmentMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            int segmentSize = maxSize / count + (i < maxSize % count ? 1 : 0);
+            segments[i] = new Segment<>(segmentSize, evictions);
+        }
     }
 
     public V get(K key) {
-        return cache.get(key);
+        V value = segmentFor(key).get(key);
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Возвращает значение из кеша, а при промахе вычисляет его загрузчиком и кладет в кеш.
+     * Загрузчик выполняется без блокировки сегмента, поэтому при одновременном
+     * промахе нескольких потоков значение может быть загружено несколько раз.
+     * Если во время загрузки кеш инвалидировался, значение возвращается, но в кеш не кладется.
+     * @param key    ключ
+     * @param loader функция загрузки значения по ключу
+     * @return значение из кеша или загруженное значение
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) return value;
+
+        long loadGeneration = generation.get();
+        long start = System.nanoTime();
+        value = loader.apply(key);
+        loadNanos.add(System.nanoTime() - start);
+        loads.increment();
+
+        if (segmentFor(key).putIfCurrent(key, value, generation, loadGeneration)) puts.increment();
+        return value;
     }
 
     public void put(K key, V value) {
-        cache.put(key, value);
+        segmentFor(key).put(key, value);
+        puts.increment();
     }
 
     public void clear() {
-        cache.clear();
+        generation.incrementAndGet();
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Удаляет из кеша все элементы, ключи которых удовлетворяют условию.
+     * Используется для точечной инвалидации вместо полной очистки.
+     * Условие проверяется на снимке ключей сегмента без его блокировки, под блокировкой
+     * выполняется только удаление найденных ключей, поэтому дорогое условие не задерживает читателей.
+     * Ключ, добавленный после снимка, загружен уже после увеличения поколения и устаревшим быть не может.
+     * @param condition условие, по которому ключ считается устаревшим
+     * @return количество удаленных элементов
+     */
+    public int invalidateIf(Predicate<? super K> condition) {
+        generation.incrementAndGet();
+        int removed = 0;
+        for (Segment<K, V> segment : segments) {
+            List<K> stale = new ArrayList<>();
+            for (K key : segment.keys()) {
+                if (condition.test(key)) stale.add(key);
+            }
+            if (!stale.isEmpty()) removed += segment.removeAll(stale);
+        }
+        invalidations.add(removed);
+        return removed;
+    }
+
+    /**
+     * Возвращает снимок счетчиков кеша.
+     */
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), puts.sum(), evictions.sum(), invalidations.sum(),
+                loads.sum(), loadNanos.sum(), size());
+    }
+
+    /**
+     * Возвращает текущее количество элементов во всех сегментах.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Выбирает сегмент по хешу ключа.
+     * Старшие биты хеша подмешиваются к младшим, так как номер сегмента берется по маске.
+     */
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & segmentMask];
+    }
+
+    /**
+     * Сегмент кеша: LinkedHashMap с флагом accessOrder = true,
+     * чтобы при каждом обращении к элементу он перемещался в конец списка.
+     * Все операции выполняются под монитором сегмента, так как get в режиме
+     * accessOrder тоже изменяет структуру LinkedHashMap.
+     */
+    private static final class Segment<K, V> {
+
+        private final LinkedHashMap<K, V> map;
+
+        Segment(int maxSize, LongAdder evictions) {
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                // Удаляем самый старый элемент сегмента при переполнении
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                    if (size() <= maxSize) return false;
+                    evictions.increment();
+                    return true;
+                }
+            };
+        }
+
+        synchronized V get(K key) {
+            return map.get(key);
+        }
+
+        synchronized void put(K key, V value) {
+            map.put(key, value);
+        }
+
+        /**
+         * Кладет значение, только если поколение кеша не изменилось с начала загрузки.
+         * Проверка и запись выполняются под монитором сегмента: инвалидация сначала увеличивает
+         * поколение, а затем удаляет элементы под тем же монитором, поэтому значение, положенное
+         * до ее прохода по сегменту, будет ею проверено.
+         */
+        synchronized boolean putIfCurrent(K key, V value, AtomicLong generation, long expected) {
+            if (generation.get() != expected) return false;
+            map.put(key, value);
+            return true;
+        }
+
+        synchronized void clear() {
+            map.clear();
+        }
+
+        synchronized List<K> keys() {
+            return new ArrayList<>(map.keySet());
+        }
+
+        synchronized int removeAll(List<K> keys) {
+            int before = map.size();
+            map.keySet().removeAll(keys);
+            return before - map.size();
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
     }
 
 }
@@ -0,0 +1,71 @@
+package ru.ylab.tasks.task5.service.performance;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Публикует счетчики {@link LruCache} в Micrometer.
+ * Стандартные метрики кеша (cache.gets, cache.puts, cache.evictions, cache.size)
+ * регистрирует базовый {@link CacheMeterBinder}, здесь добавляются
+ * счетчик инвалидаций и таймер загрузки значений при промахах.
+ */
+public class LruCacheMetrics extends CacheMeterBinder<LruCache<?, ?>> {
+
+    public LruCacheMetrics(LruCache<?, ?> cache, String cacheName, Iterable<Tag> tags) {
+        super(cache, cacheName, tags);
+    }
+
+    @Override
+    protected Long size() {
+        LruCache<?, ?> cache = getCache();
+        return cache == null ? null : (long) cache.size();
+    }
+
+    @Override
+    protected long hitCount() {
+        LruCache<?, ?> cache = getCache();
+        return cache == null ? 0 : cache.stats().hits();
+    }
+
+    @Override
+    protected Long missCount() {
+        LruCache<?, ?> cache = getCache();
+        return cache == null ? null : cache.stats().misses();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        LruCache<?, ?> cache = getCache();
+        return cache == null ? null : cache.stats().evictions();
+    }
+
+    @Override
+    protected long putCount() {
+        LruCache<?, ?> cache = getCache();
+        return cache == null ? 0 : cache.stats().puts();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        LruCache<?, ?> cache = getCache();
+        if (cache == null) return;
+
+        FunctionCounter.builder("cache.invalidations", cache, c -> c.stats().invalidations())
+                .tags(getTagsWithCacheName())
+                .description("The number of entries removed by targeted invalidation")
+                .register(registry);
+
+        FunctionTimer.builder("cache.load.duration", cache,
+                        c -> c.stats().loads(),
+                        c -> c.stats().loadTimeNanos(),
+                        TimeUnit.NANOSECONDS)
+                .tags(getTagsWithCacheName())
+                .description("The time spent loading values on cache misses")
+                .register(registry);
+    }
+}
@@ -0,0 +1,27 @@
+package ru.ylab.tasks.task5.service.performance;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * Actuator-эндпоинт /actuator/searchcache со снимком счетчиков кеша результатов поиска.
+ * Те же значения доступны как метрики Micrometer с тегом cache=search.
+ */
+@Endpoint(id = "searchcache")
+public class SearchCacheEndpoint {
+
+    private final LruCache<?, ?> cache;
+
+    public SearchCacheEndpoint(LruCache<?, ?> cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Возвращает текущие счетчики кеша.
+     * @return снимок счетчиков
+     */
+    @ReadOperation
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
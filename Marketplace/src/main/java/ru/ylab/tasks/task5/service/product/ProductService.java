@@ -1,10 +1,16 @@
 package ru.ylab.tasks.task5.service.product;
 
 import ru.ylab.tasks.task5.model.Product;
+import ru.ylab.tasks.task5.util.BulkFormat;
+import ru.ylab.tasks.task5.util.PageRequest;
+import ru.ylab.tasks.task5.util.ProductPage;
 import ru.ylab.tasks.task5.util.SearchFilter;
 
+import java.io.Reader;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ProductService {
 
@@ -13,6 +19,17 @@ public interface ProductService {
      */
     void create(Product product);
 
+    /**
+     * Создаёт набор товаров одной пакетной операцией.
+     */
+    void createAll(Collection<Product> products);
+
+    /**
+     * Загружает товары из потока CSV/TSV массовой загрузкой.
+     * @return количество добавленных и обновленных товаров
+     */
+    long importAll(Reader input, BulkFormat format);
+
     /**
      * Обновляет существующий товар.
      */
@@ -32,4 +49,19 @@ public interface ProductService {
      * Выполняет поиск товаров по заданному фильтру.
      */
     List<Product> search(SearchFilter filter);
+
+    /**
+     * Возвращает страницу всех товаров.
+     */
+    ProductPage getPage(PageRequest page);
+
+    /**
+     * Возвращает страницу результатов поиска по заданному фильтру.
+     */
+    ProductPage search(SearchFilter filter, PageRequest page);
+
+    /**
+     * Последовательно передает все товары обработчику без загрузки каталога в память.
+     */
+    void exportAll(Consumer<? super Product> consumer);
 }
@@ -3,15 +3,22 @@ package ru.ylab.tasks.task5.service.product;
 import org.springframework.stereotype.Service;
 import ru.ylab.tasks.task5.model.Product;
 import ru.ylab.tasks.task5.repository.ProductRepository;
+import ru.ylab.tasks.task5.util.BulkFormat;
 import ru.ylab.tasks.task5.util.FilterKey;
+import ru.ylab.tasks.task5.util.PageCursor;
+import ru.ylab.tasks.task5.util.PageRequest;
+import ru.ylab.tasks.task5.util.ProductPage;
 import ru.ylab.tasks.task5.util.SearchFilter;
 import ru.ylab.tasks.task5.service.performance.LruCache;
 
+import java.io.Reader;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 
 /**
@@ -21,21 +28,62 @@ import java.util.Optional;
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    private static final SearchFilter NO_FILTER = new SearchFilter(null, null, null, null, null);
+
+    /**
+     * Размер пакета, начиная с которого кеш поиска очищается целиком. Точечная инвалидация
+     * проверяет каждый ключ кеша на каждом товаре пакета, а полная очистка стоит не больше
+     * повторной загрузки вмещаемых кешем результатов.
+     */
+    public static final int INVALIDATE_ALL_THRESHOLD = 64;
+
     private final ProductRepository repo;
-    private final LruCache<FilterKey, List<Product>> cache = new LruCache<>(50);
+    private final LruCache<FilterKey, List<Product>> cache;
 
-    public ProductServiceImpl(ProductRepository repository) {
+    public ProductServiceImpl(ProductRepository repository, LruCache<FilterKey, List<Product>> searchCache) {
         this.repo = repository;
+        this.cache = searchCache;
     }
 
     /**
-     * Создает новый товар и очищает кеш.
+     * Создает новый товар и удаляет из кеша результаты поиска, в которые он может попасть.
      * @param p объект товара для добавления
      */
     @Override
     public void create(Product p) {
         repo.save(p);
+        invalidate(p);
+    }
+
+    /**
+     * Создает набор товаров одной пакетной операцией репозитория.
+     * Кеш результатов поиска инвалидируется один раз на весь пакет, а не после каждого товара;
+     * пакет больше {@link #INVALIDATE_ALL_THRESHOLD} товаров очищает кеш целиком, как массовая загрузка.
+     * @param products товары для добавления
+     */
+    @Override
+    public void createAll(Collection<Product> products) {
+        if (products.isEmpty()) return;
+        repo.saveAll(products);
+        if (products.size() > INVALIDATE_ALL_THRESHOLD) {
+            cache.clear();
+        } else {
+            invalidate(products.toArray(Product[]::new));
+        }
+    }
+
+    /**
+     * Загружает товары из потока CSV/TSV массовой загрузкой репозитория.
+     * Загрузка может затронуть любую часть каталога, поэтому кеш результатов поиска очищается целиком.
+     * @param input  поток данных с заголовком
+     * @param format формат данных
+     * @return количество добавленных и обновленных товаров
+     */
+    @Override
+    public long importAll(Reader input, BulkFormat format) {
+        long merged = repo.importAll(input, format);
         cache.clear();
+        return merged;
     }
 
     /**
@@ -52,20 +100,23 @@ public class ProductServiceImpl implements ProductService {
         Optional<Product> opt = repo.findById(id);
         if (opt.isPresent()) {
             Product p = opt.get();
+            Product old = new Product(p.getId(), p.getName(), p.getCategory(),
+                    p.getBrand(), p.getPrice(), p.getDescription());
             p.update(name, cat, brand, price, desc);
             repo.save(p);
-            cache.clear();
+            invalidate(old, p);
         }
     }
 
     /**
-     * Удаляет товар по ID и очищает кеш.
+     * Удаляет товар по ID и удаляет из кеша результаты поиска, в которые он входил.
      * @param id идентификатор удаляемого товара
      */
     @Override
     public void delete(Long id) {
+        Optional<Product> existing = repo.findById(id);
         repo.deleteById(id);
-        cache.clear();
+        existing.ifPresent(this::invalidate);
     }
 
     /**
@@ -77,78 +128,98 @@ public class ProductServiceImpl implements ProductService {
         return new ArrayList<>(repo.findAll());
     }
 
+    /**
+     * Последовательно передает все товары обработчику.
+     * Используется для выгрузки каталога, поэтому не использует кеш.
+     * @param consumer обработчик, вызываемый для каждого товара
+     */
+    @Override
+    public void exportAll(Consumer<? super Product> consumer) {
+        repo.streamAll(consumer);
+    }
+
     /**
      * Поиск товаров по фильтрам (ключевое слово, категория, бренд, диапазон цен).
-     * Использует индексы и кеширование для повышения производительности.
+     * Фильтрация выполняется репозиторием, результаты кешируются.
      */
     @Override
     public List<Product> search(SearchFilter f) {
-        FilterKey key = new FilterKey(f);
-        List<Product> cached = cache.get(key);
-        if (cached != null) return cached;
-
-        List<Product> candidates = new ArrayList<>(repo.findAll());
-
-        candidates = filterByCategory(candidates, f);
-        candidates = filterByBrand(candidates, f);
-        candidates = filterByPriceRange(candidates, f);
-        candidates = filterByKeyword(candidates, f);
-
-        cache.put(key, candidates);
-        return candidates;
+        return cache.get(new FilterKey(f), key -> canMatchPrice(f)
+                ? List.copyOf(repo.search(f))
+                : Collections.emptyList());
     }
 
-    /** Фильтрует список по категории. */
-    private List<Product> filterByCategory(List<Product> candidates, SearchFilter f) {
-        if (f.category() == null || f.category().isBlank()) return candidates;
-        return candidates.stream()
-                .filter(p -> p.getCategory().equalsIgnoreCase(f.category()))
-                .toList();
+    /**
+     * Возвращает страницу всех товаров в порядке сортировки запроса.
+     * @param page параметры страницы
+     * @return страница товаров с курсором следующей страницы
+     */
+    @Override
+    public ProductPage getPage(PageRequest page) {
+        return toPage(repo.searchPage(NO_FILTER, page.withLimit(page.limit() + 1)), page);
     }
 
-    /** Фильтрует список по бренду. */
-    private List<Product> filterByBrand(List<Product> candidates, SearchFilter f) {
-        if (f.brand() == null || f.brand().isBlank()) return candidates;
-        return candidates.stream()
-                .filter(p -> p.getBrand().equalsIgnoreCase(f.brand()))
-                .toList();
+    /**
+     * Возвращает страницу результатов поиска по фильтрам.
+     * Страницы кешируются так же, как и полные результаты поиска.
+     * @param f    фильтр поиска
+     * @param page параметры страницы
+     * @return страница товаров с курсором следующей страницы
+     */
+    @Override
+    public ProductPage search(SearchFilter f, PageRequest page) {
+        List<Product> rows = cache.get(new FilterKey(f, page), key -> canMatchPrice(f)
+                ? List.copyOf(repo.searchPage(f, page.withLimit(page.limit() + 1)))
+                : Collections.emptyList());
+        return toPage(rows, page);
     }
 
-    /** Фильтрует список по диапазону цен с учетом min/max значений. */
-    private List<Product> filterByPriceRange(List<Product> candidates, SearchFilter f) {
-        if (f.minPrice() == null && f.maxPrice() == null) return candidates;
-
-        Optional<BigDecimal> repoMin = repo.getMinPrice();
-        Optional<BigDecimal> repoMax = repo.getMaxPrice();
-
-        if (repoMin.isEmpty() || repoMax.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        BigDecimal min = f.minPrice() != null ? f.minPrice() : repoMin.get();
-        BigDecimal max = f.maxPrice() != null ? f.maxPrice() : repoMax.get();
+    /**
+     * Удаляет из кеша только те результаты поиска, фильтр которых подходит
+     * под одну из версий измененного товара. Остальные результаты
+     * измениться не могли и остаются в кеше.
+     * @param versions версии товара до и после изменения или все товары пакета
+     */
+    private void invalidate(Product... versions) {
+        cache.invalidateIf(key -> {
+            for (Product p : versions) {
+                if (key.matches(p)) return true;
+            }
+            return false;
+        });
+    }
 
-        if (min.compareTo(max) > 0) {
-            return Collections.emptyList();
-        }
+    /**
+     * Формирует страницу из выборки, запрошенной с одним лишним товаром.
+     * Наличие лишнего товара означает, что за страницей есть продолжение.
+     */
+    private ProductPage toPage(List<Product> rows, PageRequest page) {
+        if (rows.size() <= page.limit()) return new ProductPage(rows, null);
 
-        return candidates.stream()
-                .filter(p -> p.getPrice().compareTo(min) >= 0 && p.getPrice().compareTo(max) <= 0)
-                .toList();
+        List<Product> products = rows.subList(0, page.limit());
+        Product last = products.get(products.size() - 1);
+        String next = PageCursor.after(page.sort(), last.getPrice(), last.getId()).encode();
+        return new ProductPage(products, next);
     }
 
-    /** Фильтрует список по ключевому слову (поиск по названию, описанию, категории и бренду). */
-    private List<Product> filterByKeyword(List<Product> candidates, SearchFilter f) {
-        if (f.keyword() == null || f.keyword().isBlank()) return candidates;
+    /**
+     * Проверяет, может ли хотя бы один товар попасть в диапазон цен фильтра.
+     * Открытые границы диапазона остаются открытыми и в запрос не подставляются,
+     * а границы цен каталога берутся из кеша репозитория без обращения к базе данных.
+     * @return false, если диапазон пуст или целиком лежит вне цен каталога
+     */
+    private boolean canMatchPrice(SearchFilter f) {
+        BigDecimal min = f.minPrice();
+        BigDecimal max = f.maxPrice();
+        if (min == null && max == null) return true;
+        if (min != null && max != null && min.compareTo(max) > 0) return false;
 
-        String keyword = f.keyword().toLowerCase();
+        Optional<BigDecimal> repoMin = repo.getMinPrice();
+        Optional<BigDecimal> repoMax = repo.getMaxPrice();
+        if (repoMin.isEmpty() || repoMax.isEmpty()) return false;
 
-        return candidates.stream()
-                .filter(p -> p.getName().toLowerCase().contains(keyword)
-                        || p.getDescription().toLowerCase().contains(keyword)
-                        || p.getCategory().toLowerCase().contains(keyword)
-                        || p.getBrand().toLowerCase().contains(keyword))
-                .toList();
+        return (min == null || min.compareTo(repoMax.get()) <= 0)
+                && (max == null || max.compareTo(repoMin.get()) >= 0);
     }
 
 }
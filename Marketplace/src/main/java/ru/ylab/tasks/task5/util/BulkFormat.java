@@ -0,0 +1,48 @@
+package ru.ylab.tasks.task5.util;
+
+import java.util.Locale;
+
+/**
+ * Формат входных данных для массовой загрузки каталога.
+ * Первая строка содержит заголовок: id,name,category,brand,price,description.
+ * Пустой id означает новый товар, id которого выдаст последовательность.
+ */
+public enum BulkFormat {
+
+    /** Значения через запятую, кавычки по правилам CSV. */
+    CSV("text/csv", ","),
+    /** Значения через табуляцию, кавычки по правилам CSV. */
+    TSV("text/tab-separated-values", "\t");
+
+    private final String mediaType;
+    private final String delimiter;
+
+    BulkFormat(String mediaType, String delimiter) {
+        this.mediaType = mediaType;
+        this.delimiter = delimiter;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    public String delimiter() {
+        return delimiter;
+    }
+
+    /**
+     * Определяет формат по типу содержимого запроса.
+     * @param contentType заголовок Content-Type, может содержать параметры (charset)
+     * @return формат данных
+     * @throws IllegalArgumentException если тип содержимого не соответствует ни одному формату
+     */
+    public static BulkFormat fromContentType(String contentType) {
+        if (contentType != null) {
+            String type = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+            for (BulkFormat format : values()) {
+                if (format.mediaType.equals(type)) return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported bulk format: " + contentType);
+    }
+}
@@ -1,6 +1,7 @@
 package ru.ylab.tasks.task5.util;
 
-import java.math.BigDecimal;
+import ru.ylab.tasks.task5.model.Product;
+
 import java.util.Objects;
 
 /**
@@ -10,21 +11,36 @@ import java.util.Objects;
  */
 public class FilterKey {
 
-    private final String keyword;
-    private final String category;
-    private final String brand;
-    private final BigDecimal minPrice;
-    private final BigDecimal maxPrice;
+    private final SearchFilter filter;
+    private final PageRequest page;
 
     /**
      * Создаёт ключ фильтра из объекта {@link SearchFilter}.
      */
     public FilterKey(SearchFilter f) {
-        this.keyword = f.keyword();
-        this.category = f.category();
-        this.brand = f.brand();
-        this.minPrice = f.minPrice();
-        this.maxPrice = f.maxPrice();
+        this(f, null);
+    }
+
+    /**
+     * Создаёт ключ для страницы результатов поиска.
+     * @param f    фильтр поиска
+     * @param page параметры страницы или null для полной выдачи
+     */
+    public FilterKey(SearchFilter f, PageRequest page) {
+        this.filter = f;
+        this.page = page;
+    }
+
+    /**
+     * Проверяет, может ли товар входить в закешированный по этому ключу результат.
+     * Позиция страницы не учитывается: изменение подходящего товара
+     * может сдвинуть любую страницу выдачи.
+     * Ключевое слово сопоставляется и как подстрока, и по префиксам термов, см. {@link SearchFilter#matches}.
+     * @param p товар
+     * @return true, если товар удовлетворяет фильтру ключа
+     */
+    public boolean matches(Product p) {
+        return filter.matches(p);
     }
 
     @Override
@@ -32,15 +48,12 @@ public class FilterKey {
         if (this == o) return true;
         if (!(o instanceof FilterKey)) return false;
         FilterKey k = (FilterKey) o;
-        return Objects.equals(keyword, k.keyword)
-                && Objects.equals(category, k.category)
-                && Objects.equals(brand, k.brand)
-                && Objects.equals(minPrice, k.minPrice)
-                && Objects.equals(maxPrice, k.maxPrice);
+        return Objects.equals(filter, k.filter)
+                && Objects.equals(page, k.page);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(keyword, category, brand, minPrice, maxPrice);
+        return Objects.hash(filter, page);
     }
 }
@@ -0,0 +1,40 @@
+package ru.ylab.tasks.task5.util;
+
+import java.util.Locale;
+
+/**
+ * Способ поиска товаров по ключевому слову в базе данных.
+ * Задается параметром repository.keyword-search.
+ * Репозиторий "cached-jdbc" ищет в памяти по префиксам термов, как FULL_TEXT, независимо от этого параметра,
+ * поэтому при SUBSTRING одно и то же ключевое слово находит в "jdbc" и "cached-jdbc" разные товары:
+ * "top" находит "Laptop" подстрокой, но не префиксом терма.
+ */
+public enum KeywordSearchMode {
+
+    /**
+     * Поиск подстроки через ILIKE '%...%' по названию, описанию, категории и бренду.
+     * Ускоряется триграммными GIN-индексами pg_trgm для ключевых слов от трех символов.
+     */
+    SUBSTRING,
+
+    /**
+     * Полнотекстовый поиск по tsvector: каждое слово запроса ищется как префикс слова товара.
+     * Использует GIN-индекс по выражению to_tsvector.
+     */
+    FULL_TEXT;
+
+    /**
+     * Разбирает значение параметра конфигурации, например "substring" или "full-text".
+     * @param value значение параметра, может быть null
+     * @return способ поиска, по умолчанию SUBSTRING
+     * @throws IllegalArgumentException если значение не соответствует ни одному способу
+     */
+    public static KeywordSearchMode parse(String value) {
+        if (value == null || value.isBlank()) return SUBSTRING;
+        try {
+            return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown keyword search mode: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package ru.ylab.tasks.task5.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Разбиение текста на термы для поиска по ключевому слову.
+ * Терм - последовательность букв и цифр в нижнем регистре. Одинаково используется индексом
+ * ключевых слов репозитория "cached-jdbc", полнотекстовым поиском в базе данных
+ * и проверкой товара фильтром {@link SearchFilter}, чтобы все они понимали запрос одинаково.
+ */
+public final class KeywordTerms {
+
+    private KeywordTerms() {
+    }
+
+    /**
+     * Разбивает текст на термы: последовательности букв и цифр в нижнем регистре.
+     * @param text исходный текст, может быть null
+     * @return список термов в порядке появления
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) return List.of();
+
+        List<String> terms = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Проверяет, что для каждого терма запроса в одном из текстов есть терм, начинающийся с него.
+     * Так сопоставляет запрос индекс ключевых слов: "lapt." находит "Laptop Pro".
+     * @param queryTerms термы запроса, полученные {@link #tokenize}
+     * @param texts      тексты товара; null пропускаются
+     * @return true, если найдены все термы; false для пустого запроса
+     */
+    public static boolean matchesPrefixes(List<String> queryTerms, String... texts) {
+        if (queryTerms.isEmpty()) return false;
+        List<String> terms = new ArrayList<>();
+        for (String text : texts) terms.addAll(tokenize(text));
+        for (String queryTerm : queryTerms) {
+            if (terms.stream().noneMatch(term -> term.startsWith(queryTerm))) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,74 @@
+package ru.ylab.tasks.task5.util;
+
+import ru.ylab.tasks.task5.model.Product;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Позиция в упорядоченной выдаче товаров для keyset-пагинации.
+ * Хранит ключ сортировки последнего отданного товара: id и, для сортировки по цене, его цену.
+ * Клиенту передается в виде непрозрачного токена.
+ */
+public record PageCursor(BigDecimal price, long id) {
+
+    /**
+     * Создает курсор, указывающий на последний товар страницы.
+     * @param sort  порядок сортировки страницы
+     * @param price цена последнего товара
+     * @param id    id последнего товара
+     * @return курсор для запроса следующей страницы
+     */
+    public static PageCursor after(ProductSort sort, BigDecimal price, long id) {
+        return new PageCursor(sort == ProductSort.PRICE ? price : null, id);
+    }
+
+    /**
+     * Проверяет, что товар расположен после курсора в заданном порядке сортировки.
+     * @param p    проверяемый товар
+     * @param sort порядок сортировки
+     * @return true, если товар должен попасть на страницы после курсора
+     */
+    public boolean isBefore(Product p, ProductSort sort) {
+        if (sort == ProductSort.PRICE) {
+            int cmp = p.getPrice().compareTo(price);
+            return cmp > 0 || (cmp == 0 && p.getId() > id);
+        }
+        return p.getId() > id;
+    }
+
+    /**
+     * Кодирует курсор в токен для передачи клиенту.
+     * @return токен курсора
+     */
+    public String encode() {
+        String raw = price != null ? price.toPlainString() + ":" + id : String.valueOf(id);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Декодирует токен курсора, полученный от клиента.
+     * @param token токен курсора, null или пустая строка означают первую страницу
+     * @param sort  порядок сортировки, для которого запрошена страница
+     * @return курсор или null для первой страницы
+     * @throws IllegalArgumentException если токен поврежден или не соответствует порядку сортировки
+     */
+    public static PageCursor decode(String token, ProductSort sort) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            if (sort == ProductSort.PRICE && sep > 0) {
+                return new PageCursor(new BigDecimal(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+            }
+            if (sort == ProductSort.ID && sep < 0) {
+                return new PageCursor(null, Long.parseLong(raw));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor", e);
+        }
+        throw new IllegalArgumentException("Invalid page cursor");
+    }
+}
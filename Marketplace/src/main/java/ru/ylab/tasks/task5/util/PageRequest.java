@@ -0,0 +1,37 @@
+package ru.ylab.tasks.task5.util;
+
+/**
+ * Параметры запроса страницы товаров.
+ * @param limit максимальное количество товаров на странице
+ * @param sort  порядок сортировки
+ * @param after позиция, после которой начинается страница, или null для первой страницы
+ */
+public record PageRequest(int limit, ProductSort sort, PageCursor after) {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Создает запрос страницы из параметров клиента.
+     * Размер страницы ограничивается диапазоном от 1 до {@link #MAX_PAGE_SIZE}.
+     * @param limit  запрошенный размер страницы или null для размера по умолчанию
+     * @param sort   порядок сортировки (id или price)
+     * @param cursor токен курсора из предыдущего ответа
+     * @return запрос страницы
+     * @throws IllegalArgumentException если порядок сортировки или курсор некорректны
+     */
+    public static PageRequest of(Integer limit, String sort, String cursor) {
+        int size = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        ProductSort order = ProductSort.parse(sort);
+        return new PageRequest(size, order, PageCursor.decode(cursor, order));
+    }
+
+    /**
+     * Возвращает тот же запрос с другим размером страницы.
+     * @param newLimit новый размер страницы
+     * @return запрос страницы
+     */
+    public PageRequest withLimit(int newLimit) {
+        return new PageRequest(newLimit, sort, after);
+    }
+}
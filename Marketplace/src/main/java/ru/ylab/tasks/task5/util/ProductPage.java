@@ -0,0 +1,12 @@
+package ru.ylab.tasks.task5.util;
+
+import ru.ylab.tasks.task5.model.Product;
+
+import java.util.List;
+
+/**
+ * Страница товаров постраничной выдачи.
+ * @param products   товары страницы
+ * @param nextCursor токен для запроса следующей страницы или null, если страница последняя
+ */
+public record ProductPage(List<Product> products, String nextCursor) {}
@@ -0,0 +1,41 @@
+package ru.ylab.tasks.task5.util;
+
+import ru.ylab.tasks.task5.model.Product;
+
+import java.util.Comparator;
+
+/**
+ * Порядок сортировки товаров при постраничной выдаче.
+ * Каждый порядок однозначен за счет id, что позволяет использовать keyset-пагинацию.
+ */
+public enum ProductSort {
+    /** По возрастанию id. */
+    ID,
+    /** По возрастанию цены, при равной цене - по id. */
+    PRICE;
+
+    /**
+     * Определяет порядок сортировки по строковому значению без учета регистра.
+     * @param value строковое значение, null или пустая строка означают {@link #ID}
+     * @return порядок сортировки
+     * @throws IllegalArgumentException если значение не соответствует ни одному порядку
+     */
+    public static ProductSort parse(String value) {
+        if (value == null || value.isBlank()) return ID;
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown sort order: " + value);
+        }
+    }
+
+    /**
+     * Возвращает компаратор, задающий этот порядок сортировки.
+     * @return компаратор товаров
+     */
+    public Comparator<Product> comparator() {
+        return this == PRICE
+                ? Comparator.comparing(Product::getPrice).thenComparing(Product::getId)
+                : Comparator.comparing(Product::getId);
+    }
+}
@@ -1,5 +1,6 @@
 package ru.ylab.tasks.task5.util;
 
+import ru.ylab.tasks.task5.model.Product;
 import ru.ylab.tasks.task5.service.product.ProductServiceImpl;
 
 import java.math.BigDecimal;
@@ -16,4 +17,48 @@ public record SearchFilter (
     BigDecimal minPrice,
     BigDecimal maxPrice
 
-) {}
+) {
+
+    /**
+     * Проверяет, удовлетворяет ли товар всем заданным критериям фильтра.
+     * Пустые критерии не ограничивают выборку, границы цены включительные.
+     * Ключевое слово в зависимости от репозитория ищется как подстрока (jdbc с keyword-search=substring)
+     * или как префиксы термов {@link KeywordTerms} (cached-jdbc и keyword-search=full-text), поэтому
+     * товар подходит, если ключевое слово найдено любым из способов. Проверка используется для вытеснения
+     * кэша поиска и должна находить все товары, которые мог вернуть репозиторий.
+     * @param p проверяемый товар
+     * @return true, если товар проходит фильтр
+     */
+    public boolean matches(Product p) {
+        if (hasText(category) && !category.equalsIgnoreCase(p.getCategory())) return false;
+        if (hasText(brand) && !brand.equalsIgnoreCase(p.getBrand())) return false;
+        if (minPrice != null && p.getPrice().compareTo(minPrice) < 0) return false;
+        if (maxPrice != null && p.getPrice().compareTo(maxPrice) > 0) return false;
+        if (!hasText(keyword)) return true;
+
+        String kw = keyword.toLowerCase();
+        return contains(p.getName(), kw)
+                || contains(p.getDescription(), kw)
+                || contains(p.getCategory(), kw)
+                || contains(p.getBrand(), kw)
+                || KeywordTerms.matchesPrefixes(KeywordTerms.tokenize(keyword),
+                        p.getName(), p.getDescription(), p.getCategory(), p.getBrand());
+    }
+
+    /**
+     * Возвращает тот же фильтр без ключевого слова.
+     * Используется, когда ключевое слово уже учтено индексом.
+     * @return фильтр только по категории, бренду и цене
+     */
+    public SearchFilter withoutKeyword() {
+        return keyword == null ? this : new SearchFilter(null, category, brand, minPrice, maxPrice);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private static boolean contains(String value, String lowerKeyword) {
+        return value != null && value.toLowerCase().contains(lowerKeyword);
+    }
+}
@@ -90,7 +90,8 @@ public abstract class AbstractIntegrationTest {
             statement.execute("DELETE FROM marketplace.users");
 
             statement.execute("ALTER SEQUENCE marketplace.user_seq RESTART WITH 1");
-            statement.execute("ALTER SEQUENCE marketplace.product_seq RESTART WITH 1");
+            // product_seq не сбрасывается: репозиторий держит выделенный блок id,
+            // и после RESTART последовательность выдала бы те же id повторно
 
         } catch (SQLException e) {
             throw new RuntimeException("Failed to clean database", e);
@@ -0,0 +1,219 @@
+package ru.ylab.tasks.task5;
+
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.ylab.tasks.task5.audit.async.AsyncAuditDispatcher;
+import ru.ylab.tasks.task5.audit.async.OverflowPolicy;
+import ru.ylab.tasks.task5.audit.event.AuditEvent;
+import ru.ylab.tasks.task5.audit.handler.AuditHandler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class AsyncAuditDispatcherTest {
+
+    private static final Duration FLUSH = Duration.ofMillis(5);
+    private static final Duration SHUTDOWN = Duration.ofSeconds(10);
+
+    @Test
+    @DisplayName("Асинхронный аудит: должен записывать события каждого производителя без потерь и в порядке регистрации")
+    void submit_ShouldKeepPerProducerOrder_WhenManyProducersBlock() throws InterruptedException {
+        RecordingHandler handler = new RecordingHandler();
+        AsyncAuditDispatcher dispatcher = new AsyncAuditDispatcher(handler, 16, 8, OverflowPolicy.BLOCK, 1, FLUSH, SHUTDOWN);
+        int producers = 4;
+        int perProducer = 20_000;
+
+        runProducers(producers, perProducer, dispatcher);
+        dispatcher.close();
+
+        Map<String, List<Long>> byProducer = handler.events.stream()
+                .collect(Collectors.groupingBy(AuditEvent::action, Collectors.mapping(AuditEvent::timestampNanos, Collectors.toList())));
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(byProducer).hasSize(producers);
+        byProducer.forEach((producer, sequence) -> softly.assertThat(sequence)
+                .as(producer).hasSize(perProducer).isSorted().doesNotHaveDuplicates());
+        softly.assertThat(dispatcher.writtenCount()).isEqualTo((long) producers * perProducer);
+        softly.assertThat(dispatcher.droppedOverflowCount()).isZero();
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Асинхронный аудит: должен отбрасывать события при заполненном буфере и политике DROP")
+    void submit_ShouldDropEvents_WhenBufferFullAndPolicyDrop() {
+        BlockingHandler handler = new BlockingHandler();
+        AsyncAuditDispatcher dispatcher = new AsyncAuditDispatcher(handler, 16, 4, OverflowPolicy.DROP, 1, FLUSH, SHUTDOWN);
+
+        dispatcher.submit("first", null, null, 0);
+        handler.awaitStarted();
+        for (int i = 1; i <= 100; i++) dispatcher.submit("e", null, null, i);
+        handler.release();
+        dispatcher.close();
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(dispatcher.droppedOverflowCount()).isPositive();
+        softly.assertThat(dispatcher.writtenCount() + dispatcher.droppedOverflowCount()).isEqualTo(dispatcher.submittedCount());
+        softly.assertThat((long) handler.events.size()).isEqualTo(dispatcher.writtenCount());
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Асинхронный аудит: должен принимать только каждое N-е событие выше порога заполнения при политике SAMPLE")
+    void submit_ShouldSampleEvents_WhenBufferAboveWatermarkAndPolicySample() {
+        BlockingHandler handler = new BlockingHandler();
+        AsyncAuditDispatcher dispatcher = new AsyncAuditDispatcher(handler, 64, 4, OverflowPolicy.SAMPLE, 4, FLUSH, SHUTDOWN);
+
+        dispatcher.submit("first", null, null, 0);
+        handler.awaitStarted();
+        for (int i = 1; i <= 200; i++) dispatcher.submit("e", null, null, i);
+        handler.release();
+        dispatcher.close();
+
+        long dropped = dispatcher.droppedSampledCount() + dispatcher.droppedOverflowCount();
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(dispatcher.droppedSampledCount()).isPositive();
+        softly.assertThat(dispatcher.writtenCount()).isGreaterThan(48);
+        softly.assertThat(dispatcher.writtenCount() + dropped).isEqualTo(dispatcher.submittedCount());
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Асинхронный аудит: должен записать оставшиеся в буфере события при закрытии")
+    void close_ShouldDrainBuffer() {
+        RecordingHandler handler = new RecordingHandler();
+        AsyncAuditDispatcher dispatcher = new AsyncAuditDispatcher(handler, 1024, 1024, OverflowPolicy.BLOCK, 1,
+                Duration.ofMinutes(1), SHUTDOWN);
+
+        for (int i = 0; i < 500; i++) dispatcher.submit("e", null, null, i);
+        dispatcher.close();
+        dispatcher.submit("after", null, null, 500);
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(handler.events).extracting(AuditEvent::timestampNanos).hasSize(501).isSorted();
+        softly.assertThat(dispatcher.queueSize()).isZero();
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Асинхронный аудит: не должен терять события производителей, регистрирующих их во время закрытия")
+    void close_ShouldNotLoseEvents_WhenProducersRaceWithClose() throws InterruptedException {
+        RecordingHandler handler = new RecordingHandler();
+        AsyncAuditDispatcher dispatcher = new AsyncAuditDispatcher(handler, 64, 16, OverflowPolicy.BLOCK, 1, FLUSH, SHUTDOWN);
+        int producers = 4;
+        int perProducer = 20_000;
+
+        List<Thread> threads = startProducers(producers, perProducer, dispatcher);
+        Thread.sleep(5);
+        dispatcher.close();
+        for (Thread thread : threads) thread.join();
+
+        assertThat(handler.events).hasSize(producers * perProducer);
+    }
+
+    @Test
+    @DisplayName("Асинхронный аудит: должен продолжать запись после Error обработчика, не блокируя производителей")
+    void submit_ShouldKeepWriting_WhenHandlerThrowsError() {
+        RecordingHandler recording = new RecordingHandler();
+        AtomicBoolean failedOnce = new AtomicBoolean();
+        AuditHandler handler = new AuditHandler() {
+            @Override
+            public void handle(String action, Object[] args) {
+            }
+
+            @Override
+            public void handleBatch(List<AuditEvent> events) {
+                if (failedOnce.compareAndSet(false, true)) throw new StackOverflowError("test");
+                recording.handleBatch(events);
+            }
+        };
+        AsyncAuditDispatcher dispatcher = new AsyncAuditDispatcher(handler, 16, 4, OverflowPolicy.BLOCK, 1, FLUSH, SHUTDOWN);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            for (int i = 0; i < 1_000; i++) dispatcher.submit("e", null, null, i);
+            dispatcher.close();
+        });
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(dispatcher.failedCount()).isPositive();
+        softly.assertThat(dispatcher.failedCount() + recording.events.size()).isEqualTo(1_000);
+        softly.assertAll();
+    }
+
+    private static void runProducers(int producers, int perProducer, AsyncAuditDispatcher dispatcher)
+            throws InterruptedException {
+        for (Thread thread : startProducers(producers, perProducer, dispatcher)) thread.join();
+    }
+
+    private static List<Thread> startProducers(int producers, int perProducer, AsyncAuditDispatcher dispatcher) {
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String name = "producer-" + p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) dispatcher.submit(name, null, null, i);
+            }, name);
+            thread.start();
+            threads.add(thread);
+        }
+        return threads;
+    }
+
+    /**
+     * Сохраняет копии событий; может вызываться и фоновым потоком, и потоками производителей.
+     */
+    private static class RecordingHandler implements AuditHandler {
+
+        final Queue<AuditEvent> events = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void handle(String action, Object[] args) {
+        }
+
+        @Override
+        public void handleBatch(List<AuditEvent> batch) {
+            batch.forEach(event -> events.add(event.copy()));
+        }
+    }
+
+    /**
+     * Задерживает первый пакет до вызова {@link #release()}, чтобы буфер заполнился.
+     */
+    private static class BlockingHandler extends RecordingHandler {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        @Override
+        public void handleBatch(List<AuditEvent> batch) {
+            started.countDown();
+            try {
+                released.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.handleBatch(batch);
+        }
+
+        void awaitStarted() {
+            try {
+                started.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void release() {
+            released.countDown();
+        }
+    }
+}
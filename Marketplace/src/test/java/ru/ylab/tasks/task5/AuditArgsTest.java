@@ -0,0 +1,98 @@
+package ru.ylab.tasks.task5;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import ru.ylab.tasks.task5.audit.annotation.Auditable;
+import ru.ylab.tasks.task5.audit.aspect.AuditAspect;
+import ru.ylab.tasks.task5.audit.event.AuditArgs;
+import ru.ylab.tasks.task5.audit.event.AuditEvent;
+import ru.ylab.tasks.task5.audit.event.AuditPrincipalResolver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditArgsTest {
+
+    @Test
+    @DisplayName("Аргументы аудита: строка должна совпадать с началом Arrays.deepToString")
+    void format_ShouldMatchDeepToStringPrefix() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("k", List.of(1, 2));
+        map.put("n", null);
+        Object[] self = new Object[2];
+        self[0] = "x";
+        self[1] = self;
+        Object[] args = {"alice", 42, new int[]{1, 2, 3}, new Object[]{"a", new long[]{7}}, List.of("p", "q"), map, null, self};
+        String expected = Arrays.deepToString(args);
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(AuditArgs.format(args, 10_000)).isEqualTo(expected);
+        for (int limit = 0; limit <= expected.length(); limit++) {
+            softly.assertThat(AuditArgs.format(args, limit)).as("limit %d", limit).isEqualTo(expected.substring(0, limit));
+        }
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Аргументы аудита: не должны преобразовывать в строку элементы за пределом длины")
+    void format_ShouldStopAtMaxLength_WhenCollectionIsLarge() {
+        AtomicInteger calls = new AtomicInteger();
+        List<Object> products = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            products.add(new Object() {
+                @Override
+                public String toString() {
+                    calls.incrementAndGet();
+                    return "Product[name=Laptop]";
+                }
+            });
+        }
+
+        String value = new AuditEvent("Импорт", new Object[]{products}, null, 0).argsAsString(100);
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(value).hasSize(100).startsWith("[[Product[name=Laptop], ");
+        softly.assertThat(calls.get()).isLessThan(10);
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Аспект аудита: должен заменять запрос сервлета при перехвате, не сохраняя ссылку на него")
+    void audit_ShouldReplaceServletRequest_WithPlaceholder() {
+        AtomicReference<Object[]> captured = new AtomicReference<>();
+        AuditAspect aspect = new AuditAspect((action, args, principal, timestampNanos) -> captured.set(args),
+                AuditPrincipalResolver.NONE);
+        AspectJProxyFactory factory = new AspectJProxyFactory(new ImportService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        ImportService service = factory.getProxy();
+
+        service.importProducts(new MockHttpServletRequest(), "csv");
+        Object[] first = captured.get();
+        service.importProducts(null, "json");
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(first).containsExactly("<HttpServletRequest>", "csv");
+        softly.assertThat(captured.get()).containsExactly(null, "json");
+        softly.assertAll();
+    }
+
+    static class ImportService {
+
+        @Auditable(action = "Массовая загрузка продуктов")
+        public int importProducts(HttpServletRequest request, String format) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package ru.ylab.tasks.task5;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import ru.ylab.tasks.task5.audit.annotation.Auditable;
+import ru.ylab.tasks.task5.audit.aspect.AuditAspect;
+import ru.ylab.tasks.task5.audit.async.AsyncAuditDispatcher;
+import ru.ylab.tasks.task5.audit.async.OverflowPolicy;
+import ru.ylab.tasks.task5.audit.event.AuditPrincipalResolver;
+import ru.ylab.tasks.task5.audit.handler.AuditHandler;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Время и объем памяти, выделяемой потоком вызова, на один вызов метода с @Auditable:
+ * прокси без аспекта, аспект, который только вызывает метод (стоимость самого Spring AOP),
+ * синхронный аудит и асинхронный аудит с заранее созданными ячейками буфера.
+ * Обработчик ничего не записывает, поэтому измеряется только стоимость перехвата и регистрации события.
+ * Запускается только явно: mvn test -Dtest=AuditAspectBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AuditAspectBenchmarkTest {
+
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    @DisplayName("Аудит: стоимость вызова метода с @Auditable без аудита, с синхронным и асинхронным аудитом")
+    void auditableCall_Overhead() {
+        LongAdder handled = new LongAdder();
+        AuditHandler handler = new AuditHandler() {
+            @Override
+            public void handle(String action, Object[] args) {
+                handled.increment();
+            }
+        };
+        AuditPrincipalResolver principal = () -> "admin";
+
+        report("no aspect", measure(proxy(null)::create));
+        report("pass-through aspect", measure(proxy(new PassThroughAspect())::create));
+
+        AuditAspect syncAspect = new AuditAspect(handler);
+        report("sync", measure(proxy(syncAspect)::create));
+
+        try (AsyncAuditDispatcher dispatcher = new AsyncAuditDispatcher(handler, 8192, 256, OverflowPolicy.BLOCK,
+                10, Duration.ofMillis(100), Duration.ofSeconds(5))) {
+            AuditAspect asyncAspect = new AuditAspect(dispatcher::submit, principal);
+            report("async", measure(proxy(asyncAspect)::create));
+        }
+
+        assertThat(handled.sum()).isEqualTo(2L * (WARMUP + ROUNDS * ITERATIONS));
+    }
+
+    private static AuditedService proxy(Object aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new AuditedService());
+        factory.setProxyTargetClass(true);
+        if (aspect != null) factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    /** Возвращает лучшее из ROUNDS среднее время и количество выделенных байт на вызов после прогрева */
+    private static long[] measure(IntSupplier call) {
+        int sink = 0;
+        for (int i = 0; i < WARMUP; i++) sink += call.getAsInt();
+        long bestNanos = Long.MAX_VALUE;
+        long bytes = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) sink += call.getAsInt();
+            bestNanos = Math.min(bestNanos, (System.nanoTime() - start) / ITERATIONS);
+            bytes = (allocatedBytes() - bytesBefore) / ITERATIONS;
+        }
+        assertThat(sink).isNotZero();
+        return new long[]{bestNanos, bytes};
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void report(String mode, long[] result) {
+        System.out.printf("audit=%s avg=%,d ns allocated=%,d B/call%n", mode, result[0], result[1]);
+    }
+
+    @Aspect
+    static class PassThroughAspect {
+
+        @Around("@annotation(ru.ylab.tasks.task5.audit.annotation.Auditable)")
+        public Object proceed(ProceedingJoinPoint pjp) throws Throwable {
+            return pjp.proceed();
+        }
+    }
+
+    static class AuditedService {
+
+        private int counter;
+
+        @Auditable(action = "benchmark")
+        public int create() {
+            return ++counter;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package ru.ylab.tasks.task5;
+
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.ylab.tasks.task5.audit.journal.AuditJournal;
+import ru.ylab.tasks.task5.audit.journal.AuditJournalReader;
+import ru.ylab.tasks.task5.audit.journal.JournalPosition;
+import ru.ylab.tasks.task5.audit.journal.JournalRecord;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+class AuditJournalTest {
+
+    private static final int SEGMENT_SIZE = AuditJournal.MIN_SEGMENT_SIZE;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Журнал аудита: должен читать записанные события и продолжать запись после повторного открытия")
+    void append_ShouldRoundTrip_AndResumeAfterReopen() throws IOException {
+        try (AuditJournal journal = new AuditJournal(dir, SEGMENT_SIZE, 0)) {
+            journal.append(1L, "Вход", "alice", "[alice]");
+            journal.append(2L, "Выход", null, null);
+        }
+        try (AuditJournal journal = new AuditJournal(dir, SEGMENT_SIZE, 0)) {
+            journal.append(3L, "Поиск", "bob", "[lapt]");
+        }
+
+        List<JournalRecord> records = readAll();
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(records).extracting(JournalRecord::timestampNanos).containsExactly(1L, 2L, 3L);
+        softly.assertThat(records).extracting(JournalRecord::action).containsExactly("Вход", "Выход", "Поиск");
+        softly.assertThat(records.get(0).principal()).isEqualTo("alice");
+        softly.assertThat(records.get(1).principal()).isNull();
+        softly.assertThat(records.get(1).args()).isNull();
+        softly.assertThat(records.get(2).args()).isEqualTo("[lapt]");
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Журнал аудита: должен обнулять хвост недописанной записи с нулевой длиной при повторном открытии")
+    void open_ShouldZeroTornTail_WhenTornRecordHasZeroLength() throws IOException {
+        JournalPosition end;
+        try (AuditJournal journal = new AuditJournal(dir, SEGMENT_SIZE, 0)) {
+            journal.append(1L, "Вход", "alice", null);
+            end = journal.position();
+        }
+        Path segment = onlySegment();
+        byte[] garbage = new byte[256];
+        Arrays.fill(garbage, (byte) 0x7F);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // длина записи осталась нулевой, а данные уже записаны
+            channel.write(ByteBuffer.wrap(garbage), end.offset() + 8);
+        }
+
+        JournalPosition afterShortRecord;
+        try (AuditJournal journal = new AuditJournal(dir, SEGMENT_SIZE, 0)) {
+            journal.append(2L, "x", null, null);
+            afterShortRecord = journal.position();
+        }
+
+        byte[] content = Files.readAllBytes(segment);
+        byte[] tail = Arrays.copyOfRange(content, afterShortRecord.offset(), end.offset() + 8 + garbage.length);
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(tail).containsOnly((byte) 0);
+        softly.assertThat(readAll()).extracting(JournalRecord::timestampNanos).containsExactly(1L, 2L);
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Журнал аудита: должен отбрасывать запись с неверной контрольной суммой при повторном открытии")
+    void open_ShouldDiscardRecord_WhenChecksumDoesNotMatch() throws IOException {
+        JournalPosition end;
+        try (AuditJournal journal = new AuditJournal(dir, SEGMENT_SIZE, 0)) {
+            journal.append(1L, "Вход", "alice", null);
+            end = journal.position();
+            journal.append(2L, "Выход", "alice", null);
+        }
+        try (FileChannel channel = FileChannel.open(onlySegment(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), end.offset() + 16);
+        }
+
+        try (AuditJournal journal = new AuditJournal(dir, SEGMENT_SIZE, 0)) {
+            SoftAssertions softly = new SoftAssertions();
+            softly.assertThat(journal.position()).isEqualTo(end);
+            journal.append(3L, "Поиск", null, null);
+            softly.assertThat(readAll()).extracting(JournalRecord::timestampNanos).containsExactly(1L, 3L);
+            softly.assertAll();
+        }
+    }
+
+    @Test
+    @DisplayName("Журнал аудита: должен сохранять записи пакета, пересекающего границу сегментов, и удалять старые сегменты")
+    void append_ShouldKeepRecordsAcrossSegments_WhenBatchRollsUnderForce() throws IOException {
+        String args = "x".repeat(1000);
+        int count = 300;
+        try (AuditJournal journal = new AuditJournal(dir, SEGMENT_SIZE, 3)) {
+            for (int batch = 0; batch < count / 30; batch++) {
+                for (int i = 0; i < 30; i++) journal.append(batch * 30L + i, "Событие", null, args);
+                journal.force();
+            }
+        }
+
+        List<JournalRecord> records = readAll();
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(segments()).hasSize(3);
+        softly.assertThat(records).isNotEmpty();
+        softly.assertThat(records.get(records.size() - 1).timestampNanos()).isEqualTo(count - 1);
+        softly.assertThat(records).extracting(JournalRecord::timestampNanos)
+                .isSorted()
+                .doesNotHaveDuplicates();
+        softly.assertThat(records.get(0).position().segment()).isGreaterThan(0);
+        softly.assertAll();
+    }
+
+    private List<JournalRecord> readAll() throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        try (AuditJournalReader reader = new AuditJournalReader(dir)) {
+            reader.forEach(records::add);
+        }
+        return records;
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> segments = segments();
+        if (segments.size() != 1) throw new IllegalStateException("Expected one segment: " + segments);
+        return segments.get(0);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".journal")).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.ylab.tasks.task5;
+
+import org.assertj.core.api.SoftAssertions;
+import org.instancio.Instancio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import ru.ylab.tasks.task5.dto.request.product.ProductCreateRequest;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.instancio.Select.field;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Проверяет запись событий аудита в таблицу audit_log обработчиком JdbcAuditHandler.
+ * Размер пакета 1, поэтому событие синхронного аудита записывается сразу.
+ */
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "audit.mode=sync",
+        "audit.handler=jdbc",
+        "audit.jdbc.table=marketplace.audit_log",
+        "audit.jdbc.batch-size=1"
+})
+class AuditLogIntegrationTest extends AbstractIntegrationTest {
+
+    @BeforeEach
+    void setUp() {
+        super.setUp();
+        try (Connection conn = dataSource.getConnection();
+             Statement st = conn.createStatement()) {
+            st.execute("DELETE FROM marketplace.audit_log");
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to clean audit log", e);
+        }
+        loginAsAdmin();
+    }
+
+    @Test
+    @DisplayName("Аудит в базе данных: создание продукта должно записываться с действием и пользователем")
+    void createProduct_ShouldWriteAuditRecord() throws Exception {
+        ProductCreateRequest request = Instancio.of(ProductCreateRequest.class)
+                .set(field("price"), "10.00")
+                .create();
+
+        mockMvc.perform(post("/marketplace/products/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        try (Connection conn = dataSource.getConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT action, principal, created_at, args FROM marketplace.audit_log")) {
+            SoftAssertions softly = new SoftAssertions();
+            softly.assertThat(rs.next()).isTrue();
+            softly.assertThat(rs.getString("action")).isEqualTo("product_create");
+            softly.assertThat(rs.getString("principal")).isEqualTo("admin");
+            softly.assertThat(rs.getTimestamp("created_at")).isNotNull();
+            softly.assertThat(rs.getString("args")).contains(request.getName());
+            softly.assertThat(rs.next()).isFalse();
+            softly.assertAll();
+        }
+    }
+}
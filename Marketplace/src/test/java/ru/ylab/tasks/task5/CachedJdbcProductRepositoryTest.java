@@ -0,0 +1,240 @@
+package ru.ylab.tasks.task5;
+
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.ylab.tasks.task5.model.Product;
+import ru.ylab.tasks.task5.repository.CachedJdbcProductRepositoryImpl;
+import ru.ylab.tasks.task5.repository.KeywordIndex;
+import ru.ylab.tasks.task5.repository.ProductRepository;
+import ru.ylab.tasks.task5.service.performance.CacheStats;
+import ru.ylab.tasks.task5.service.performance.LruCache;
+import ru.ylab.tasks.task5.service.product.ProductServiceImpl;
+import ru.ylab.tasks.task5.util.BulkFormat;
+import ru.ylab.tasks.task5.util.FilterKey;
+import ru.ylab.tasks.task5.util.PageRequest;
+import ru.ylab.tasks.task5.util.SearchFilter;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class CachedJdbcProductRepositoryTest {
+
+    private ProductRepository delegate;
+    private CachedJdbcProductRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        List<Product> stored = List.of(
+                new Product(1L, "Laptop", "Electronics", "Apple", new BigDecimal("1500"), "Pro"),
+                new Product(2L, "Phone", "Electronics", "Samsung", new BigDecimal("800"), "Galaxy"),
+                new Product(3L, "Chair", "Furniture", "Ikea", new BigDecimal("100"), "Wooden"));
+
+        delegate = mock(ProductRepository.class);
+        doAnswer(inv -> {
+            Consumer<Product> consumer = inv.getArgument(0);
+            stored.forEach(consumer);
+            return null;
+        }).when(delegate).streamAll(any());
+
+        repository = new CachedJdbcProductRepositoryImpl(delegate);
+        repository.load();
+    }
+
+    @Test
+    @DisplayName("Модель чтения: должна искать по пересечению индексов категории, бренда и цены")
+    void search_ShouldIntersectIndexes() {
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(repository.search(new SearchFilter(null, "electronics", null, new BigDecimal("1000"), null)))
+                .extracting(Product::getId).containsExactly(1L);
+        softly.assertThat(repository.search(new SearchFilter("wood", null, null, null, new BigDecimal("500"))))
+                .extracting(Product::getId).containsExactly(3L);
+        softly.assertThat(repository.findByBrand("SAMSUNG")).extracting(Product::getId).containsExactly(2L);
+        softly.assertThat(repository.findByPriceRange(new BigDecimal("100"), new BigDecimal("800")))
+                .extracting(Product::getId).containsExactlyInAnyOrder(2L, 3L);
+        softly.assertThat(repository.searchPage(new SearchFilter(null, null, null, null, null), PageRequest.of(2, "price", null)))
+                .extracting(Product::getId).containsExactly(3L, 2L);
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Модель чтения: должна обновлять индексы при сквозной записи и удалении")
+    void save_ShouldWriteThroughAndReindex() {
+        Product chair = repository.findById(3L).orElseThrow();
+        chair.setCategory("Office");
+        chair.setPrice(new BigDecimal("2000"));
+        repository.save(chair);
+        repository.deleteById(2L);
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(repository.findByCategory("Furniture")).isEmpty();
+        softly.assertThat(repository.findByCategory("office")).extracting(Product::getId).containsExactly(3L);
+        softly.assertThat(repository.findById(2L)).isEmpty();
+        softly.assertThat(repository.getMinPrice()).contains(new BigDecimal("1500"));
+        softly.assertThat(repository.getMaxPrice()).contains(new BigDecimal("2000"));
+        softly.assertAll();
+        verify(delegate).save(chair);
+        verify(delegate).deleteById(2L);
+    }
+
+    @Test
+    @DisplayName("Модель чтения: читатели не должны терять товар, пока его обновляют")
+    void save_ShouldKeepProductVisible_WhileUpdating() throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger misses = new AtomicInteger();
+        SearchFilter byBrand = new SearchFilter(null, null, "apple", null, null);
+        SearchFilter byKeyword = new SearchFilter("laptop", null, null, null, null);
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                if (repository.findById(1L).isEmpty()) misses.incrementAndGet();
+                if (repository.search(byBrand).isEmpty()) misses.incrementAndGet();
+                if (repository.search(byKeyword).isEmpty()) misses.incrementAndGet();
+            }
+        });
+        reader.start();
+        try {
+            for (int i = 0; i < 20_000; i++) {
+                repository.save(new Product(1L, "Laptop", i % 2 == 0 ? "Electronics" : "Computers", "Apple",
+                        new BigDecimal(1500 + i % 7), "Pro " + i));
+            }
+        } finally {
+            running.set(false);
+            reader.join();
+        }
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(misses.get()).isZero();
+        softly.assertThat(repository.search(new SearchFilter("pro 19999", null, null, null, null)))
+                .extracting(Product::getId).containsExactly(1L);
+        softly.assertThat(repository.search(new SearchFilter("18", null, null, null, null))).isEmpty();
+        softly.assertThat(repository.findByCategory("electronics")).extracting(Product::getId).containsExactly(2L);
+        softly.assertThat(repository.findByPriceRange(new BigDecimal("1500"), new BigDecimal("1510")))
+                .extracting(Product::getPrice).containsExactly(new BigDecimal(1500 + 19_999 % 7));
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Модель чтения: читатели должны видеть прежний каталог, пока он перезагружается после массовой загрузки")
+    void importAll_ShouldServePreviousCatalog_WhileReloading() throws InterruptedException {
+        List<Product> imported = List.of(
+                new Product(1L, "Laptop", "Electronics", "Apple", new BigDecimal("1500"), "Pro"),
+                new Product(2L, "Phone", "Electronics", "Samsung", new BigDecimal("800"), "Galaxy"),
+                new Product(3L, "Chair", "Furniture", "Ikea", new BigDecimal("100"), "Wooden"),
+                new Product(4L, "Desk", "Furniture", "Ikea", new BigDecimal("300"), "Oak"));
+        doAnswer(inv -> {
+            Consumer<Product> consumer = inv.getArgument(0);
+            for (Product product : imported) {
+                consumer.accept(product);
+                Thread.sleep(20);
+            }
+            return null;
+        }).when(delegate).streamAll(any());
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger misses = new AtomicInteger();
+        SearchFilter byCategory = new SearchFilter(null, "electronics", null, null, null);
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                if (repository.findAll().size() < 3) misses.incrementAndGet();
+                if (repository.search(byCategory).size() != 2) misses.incrementAndGet();
+                if (repository.getMinPrice().isEmpty()) misses.incrementAndGet();
+            }
+        });
+        reader.start();
+        try {
+            repository.importAll(new StringReader(""), BulkFormat.CSV);
+        } finally {
+            running.set(false);
+            reader.join();
+        }
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(misses.get()).isZero();
+        softly.assertThat(repository.findAll()).extracting(Product::getId).containsExactly(1L, 2L, 3L, 4L);
+        softly.assertThat(repository.search(new SearchFilter("oak", null, null, null, null)))
+                .extracting(Product::getId).containsExactly(4L);
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Индекс ключевых слов: поиск по префиксу не должен падать, пока единственный подходящий терм удаляется")
+    void keywordSearch_ShouldNotFail_WhenOnlyMatchingTermIsRemovedConcurrently() throws InterruptedException {
+        KeywordIndex index = new KeywordIndex();
+        Product gadget = new Product(10L, "Zzgadget", "Misc", "Acme", BigDecimal.ONE, null);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            while (running.get()) {
+                index.add(gadget);
+                index.remove(gadget);
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 200_000 && failure.get() == null; i++) {
+                try {
+                    assertThat(index.search("zzg")).isSubsetOf(10L);
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+
+        assertThat(failure.get()).isNull();
+    }
+
+    @Test
+    @DisplayName("Кэш поиска: должен вытеснять результат запроса со знаками препинания при создании подходящего товара")
+    void create_ShouldInvalidatePunctuatedKeyword_WhenNewProductMatchesByPrefix() {
+        ProductServiceImpl service = new ProductServiceImpl(repository, new LruCache<FilterKey, List<Product>>(16));
+        SearchFilter filter = new SearchFilter(" lapt. ", null, null, null, null);
+
+        List<Product> before = service.search(filter);
+        service.create(new Product(4L, "Laptop Air", "Electronics", "Apple", new BigDecimal("1200"), "Light"));
+        List<Product> after = service.search(filter);
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(before).extracting(Product::getId).containsExactly(1L);
+        softly.assertThat(after).extracting(Product::getId).containsExactly(1L, 4L);
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Кэш поиска: большой пакет должен очищать кеш целиком, малый - только подходящие результаты")
+    void createAll_ShouldClearCache_WhenBatchAboveThreshold() {
+        LruCache<FilterKey, List<Product>> cache = new LruCache<>(16);
+        ProductServiceImpl service = new ProductServiceImpl(repository, cache);
+        service.search(new SearchFilter(null, "electronics", null, null, null));
+        service.search(new SearchFilter(null, "furniture", null, null, null));
+
+        service.createAll(List.of(new Product(4L, "Desk", "Furniture", "Ikea", new BigDecimal("300"), null)));
+        CacheStats afterSmall = cache.stats();
+        List<Product> bulk = new ArrayList<>();
+        for (long id = 5; id < 6 + ProductServiceImpl.INVALIDATE_ALL_THRESHOLD; id++) {
+            bulk.add(new Product(id, "Cable " + id, "Accessories", "Ugreen", BigDecimal.TEN, null));
+        }
+        service.createAll(bulk);
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(afterSmall.invalidations()).isEqualTo(1);
+        softly.assertThat(afterSmall.size()).isEqualTo(1);
+        softly.assertThat(cache.stats().invalidations()).isEqualTo(1);
+        softly.assertThat(cache.size()).isZero();
+        softly.assertAll();
+    }
+}
@@ -0,0 +1,74 @@
+package ru.ylab.tasks.task5;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.ylab.tasks.task5.model.Product;
+import ru.ylab.tasks.task5.repository.KeywordIndex;
+import ru.ylab.tasks.task5.util.SearchFilter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение поиска по ключевому слову линейным перебором ({@link SearchFilter#matches})
+ * и по инвертированному индексу ({@link KeywordIndex}).
+ * Запускается только явно: mvn test -Dtest=KeywordSearchBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class KeywordSearchBenchmarkTest {
+
+    private static final String[] WORDS = {
+            "laptop", "phone", "tablet", "monitor", "keyboard", "mouse", "chair", "desk", "lamp", "camera",
+            "speaker", "headphones", "router", "printer", "scanner", "watch", "charger", "cable", "case", "stand"
+    };
+    private static final String[] BRANDS = {"Apple", "Samsung", "Lenovo", "Asus", "Ikea", "Sony", "Xiaomi", "Logitech"};
+    private static final String[] QUERIES = {"lapt", "sony", "wireless", "qwerty"};
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 20;
+
+    @ParameterizedTest(name = "{0} товаров")
+    @ValueSource(ints = {10_000, 100_000, 1_000_000})
+    @DisplayName("Поиск по ключевому слову: инвертированный индекс против линейного перебора")
+    void keywordSearch_IndexVersusLinearScan(int size) {
+        List<Product> products = generate(size);
+        KeywordIndex index = new KeywordIndex();
+        products.forEach(index::add);
+
+        for (String query : QUERIES) {
+            SearchFilter filter = new SearchFilter(query, null, null, null, null);
+            long scanNanos = measure(() -> products.stream().filter(filter::matches).count());
+            long indexNanos = measure(() -> index.search(query).size());
+
+            System.out.printf("size=%,d query=%s scan=%,d us index=%,d us speedup=%.1fx%n",
+                    size, query, scanNanos / 1_000, indexNanos / 1_000, (double) scanNanos / Math.max(indexNanos, 1));
+            assertThat(index.search(query)).hasSize((int) products.stream().filter(filter::matches).count());
+        }
+    }
+
+    /** Возвращает среднее время одного выполнения после прогрева */
+    private static long measure(Runnable action) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) action.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) action.run();
+        return (System.nanoTime() - start) / MEASURED_ROUNDS;
+    }
+
+    private static List<Product> generate(int size) {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            String description = "Model " + random.nextInt(10_000) + " " + WORDS[random.nextInt(WORDS.length)]
+                    + (random.nextInt(10) == 0 ? " wireless" : "");
+            products.add(new Product(id, name, "Category" + random.nextInt(50), BRANDS[random.nextInt(BRANDS.length)],
+                    BigDecimal.valueOf(random.nextInt(100_000), 2), description));
+        }
+        return products;
+    }
+}
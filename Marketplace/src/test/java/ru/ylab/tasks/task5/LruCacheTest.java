@@ -0,0 +1,166 @@
+package ru.ylab.tasks.task5;
+
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.ylab.tasks.task5.service.performance.CacheStats;
+import ru.ylab.tasks.task5.service.performance.LruCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class LruCacheTest {
+
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 200_000;
+    private static final int KEY_SPACE = 1_000;
+
+    @Test
+    @DisplayName("LRU-кеш: должен вытеснять давно не использованный элемент при переполнении")
+    void put_ShouldEvictLeastRecentlyUsed_WhenFull() {
+        LruCache<String, Integer> cache = new LruCache<>(2, 1);
+
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(cache.get("a")).isEqualTo(1);
+        softly.assertThat(cache.get("b")).isNull();
+        softly.assertThat(cache.get("c")).isEqualTo(3);
+        softly.assertThat(cache.size()).isEqualTo(2);
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("LRU-кеш: не должен сохранять значение, загруженное до инвалидации, которая прошла во время загрузки")
+    void get_ShouldNotCacheLoadedValue_WhenInvalidatedDuringLoad() {
+        LruCache<String, Integer> cache = new LruCache<>(4, 1);
+        AtomicInteger loads = new AtomicInteger();
+
+        Integer stale = cache.get("laptop", key -> {
+            loads.incrementAndGet();
+            // запись изменила товар и удалила подходящие результаты, пока загрузчик читал старые данные
+            cache.invalidateIf(k -> k.startsWith("lap"));
+            return 1;
+        });
+        Integer fresh = cache.get("laptop", key -> {
+            loads.incrementAndGet();
+            return 2;
+        });
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(stale).isEqualTo(1);
+        softly.assertThat(fresh).isEqualTo(2);
+        softly.assertThat(cache.get("laptop")).isEqualTo(2);
+        softly.assertThat(loads.get()).isEqualTo(2);
+        softly.assertThat(cache.stats().puts()).isEqualTo(1);
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("LRU-кеш: условие инвалидации не должно выполняться под блокировкой сегмента")
+    void invalidateIf_ShouldNotBlockReaders_WhileEvaluatingCondition() {
+        LruCache<String, Integer> cache = new LruCache<>(4, 1);
+        cache.put("laptop", 1);
+        cache.put("phone", 2);
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            int removed = cache.invalidateIf(key -> {
+                // читатель того же сегмента должен получить значение, пока условие проверяется
+                Future<Integer> read = reader.submit(() -> cache.get("phone"));
+                try {
+                    return read.get(5, TimeUnit.SECONDS) == 2 && key.equals("laptop");
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            SoftAssertions softly = new SoftAssertions();
+            softly.assertThat(removed).isEqualTo(1);
+            softly.assertThat(cache.get("laptop")).isNull();
+            softly.assertThat(cache.get("phone")).isEqualTo(2);
+            softly.assertAll();
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("LRU-кеш: должен удалять при инвалидации только подходящие ключи и вести счетчики")
+    void invalidateIf_ShouldRemoveOnlyMatchingKeys() {
+        LruCache<String, Integer> cache = new LruCache<>(2, 1);
+
+        cache.put("laptop", 1);
+        cache.put("phone", 2);
+        cache.put("tablet", 3);
+        cache.get("phone");
+        cache.get("laptop");
+        int removed = cache.invalidateIf(key -> key.startsWith("t"));
+
+        CacheStats stats = cache.stats();
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(removed).isEqualTo(1);
+        softly.assertThat(cache.get("phone")).isEqualTo(2);
+        softly.assertThat(stats.hits()).isEqualTo(1);
+        softly.assertThat(stats.misses()).isEqualTo(1);
+        softly.assertThat(stats.evictions()).isEqualTo(1);
+        softly.assertThat(stats.invalidations()).isEqualTo(1);
+        softly.assertThat(stats.size()).isEqualTo(1);
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("LRU-кеш: должен сохранять корректность и емкость при конкурентных get/put/clear")
+    void concurrentAccess_ShouldKeepCacheConsistent() throws Exception {
+        int capacity = 64;
+        LruCache<Integer, Integer> cache = new LruCache<>(capacity, 8);
+        AtomicInteger wrongValues = new AtomicInteger();
+        AtomicInteger maxObservedSize = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    int key = random.nextInt(KEY_SPACE);
+                    int op = random.nextInt(100);
+                    if (op < 70) {
+                        Integer value = cache.get(key);
+                        if (value != null && value != key * 31) wrongValues.incrementAndGet();
+                    } else if (op < 99) {
+                        cache.put(key, key * 31);
+                    } else if (random.nextInt(100) == 0) {
+                        cache.clear();
+                    } else {
+                        maxObservedSize.accumulateAndGet(cache.size(), Math::max);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(wrongValues.get()).as("значения не должны перепутываться между ключами").isZero();
+        softly.assertThat(maxObservedSize.get()).isLessThanOrEqualTo(capacity);
+        softly.assertThat(cache.size()).isLessThanOrEqualTo(capacity);
+        softly.assertAll();
+    }
+}
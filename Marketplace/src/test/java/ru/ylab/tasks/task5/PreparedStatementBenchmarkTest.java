@@ -0,0 +1,75 @@
+package ru.ylab.tasks.task5;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.context.ActiveProfiles;
+import ru.ylab.tasks.task5.constant.Role;
+import ru.ylab.tasks.task5.model.Product;
+import ru.ylab.tasks.task5.model.User;
+import ru.ylab.tasks.task5.repository.JdbcProductRepositoryImpl;
+import ru.ylab.tasks.task5.repository.JdbcUserRepositoryImpl;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Задержка findById и findByLogin без серверных prepared statements (prepareThreshold=0,
+ * каждый запрос разбирается и планируется заново) и с ними (prepareThreshold=1).
+ * Запускается только явно: mvn test -Dtest=PreparedStatementBenchmarkTest -Dbenchmark=true
+ */
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PreparedStatementBenchmarkTest extends AbstractIntegrationTest {
+
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 20_000;
+
+    @Test
+    @DisplayName("Prepared statements: точечные запросы с серверной подготовкой против разбора на каждый вызов")
+    void pointLookups_WithAndWithoutServerPreparedStatements() {
+        Product product = new Product("Laptop", "Electronics", "Lenovo", new BigDecimal("999.99"), "Benchmark");
+        productService.create(product);
+        createTestUser("bench", "bench123", Role.USER);
+
+        for (int threshold : new int[]{0, 1}) {
+            try (HikariDataSource ds = dataSource(threshold)) {
+                JdbcProductRepositoryImpl products = new JdbcProductRepositoryImpl(ds);
+                JdbcUserRepositoryImpl users = new JdbcUserRepositoryImpl(ds);
+
+                assertThat(products.findById(product.getId())).isPresent();
+                assertThat(users.findByLogin("bench")).map(User::getLogin).contains("bench");
+
+                report(threshold, "findById", measure(() -> products.findById(product.getId())));
+                report(threshold, "findByLogin", measure(() -> users.findByLogin("bench")));
+            }
+        }
+    }
+
+    /** Возвращает среднее время одного вызова в наносекундах после прогрева */
+    private static long measure(Runnable call) {
+        for (int i = 0; i < WARMUP; i++) call.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) call.run();
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private static void report(int threshold, String method, long nanos) {
+        System.out.printf("prepareThreshold=%d method=%s avg=%,d us%n", threshold, method, nanos / 1_000);
+    }
+
+    private static HikariDataSource dataSource(int prepareThreshold) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(postgreSQLContainer.getJdbcUrl());
+        config.setUsername(postgreSQLContainer.getUsername());
+        config.setPassword(postgreSQLContainer.getPassword());
+        config.setMaximumPoolSize(1);
+        config.setSchema("marketplace");
+        config.addDataSourceProperty("prepareThreshold", prepareThreshold);
+        config.addDataSourceProperty("preparedStatementCacheQueries", 256);
+        return new HikariDataSource(config);
+    }
+}
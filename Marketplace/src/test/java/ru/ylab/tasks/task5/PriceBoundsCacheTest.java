@@ -0,0 +1,56 @@
+package ru.ylab.tasks.task5;
+
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.ylab.tasks.task5.repository.PriceBoundsCache;
+import ru.ylab.tasks.task5.repository.PriceBoundsCache.PriceBounds;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class PriceBoundsCacheTest {
+
+    @Test
+    @DisplayName("Границы цен: должны загружаться один раз и расширяться при добавлении без перезагрузки")
+    void onAdded_ShouldWidenBounds_WithoutReload() {
+        AtomicInteger loads = new AtomicInteger();
+        PriceBoundsCache cache = new PriceBoundsCache(() -> {
+            loads.incrementAndGet();
+            return new PriceBounds(new BigDecimal("10"), new BigDecimal("100"));
+        });
+
+        cache.get();
+        cache.onAdded(new BigDecimal("5"));
+        cache.onAdded(new BigDecimal("500"));
+        PriceBounds bounds = cache.get();
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(bounds.min()).isEqualByComparingTo("5");
+        softly.assertThat(bounds.max()).isEqualByComparingTo("500");
+        softly.assertThat(loads.get()).isEqualTo(1);
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Границы цен: должны сбрасываться только при удалении граничной цены")
+    void onRemoved_ShouldReload_OnlyWhenBoundRemoved() {
+        AtomicInteger loads = new AtomicInteger();
+        PriceBoundsCache cache = new PriceBoundsCache(() -> {
+            loads.incrementAndGet();
+            return new PriceBounds(new BigDecimal("10"), new BigDecimal("100"));
+        });
+
+        cache.get();
+        cache.onRemoved(new BigDecimal("50"));
+        cache.get();
+        int afterInnerRemove = loads.get();
+        cache.onRemoved(new BigDecimal("100.00"));
+        cache.get();
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(afterInnerRemove).isEqualTo(1);
+        softly.assertThat(loads.get()).isEqualTo(2);
+        softly.assertAll();
+    }
+}
@@ -0,0 +1,71 @@
+package ru.ylab.tasks.task5;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+import ru.ylab.tasks.task5.model.Product;
+import ru.ylab.tasks.task5.repository.ProductRepository;
+import ru.ylab.tasks.task5.util.BulkFormat;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение скорости загрузки каталога: построчный save(), пакетный saveAll() и COPY через importAll().
+ * Запускается только явно: mvn test -Dtest=ProductBulkIngestBenchmarkTest -Dbenchmark=true
+ */
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ProductBulkIngestBenchmarkTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @ParameterizedTest(name = "{0} товаров")
+    @ValueSource(ints = {10_000, 100_000})
+    @DisplayName("Массовая загрузка: COPY против пакетной и построчной вставки")
+    void ingest_CopyVersusBatchVersusRowByRow(int size) {
+        List<Product> products = generate(size);
+        StringBuilder csv = new StringBuilder("id,name,category,brand,price,description\n");
+        products.forEach(p -> csv.append(',').append(p.getName()).append(',').append(p.getCategory()).append(',')
+                .append(p.getBrand()).append(',').append(p.getPrice()).append(',').append(p.getDescription()).append('\n'));
+
+        long start = System.nanoTime();
+        products.forEach(productRepository::save);
+        report(size, "save()", System.nanoTime() - start);
+        cleanDatabase();
+
+        List<Product> batch = generate(size);
+        start = System.nanoTime();
+        productRepository.saveAll(batch);
+        report(size, "saveAll()", System.nanoTime() - start);
+        cleanDatabase();
+
+        start = System.nanoTime();
+        long imported = productRepository.importAll(new StringReader(csv.toString()), BulkFormat.CSV);
+        report(size, "COPY", System.nanoTime() - start);
+
+        assertThat(imported).isEqualTo(size);
+    }
+
+    private static void report(int size, String method, long nanos) {
+        System.out.printf("size=%,d method=%s time=%,d ms rate=%,.0f rows/s%n",
+                size, method, nanos / 1_000_000, size / (nanos / 1e9));
+    }
+
+    private static List<Product> generate(int size) {
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(new Product("Product " + i, "Category " + (i % 50), "Brand " + (i % 20),
+                    BigDecimal.valueOf(i % 100_000, 2), "Description " + i));
+        }
+        return products;
+    }
+}
@@ -186,4 +186,146 @@ class ProductControllerIntegrationTest extends AbstractIntegrationTest {
 
         softly.assertAll();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Получение продуктов постранично: должен отдавать страницы по курсору без повторов")
+    void getAllProducts_ShouldReturnPagesByCursor() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            Product product = Instancio.of(Product.class)
+                    .ignore(field("id"))
+                    .set(field("name"), "Product " + i)
+                    .set(field("price"), new BigDecimal("10.00"))
+                    .create();
+            productService.create(product);
+        }
+
+        String firstPage = mockMvc.perform(get("/marketplace/products/list").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(2))
+                .andExpect(jsonPath("$.products[0].name").value("Product 1"))
+                .andExpect(jsonPath("$.products[1].name").value("Product 2"))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+
+        String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        mockMvc.perform(get("/marketplace/products/list").param("limit", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(1))
+                .andExpect(jsonPath("$.products[0].name").value("Product 3"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Пакетное создание продуктов: должен создать все продукты и вернуть их id по порядку")
+    void createProducts_ShouldCreateAll_WhenValidRequest() throws Exception {
+        List<ProductCreateRequest> requests = Instancio.ofList(ProductCreateRequest.class)
+                .size(5)
+                .set(field("price"), "49.99")
+                .create();
+
+        mockMvc.perform(post("/marketplace/products/create/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.productIds.length()").value(5))
+                .andExpect(jsonPath("$.message").value("Products created successfully"));
+
+        List<Product> products = productService.getAll();
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(products).hasSize(5);
+        softly.assertThat(products).extracting(Product::getName)
+                .containsExactlyInAnyOrderElementsOf(requests.stream().map(ProductCreateRequest::getName).toList());
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Пакетное создание продуктов: не должен сохранять ничего, если один из продуктов невалиден")
+    void createProducts_ShouldCreateNothing_WhenOneIsInvalid() throws Exception {
+        List<ProductCreateRequest> requests = Instancio.ofList(ProductCreateRequest.class)
+                .size(3)
+                .set(field("price"), "49.99")
+                .create();
+        requests.get(1).setPrice("not a price");
+
+        mockMvc.perform(post("/marketplace/products/create/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isBadRequest());
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(productService.getAll()).isEmpty();
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Массовая загрузка продуктов: должен добавить новые и обновить существующие продукты из CSV")
+    void importProducts_ShouldUpsertProducts_WhenCsvBody() throws Exception {
+        Product existing = Instancio.of(Product.class)
+                .ignore(field("id"))
+                .set(field("price"), new BigDecimal("10.00"))
+                .create();
+        productService.create(existing);
+
+        String csv = "id,name,category,brand,price,description\n"
+                + existing.getId() + ",Renamed,Laptops,Lenovo,15.50,\"Updated, with comma\"\n"
+                + ",Phone,Phones,Samsung,799.99,New phone\n";
+
+        mockMvc.perform(post("/marketplace/products/import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+
+        List<Product> products = productService.getAll();
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(products).hasSize(2);
+        softly.assertThat(products).extracting(Product::getName).containsExactlyInAnyOrder("Renamed", "Phone");
+        softly.assertThat(products).extracting(Product::getDescription).contains("Updated, with comma");
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Массовая загрузка продуктов: должен вернуть 400 при некорректной цене или повторяющемся id")
+    void importProducts_ShouldReturnBadRequest_WhenDataInvalid() throws Exception {
+        String badPrice = "id,name,category,brand,price,description\n"
+                + ",Phone,Phones,Samsung,not-a-price,New phone\n";
+        String duplicateId = "id,name,category,brand,price,description\n"
+                + "7,Phone,Phones,Samsung,799.99,First\n"
+                + "7,Phone,Phones,Samsung,699.99,Second\n";
+
+        mockMvc.perform(post("/marketplace/products/import")
+                        .contentType("text/csv")
+                        .content(badPrice))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/marketplace/products/import")
+                        .contentType("text/csv")
+                        .content(duplicateId))
+                .andExpect(status().isBadRequest());
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(productService.getAll()).isEmpty();
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Массовая загрузка продуктов: строки без id должны получать id подряд из одного блока последовательности")
+    void importProducts_ShouldAssignConsecutiveIds_WhenRowsWithoutId() throws Exception {
+        String csv = "id,name,category,brand,price,description\n"
+                + ",First,Phones,Samsung,100.00,\n"
+                + ",Second,Phones,Samsung,200.00,\n"
+                + ",Third,Phones,Samsung,300.00,\n";
+
+        mockMvc.perform(post("/marketplace/products/import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(3));
+
+        List<Long> ids = productService.getAll().stream().map(Product::getId).sorted().toList();
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(ids).hasSize(3);
+        softly.assertThat(ids.get(2) - ids.get(0)).isEqualTo(2);
+        softly.assertAll();
+    }
+}
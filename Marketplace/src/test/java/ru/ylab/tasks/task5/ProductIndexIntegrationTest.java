@@ -0,0 +1,94 @@
+package ru.ylab.tasks.task5;
+
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+import ru.ylab.tasks.task5.model.Product;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static ru.ylab.tasks.task5.constant.SqlConstants.*;
+
+/**
+ * Проверяет по EXPLAIN, что запросы к товарам используют индексы.
+ * На маленькой таблице планировщик предпочитает последовательное чтение,
+ * поэтому оно отключается параметром enable_seqscan.
+ */
+@ActiveProfiles("test")
+class ProductIndexIntegrationTest extends AbstractIntegrationTest {
+
+    @BeforeEach
+    void setUp() {
+        super.setUp();
+        for (int i = 0; i < 50; i++) {
+            productService.create(new Product("Laptop " + i, "Electronics", i % 2 == 0 ? "Apple" : "Lenovo",
+                    new BigDecimal(100 + i), "Description " + i));
+        }
+    }
+
+    @Test
+    @DisplayName("Индексы: запросы по категории, бренду и цене должны использовать индексы")
+    void filterQueries_ShouldUseIndexScans() throws SQLException {
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(explain(SELECT_PRODUCTS_BY_CATEGORY, "electronics"))
+                .contains("idx_products_category_brand_price");
+        softly.assertThat(explain(SELECT_PRODUCTS_BY_BRAND, "apple"))
+                .contains("idx_products_brand");
+        softly.assertThat(explain(SELECT_PRODUCTS_BY_PRICE_RANGE, new BigDecimal("110"), new BigDecimal("120")))
+                .contains("idx_products_price_id");
+        softly.assertThat(explain(SELECT_PRICE_BOUNDS))
+                .contains("idx_products_price_id");
+        softly.assertThat(explain(SEARCH_PRODUCTS_BASE + SEARCH_BY_CATEGORY + SEARCH_BY_BRAND + SEARCH_BY_PRICE_RANGE,
+                        "electronics", "apple", new BigDecimal("110"), new BigDecimal("120")))
+                .contains("idx_products_category_brand_price");
+        softly.assertThat(explain(SEARCH_PRODUCTS_BASE + SEARCH_AFTER_PRICE_ID + SEARCH_ORDER_BY_PRICE_ID + SEARCH_LIMIT,
+                        new BigDecimal("110"), 11L, 20))
+                .contains("idx_products_price_id");
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Индексы: поиск подстроки по ключевому слову должен использовать триграммные индексы")
+    void keywordQuery_ShouldUseTrigramIndexes() throws SQLException {
+        String pattern = "%lapt%";
+
+        String plan = explain(SEARCH_PRODUCTS_BASE + SEARCH_BY_KEYWORD, pattern, pattern, pattern, pattern);
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(plan).contains("idx_products_name_trgm");
+        softly.assertThat(plan).doesNotContain("Seq Scan");
+        softly.assertAll();
+    }
+
+    /**
+     * Возвращает текстовый план запроса с подставленными параметрами.
+     */
+    private String explain(String sql, Object... params) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("SET enable_seqscan = off");
+            }
+            try (PreparedStatement ps = conn.prepareStatement("EXPLAIN " + sql)) {
+                for (int i = 0; i < params.length; i++) {
+                    ps.setObject(i + 1, params[i]);
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) plan.append(rs.getString(1)).append('\n');
+                }
+                return plan.toString();
+            } finally {
+                try (Statement st = conn.createStatement()) {
+                    st.execute("RESET enable_seqscan");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package ru.ylab.tasks.task5;
+
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import ru.ylab.tasks.task5.repository.jdbc.QueryExecutor;
+import ru.ylab.tasks.task5.repository.jdbc.QueryObserver;
+import ru.ylab.tasks.task5.repository.jdbc.RowMapper;
+import ru.ylab.tasks.task5.repository.jdbc.StatementBinder;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QueryExecutorTest {
+
+    private static final int ROWS = 3;
+
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final List<String> observed = new ArrayList<>();
+    private final List<Long> observedNanos = new ArrayList<>();
+    private Connection conn;
+    private ResultSet rs;
+    private QueryExecutor executor;
+
+    /**
+     * Эмулирует результат из ROWS строк с единственным столбцом "value" под номером 1.
+     */
+    @BeforeEach
+    void setUp() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        conn = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        rs = mock(ResultSet.class);
+
+        when(dataSource.getConnection()).thenReturn(conn);
+        when(conn.getAutoCommit()).thenReturn(true);
+        when(conn.prepareStatement(anyString())).thenReturn(ps);
+        when(conn.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(ps);
+        when(ps.executeQuery()).thenAnswer(inv -> {
+            cursor.set(0);
+            return rs;
+        });
+        when(rs.next()).thenAnswer(inv -> cursor.incrementAndGet() <= ROWS);
+        when(rs.findColumn("value")).thenReturn(1);
+        when(rs.getInt(anyInt())).thenAnswer(inv -> cursor.get());
+
+        QueryObserver observer = (sql, nanos, rows, success) -> {
+            observed.add(sql + ":" + rows + ":" + success);
+            observedNanos.add(nanos);
+        };
+        executor = new QueryExecutor(dataSource, 100, observer);
+    }
+
+    @Test
+    @DisplayName("Запрос: номера столбцов должны определяться по имени один раз для текста запроса")
+    void query_ShouldResolveColumnsOncePerSql() throws SQLException {
+        RowMapper<Integer> mapper = RowMapper.of((r, c) -> r.getInt(c[0]), "value");
+
+        List<Integer> first = executor.query("SELECT value", StatementBinder.NONE, mapper);
+        List<Integer> second = executor.query("SELECT value", StatementBinder.NONE, mapper);
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(first).containsExactly(1, 2, 3);
+        softly.assertThat(second).containsExactly(1, 2, 3);
+        softly.assertThat(observed).containsExactly("SELECT value:3:true", "SELECT value:3:true");
+        softly.assertAll();
+        verify(rs, times(1)).findColumn("value");
+    }
+
+    @Test
+    @DisplayName("Транзакция: должна откатываться и восстанавливать autocommit при ошибке")
+    void inTransaction_ShouldRollback_WhenCallbackFails() throws SQLException {
+        assertThatThrownBy(() -> executor.inTransaction(c -> {
+            throw new SQLException("boom");
+        })).isInstanceOf(SQLException.class);
+
+        verify(conn).rollback();
+        verify(conn, never()).commit();
+        verify(conn).setAutoCommit(true);
+    }
+
+    @Test
+    @DisplayName("Изменение: наблюдатель должен получать запрос с ошибкой без строк")
+    void update_ShouldReportFailure_WhenStatementFails() throws SQLException {
+        when(conn.prepareStatement("UPDATE broken")).thenThrow(new SQLException("boom"));
+
+        assertThatThrownBy(() -> executor.update("UPDATE broken", StatementBinder.NONE))
+                .isInstanceOf(SQLException.class);
+
+        assertThat(observed).containsExactly("UPDATE broken:0:false");
+    }
+
+    @Test
+    @DisplayName("Потоковое чтение: длительность запроса не должна включать время работы обработчика строк")
+    void stream_ShouldExcludeConsumerTime_FromObservedDuration() throws SQLException {
+        RowMapper<Integer> mapper = RowMapper.of((r, c) -> r.getInt(c[0]), "value");
+        List<Integer> streamed = new ArrayList<>();
+
+        executor.stream("SELECT value", StatementBinder.NONE, mapper, value -> {
+            streamed.add(value);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(streamed).containsExactly(1, 2, 3);
+        softly.assertThat(observed).containsExactly("SELECT value:3:true");
+        softly.assertThat(observedNanos.get(0)).isLessThan(100_000_000L);
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Потоковое чтение: должно откатывать транзакцию и сохранять исходную ошибку, если обработчик упал")
+    void stream_ShouldRollbackAndKeepCause_WhenConsumerFails() throws SQLException {
+        RowMapper<Integer> mapper = RowMapper.of((r, c) -> r.getInt(c[0]), "value");
+        UncheckedIOException disconnected = new UncheckedIOException(new IOException("Broken pipe"));
+        doThrow(new SQLException("restore failed")).when(conn).setAutoCommit(true);
+
+        assertThatThrownBy(() -> executor.stream("SELECT value", StatementBinder.NONE, mapper, value -> {
+            throw disconnected;
+        })).isSameAs(disconnected);
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(disconnected.getSuppressed()).extracting(Throwable::getMessage).containsExactly("restore failed");
+        softly.assertThat(observed).containsExactly("SELECT value:0:false");
+        softly.assertAll();
+        InOrder order = inOrder(conn);
+        order.verify(conn).setAutoCommit(false);
+        order.verify(conn).rollback();
+        order.verify(conn).setAutoCommit(true);
+        verify(conn, never()).commit();
+    }
+}
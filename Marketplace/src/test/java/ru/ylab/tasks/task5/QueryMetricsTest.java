@@ -0,0 +1,58 @@
+package ru.ylab.tasks.task5;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.ylab.tasks.task5.constant.SqlConstants;
+import ru.ylab.tasks.task5.repository.jdbc.QueryMetrics;
+import ru.ylab.tasks.task5.repository.jdbc.StatementNames;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static ru.ylab.tasks.task5.constant.SqlConstants.*;
+
+class QueryMetricsTest {
+
+    private final StatementNames names = new StatementNames(SqlConstants.class);
+
+    @Test
+    @DisplayName("Имена запросов: должны совпадать с именами констант, динамический поиск - с базовым запросом")
+    void nameOf_ShouldResolveConstantName() {
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(names.nameOf(SELECT_PRODUCT_BY_ID)).isEqualTo("SELECT_PRODUCT_BY_ID");
+        softly.assertThat(names.nameOf(SELECT_USER_BY_LOGIN)).isEqualTo("SELECT_USER_BY_LOGIN");
+        softly.assertThat(names.nameOf(SEARCH_PRODUCTS_BASE + SEARCH_BY_BRAND + SEARCH_ORDER_BY_ID + SEARCH_LIMIT))
+                .isEqualTo("SEARCH_PRODUCTS_BASE");
+        softly.assertThat(names.nameOf("SELECT 1")).isEqualTo(StatementNames.UNKNOWN);
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Метрики запросов: должны записывать время и строки по имени запроса и результату")
+    void onQuery_ShouldRecordTimerAndRowsPerStatement() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        QueryMetrics metrics = new QueryMetrics(registry, names, Duration.ofMillis(200));
+
+        metrics.onQuery(SELECT_ALL_PRODUCTS, TimeUnit.MILLISECONDS.toNanos(4), 10, true);
+        metrics.onQuery(SELECT_ALL_PRODUCTS, TimeUnit.MILLISECONDS.toNanos(6), 20, true);
+        metrics.onQuery(SELECT_ALL_PRODUCTS, TimeUnit.MILLISECONDS.toNanos(300), 0, false);
+
+        Timer success = registry.get(QueryMetrics.QUERY_TIMER)
+                .tags("statement", "SELECT_ALL_PRODUCTS", "outcome", "success").timer();
+        Timer error = registry.get(QueryMetrics.QUERY_TIMER)
+                .tags("statement", "SELECT_ALL_PRODUCTS", "outcome", "error").timer();
+        DistributionSummary rows = registry.get(QueryMetrics.QUERY_ROWS)
+                .tags("statement", "SELECT_ALL_PRODUCTS", "outcome", "success").summary();
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(success.count()).isEqualTo(2);
+        softly.assertThat(success.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(10.0);
+        softly.assertThat(error.count()).isEqualTo(1);
+        softly.assertThat(rows.totalAmount()).isEqualTo(30.0);
+        softly.assertAll();
+    }
+}
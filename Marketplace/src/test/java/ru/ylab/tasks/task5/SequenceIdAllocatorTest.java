@@ -0,0 +1,114 @@
+package ru.ylab.tasks.task5;
+
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.ylab.tasks.task5.repository.SequenceIdAllocator;
+import ru.ylab.tasks.task5.repository.jdbc.QueryExecutor;
+
+import javax.sql.DataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SequenceIdAllocatorTest {
+
+    private static final int BLOCK_SIZE = 3;
+
+    private final AtomicLong sequence = new AtomicLong(1);
+    private final AtomicInteger queries = new AtomicInteger();
+    private final QueryExecutor executor = new QueryExecutor(mock(DataSource.class));
+    private Connection conn;
+
+    /**
+     * Эмулирует последовательность с шагом BLOCK_SIZE: каждая строка результата - очередное nextval.
+     */
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        AtomicInteger remaining = new AtomicInteger();
+        AtomicLong current = new AtomicLong();
+
+        when(conn.prepareStatement(anyString())).thenReturn(ps);
+        doAnswer(inv -> {
+            remaining.set(inv.getArgument(1));
+            return null;
+        }).when(ps).setInt(anyInt(), anyInt());
+        when(ps.executeQuery()).thenAnswer(inv -> {
+            queries.incrementAndGet();
+            return rs;
+        });
+        when(rs.next()).thenAnswer(inv -> {
+            if (remaining.getAndDecrement() <= 0) return false;
+            current.set(sequence.getAndAdd(BLOCK_SIZE));
+            return true;
+        });
+        when(rs.getLong(anyInt())).thenAnswer(inv -> current.get());
+    }
+
+    @Test
+    @DisplayName("Выделение id: должно выдавать id подряд и обращаться к последовательности раз в блок")
+    void next_ShouldQuerySequenceOncePerBlock() throws SQLException {
+        SequenceIdAllocator allocator = new SequenceIdAllocator(executor, "SELECT", BLOCK_SIZE);
+
+        long[] ids = new long[5];
+        for (int i = 0; i < ids.length; i++) ids[i] = allocator.next(conn);
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(ids).containsExactly(1, 2, 3, 4, 5);
+        softly.assertThat(queries.get()).isEqualTo(2);
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Выделение id: пакет должен дополнять текущий блок и запрашивать недостающие блоки одним запросом")
+    void nextBatch_ShouldFetchMissingBlocksInOneQuery() throws SQLException {
+        SequenceIdAllocator allocator = new SequenceIdAllocator(executor, "SELECT", BLOCK_SIZE);
+
+        long first = allocator.next(conn);
+        long[] batch = allocator.next(conn, 7);
+        allocator.reset();
+        long afterReset = allocator.next(conn);
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(first).isEqualTo(1);
+        softly.assertThat(batch).containsExactly(2, 3, 4, 5, 6, 7, 8);
+        softly.assertThat(afterReset).isEqualTo(10);
+        softly.assertThat(queries.get()).isEqualTo(3);
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Выделение id: размер блока должен читаться из шага последовательности при первом резервировании")
+    void next_ShouldUseSequenceIncrement_WhenBlockSizeNotGiven() throws SQLException {
+        PreparedStatement incrementPs = mock(PreparedStatement.class);
+        ResultSet incrementRs = mock(ResultSet.class);
+        AtomicInteger incrementRows = new AtomicInteger(1);
+        when(conn.prepareStatement("INCREMENT")).thenReturn(incrementPs);
+        when(incrementPs.executeQuery()).thenReturn(incrementRs);
+        when(incrementRs.next()).thenAnswer(inv -> incrementRows.getAndDecrement() > 0);
+        when(incrementRs.getLong(anyInt())).thenReturn((long) BLOCK_SIZE);
+        SequenceIdAllocator allocator = new SequenceIdAllocator(executor, "SELECT", "INCREMENT");
+
+        long[] ids = allocator.next(conn, 4);
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(allocator.blockSize(conn)).isEqualTo(BLOCK_SIZE);
+        softly.assertThat(ids).containsExactly(1, 2, 3, 4);
+        softly.assertThat(queries.get()).isEqualTo(1);
+        softly.assertAll();
+    }
+}
@@ -0,0 +1,239 @@
+package ru.ylab.tasks.task5;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aopalliance.aop.Advice;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+import ru.ylab.tasks.task5.timing.annotation.EnableLogging;
+import ru.ylab.tasks.task5.timing.aspect.SpanAspect;
+import ru.ylab.tasks.task5.timing.aspect.TimingAspect;
+import ru.ylab.tasks.task5.timing.metrics.TimingRecorder;
+import ru.ylab.tasks.task5.timing.metrics.TimingSnapshot;
+import ru.ylab.tasks.task5.timing.span.Span;
+import ru.ylab.tasks.task5.timing.span.SpanTree;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SpanTreeTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(TimingAspect.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private TimingRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+        recorder = new TimingRecorder(new SimpleMeterRegistry(), new double[]{0.5});
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        SpanTree current = SpanTree.current();
+        if (current != null) current.close();
+    }
+
+    @Test
+    @DisplayName("Дерево вызовов: должно объединять вызовы одного метода с общим родителем и считать собственное время")
+    void format_ShouldGroupSiblingsByName_AndReportOwnTime() throws NoSuchMethodException {
+        Method search = SampleController.class.getMethod("search", String.class);
+        Method find = SampleService.class.getMethod("find", String.class);
+        Method query = SampleRepository.class.getMethod("query", String.class);
+
+        SpanTree tree = SpanTree.open(16);
+        Span root = tree.enter(SampleController.class, search);
+        Span first = tree.enter(SampleService.class, find);
+        Span repository = tree.enter(SampleRepository.class, query);
+        tree.exit(repository, 2 * MS, true);
+        tree.exit(first, 5 * MS, true);
+        Span second = tree.enter(SampleService.class, find);
+        tree.exit(second, 3 * MS, false);
+        tree.exit(root, 10 * MS, true);
+        tree.close();
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(SpanTree.current()).isNull();
+        softly.assertThat(tree.root()).isSameAs(root);
+        softly.assertThat(root.children()).containsExactly(first, second);
+        softly.assertThat(repository.parent()).isSameAs(first);
+        softly.assertThat(tree.format()).isEqualTo(
+                "  SampleController.search: 10.000 мс, собственное 2.000 мс\n"
+                        + "    SampleService.find x2: 8.000 мс, собственное 6.000 мс, ошибок 1\n"
+                        + "      SampleRepository.query: 2.000 мс");
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Дерево вызовов: должно подсчитывать, но не добавлять вызовы сверх лимита узлов")
+    void enter_ShouldCountDroppedSpans_WhenLimitReached() throws NoSuchMethodException {
+        Method search = SampleController.class.getMethod("search", String.class);
+        Method find = SampleService.class.getMethod("find", String.class);
+
+        SpanTree tree = SpanTree.open(3);
+        Span root = tree.enter(SampleController.class, search);
+        for (int i = 0; i < 5; i++) {
+            Span span = tree.enter(SampleService.class, find);
+            if (span != null) tree.exit(span, MS, true);
+        }
+        tree.exit(root, 10 * MS, true);
+        tree.close();
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(root.children()).hasSize(2);
+        softly.assertThat(tree.dropped()).isEqualTo(3);
+        softly.assertThat(tree.format())
+                .contains("SampleService.find x2: 2.000 мс")
+                .endsWith("  вызовов сверх лимита: 3");
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Дерево вызовов: медленный вызов контроллера должен писаться с разбивкой по вложенным вызовам")
+    void invoke_ShouldLogNestedBreakdown_WhenControllerCallIsSlow() {
+        SampleController controller = controller(0.0);
+
+        controller.search("lapt");
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(SpanTree.current()).isNull();
+        softly.assertThat(appender.list).hasSize(1);
+        softly.assertThat(appender.list.get(0).getFormattedMessage())
+                .contains("разбивка:\n  SampleController.search: ")
+                .contains("\n    SampleService.find x2: ")
+                .contains("\n      SampleRepository.query x2: ");
+        softly.assertThat(recorder.snapshot()).isEmpty();
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Дерево вызовов: должно закрываться и учитывать ошибку, если вызов завершился исключением")
+    void invoke_ShouldCloseTree_WhenCallFails() {
+        SampleController controller = controller(1.0);
+
+        assertThatThrownBy(() -> controller.search(null)).isInstanceOf(NullPointerException.class);
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(SpanTree.current()).isNull();
+        softly.assertThat(appender.list.get(0).getFormattedMessage()).contains("ошибок 1");
+        softly.assertThat(recorder.snapshot())
+                .extracting(TimingSnapshot::name, TimingSnapshot::outcome)
+                .contains(tuple("SampleController.search", "error"), tuple("SampleRepository.query", "error"));
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Аспект сервисов: вне измеряемого запроса должен записывать только долю вызовов")
+    void invoke_ShouldSkipUnsampledCalls_WhenNoTreeOpen() {
+        SampleRepository repository = proxy(new SampleRepository(), new SpanAspect(recorder, 0.0));
+        repository.query("lapt");
+        SampleRepository sampled = proxy(new SampleRepository(), new SpanAspect(recorder, 1.0));
+        sampled.query("lapt");
+
+        assertThat(recorder.snapshot()).extracting(TimingSnapshot::count).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Аспект сервисов: должен измерять бины без аннотаций, если их тип указан в timing.spans.types")
+    void spanAdvisor_ShouldMatchBeansByType_WithoutAnnotations() {
+        ApplicationContextRunner runner = new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(AopAutoConfiguration.class))
+                .withUserConfiguration(LoggingEnabledConfiguration.class)
+                .withBean(SampleRepository.class)
+                .withPropertyValues("timing.spans.enabled=true");
+
+        runner.run(context -> assertThat(AopUtils.isAopProxy(context.getBean(SampleRepository.class))).isFalse());
+        runner.withPropertyValues("timing.spans.types=" + SampleRepository.class.getName()).run(context -> {
+            context.getBean(SampleRepository.class).query("lapt");
+
+            SoftAssertions softly = new SoftAssertions();
+            softly.assertThat(AopUtils.isAopProxy(context.getBean(SampleRepository.class))).isTrue();
+            softly.assertThat(context.getBean(TimingRecorder.class).snapshot())
+                    .extracting(TimingSnapshot::name)
+                    .containsExactly("SampleRepository.query");
+            softly.assertAll();
+        });
+    }
+
+    private SampleController controller(double sampleRate) {
+        SpanAspect spanAspect = new SpanAspect(recorder, sampleRate);
+        SampleRepository repository = proxy(new SampleRepository(), spanAspect);
+        SampleService service = proxy(new SampleService(repository), spanAspect);
+        return proxy(new SampleController(service),
+                new TimingAspect(recorder, sampleRate, Duration.ofNanos(1), false, 0, 64));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(T target, Advice advice) {
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(advice);
+        return (T) factory.getProxy();
+    }
+
+    public static class SampleController {
+
+        private final SampleService service;
+
+        public SampleController() {
+            this(null);
+        }
+
+        public SampleController(SampleService service) {
+            this.service = service;
+        }
+
+        public int search(String keyword) {
+            return service.find(keyword) + service.find(keyword);
+        }
+    }
+
+    public static class SampleService {
+
+        private final SampleRepository repository;
+
+        public SampleService() {
+            this(null);
+        }
+
+        public SampleService(SampleRepository repository) {
+            this.repository = repository;
+        }
+
+        public int find(String keyword) {
+            return repository.query(keyword);
+        }
+    }
+
+    public static class SampleRepository {
+
+        public int query(String keyword) {
+            return keyword.length();
+        }
+    }
+
+    @Configuration
+    @EnableLogging
+    static class LoggingEnabledConfiguration {
+    }
+}
@@ -0,0 +1,227 @@
+package ru.ylab.tasks.task5;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.bind.annotation.RestController;
+import ru.ylab.tasks.task5.audit.annotation.Auditable;
+import ru.ylab.tasks.task5.timing.TimingFilter;
+import ru.ylab.tasks.task5.timing.annotation.EnableLogging;
+import ru.ylab.tasks.task5.timing.aspect.TimingAspect;
+import ru.ylab.tasks.task5.timing.metrics.TimingRecorder;
+import ru.ylab.tasks.task5.timing.metrics.TimingSnapshot;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimingAspectTest {
+
+    private static final String REST_CONTROLLER = "org.springframework.web.bind.annotation.RestController";
+    private static final String AUDITABLE = "ru.ylab.tasks.task5.audit.annotation.Auditable";
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(TimingAspect.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private TimingRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+        recorder = new TimingRecorder(new SimpleMeterRegistry(), new double[]{0.5});
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    @DisplayName("Фильтр времени: срез должен отбирать методы по аннотации класса или метода и по пакету")
+    void expression_ShouldMatchByAnnotationAndPackage() throws NoSuchMethodException {
+        Method controllerMethod = SampleController.class.getMethod("search", String.class);
+        Method auditedMethod = SampleService.class.getMethod("audited");
+        Method plainMethod = SampleService.class.getMethod("plain");
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(matches(TimingFilter.DEFAULT, controllerMethod, SampleController.class)).isTrue();
+        softly.assertThat(matches(TimingFilter.DEFAULT, plainMethod, SampleService.class)).isFalse();
+
+        TimingFilter byMethodAnnotation = new TimingFilter(List.of(), List.of(AUDITABLE));
+        softly.assertThat(matches(byMethodAnnotation, auditedMethod, SampleService.class)).isTrue();
+        softly.assertThat(matches(byMethodAnnotation, plainMethod, SampleService.class)).isFalse();
+
+        TimingFilter byPackage = new TimingFilter(List.of("ru.ylab.tasks"), List.of());
+        softly.assertThat(matches(byPackage, plainMethod, SampleService.class)).isTrue();
+
+        TimingFilter otherPackage = new TimingFilter(List.of("ru.ylab.other"), List.of(REST_CONTROLLER));
+        softly.assertThat(matches(otherPackage, controllerMethod, SampleController.class)).isFalse();
+        TimingFilter samePackage = new TimingFilter(List.of("ru.ylab.other", "ru.ylab.tasks.task5"), List.of(REST_CONTROLLER));
+        softly.assertThat(matches(samePackage, controllerMethod, SampleController.class)).isTrue();
+        softly.assertThat(matches(samePackage, plainMethod, SampleService.class)).isFalse();
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Фильтр времени: должен отклонять фильтр без пакетов и аннотаций")
+    void constructor_ShouldReject_WhenFilterEmpty() {
+        assertThatThrownBy(() -> new TimingFilter(List.of(), List.of())).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("@EnableLogging: должен измерять только методы, отобранные аннотациями и пакетами")
+    void enableLogging_ShouldTimeOnlyMethodsInsideFilter() {
+        ApplicationContextRunner runner = new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(AopAutoConfiguration.class))
+                .withBean(SampleController.class)
+                .withBean(SampleService.class);
+
+        runner.withUserConfiguration(SamePackageConfiguration.class).run(context -> {
+            context.getBean(SampleController.class).search("lapt");
+            context.getBean(SampleService.class).plain();
+
+            assertThat(context.getBean(TimingRecorder.class).snapshot())
+                    .extracting(TimingSnapshot::name)
+                    .containsExactly("SampleController.search");
+        });
+        runner.withUserConfiguration(OtherPackageConfiguration.class).run(context -> {
+            context.getBean(SampleController.class).search("lapt");
+
+            assertThat(context.getBean(TimingRecorder.class).snapshot()).isEmpty();
+        });
+    }
+
+    @Test
+    @DisplayName("Аспект времени: должен записывать все вызовы при доле 1 и ни одного при доле 0")
+    void invoke_ShouldRecordAllOrNothing_WhenSampleRateIsOneOrZero() {
+        proxy(new TimingAspect(recorder, 1.0, Duration.ZERO, false, 0), 1_000);
+        long all = count();
+        recorder.reset();
+        proxy(new TimingAspect(recorder, 0.0, Duration.ZERO, false, 0), 1_000);
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(all).isEqualTo(1_000);
+        softly.assertThat(recorder.snapshot()).isEmpty();
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Аспект времени: должен записывать приблизительно долю sampleRate вызовов")
+    void invoke_ShouldRecordShareOfCalls_WhenSampleRateIsPartial() {
+        proxy(new TimingAspect(recorder, 0.25, Duration.ZERO, false, 0), 20_000);
+
+        assertThat(count()).isBetween(4_000L, 6_000L);
+    }
+
+    @Test
+    @DisplayName("Аспект времени: должен писать медленный вызов с усеченными аргументами независимо от доли")
+    void invoke_ShouldLogSlowCall_WhenNotSampled() {
+        proxy(new TimingAspect(recorder, 0.0, Duration.ofNanos(1), true, 8), 1);
+        proxy(new TimingAspect(recorder, 0.0, Duration.ofNanos(1), false, 8), 1);
+
+        List<String> lines = appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(recorder.snapshot()).isEmpty();
+        softly.assertThat(lines).hasSize(2);
+        softly.assertThat(lines.get(0)).startsWith("Медленный вызов SampleController.search").contains("аргументы: [laptop-...");
+        softly.assertThat(lines.get(1)).contains("аргументы: [скрыты]");
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Аспект времени: не должен преобразовывать в строку аргументы медленного вызова за пределом длины")
+    void invoke_ShouldStopFormattingArguments_AtMaxLength() {
+        AtomicInteger calls = new AtomicInteger();
+        List<Object> products = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            products.add(new Object() {
+                @Override
+                public String toString() {
+                    calls.incrementAndGet();
+                    return "Product[name=Laptop]";
+                }
+            });
+        }
+        ProxyFactory factory = new ProxyFactory(new SampleController());
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(new TimingAspect(recorder, 0.0, Duration.ofNanos(1), true, 50));
+
+        ((SampleController) factory.getProxy()).importAll(products);
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(appender.list).hasSize(1);
+        softly.assertThat(appender.list.get(0).getFormattedMessage())
+                .endsWith("аргументы: [[Product[name=Laptop], Product[name=Laptop], Prod...");
+        softly.assertThat(calls.get()).isLessThan(5);
+        softly.assertAll();
+    }
+
+    private void proxy(TimingAspect aspect, int calls) {
+        ProxyFactory factory = new ProxyFactory(new SampleController());
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(aspect);
+        SampleController controller = (SampleController) factory.getProxy();
+        for (int i = 0; i < calls; i++) controller.search("laptop-" + i + "-pro");
+    }
+
+    private long count() {
+        return recorder.snapshot().stream().mapToLong(TimingSnapshot::count).sum();
+    }
+
+    private static boolean matches(TimingFilter filter, Method method, Class<?> type) {
+        AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+        pointcut.setExpression(filter.expression());
+        return pointcut.matches(method, type);
+    }
+
+    @RestController
+    public static class SampleController {
+
+        public int search(String keyword) {
+            return keyword.length();
+        }
+
+        public int importAll(List<?> items) {
+            return items.size();
+        }
+    }
+
+    public static class SampleService {
+
+        @Auditable(action = "Тест")
+        public void audited() {
+        }
+
+        public void plain() {
+        }
+    }
+
+    @Configuration
+    @EnableLogging(packages = "ru.ylab.tasks.task5")
+    static class SamePackageConfiguration {
+    }
+
+    @Configuration
+    @EnableLogging(packages = "ru.ylab.other")
+    static class OtherPackageConfiguration {
+    }
+}
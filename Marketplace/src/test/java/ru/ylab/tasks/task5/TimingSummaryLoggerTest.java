@@ -0,0 +1,99 @@
+package ru.ylab.tasks.task5;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import ru.ylab.tasks.task5.timing.metrics.TimingRecorder;
+import ru.ylab.tasks.task5.timing.metrics.TimingSummaryLogger;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.List;
+
+class TimingSummaryLoggerTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(TimingSummaryLogger.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private TimingRecorder recorder;
+    private TimingSummaryLogger summary;
+    private Method method;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        appender.start();
+        logger.addAppender(appender);
+        recorder = new TimingRecorder(new SimpleMeterRegistry(), new double[]{0.5});
+        summary = new TimingSummaryLogger(recorder, Duration.ZERO);
+        method = SampleController.class.getMethod("search");
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        summary.close();
+    }
+
+    @Test
+    @DisplayName("Сводка времени: количество и среднее за период должны считаться только по вызовам этого периода")
+    void logSummary_ShouldReportIntervalMean_SeparatelyFromCumulative() {
+        for (int i = 0; i < 3; i++) recorder.record(method, 10 * MS, true);
+        summary.logSummary();
+        recorder.record(method, 50 * MS, true);
+        summary.logSummary();
+
+        List<String> lines = lines();
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(lines).hasSize(2);
+        softly.assertThat(lines.get(0))
+                .contains("SampleController.search [success]")
+                .contains("за период: calls=3 mean=10.000 ms")
+                .contains("всего: calls=3 mean=10.000 ms");
+        softly.assertThat(lines.get(1))
+                .contains("за период: calls=1 mean=50.000 ms")
+                .contains("за 2m: p50=")
+                .contains("max=50.000 ms")
+                .contains("всего: calls=4 mean=20.000 ms");
+        softly.assertAll();
+    }
+
+    @Test
+    @DisplayName("Сводка времени: не должна писать методы без вызовов за период и должна начинать заново после сброса")
+    void logSummary_ShouldSkipIdleMethods_AndRestartAfterReset() {
+        recorder.record(method, 10 * MS, true);
+        summary.logSummary();
+        summary.logSummary();
+        recorder.reset();
+        recorder.record(method, 30 * MS, false);
+        summary.logSummary();
+
+        List<String> lines = lines();
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(lines).hasSize(2);
+        softly.assertThat(lines.get(1))
+                .contains("[error]")
+                .contains("за период: calls=1 mean=30.000 ms")
+                .contains("всего: calls=1 mean=30.000 ms");
+        softly.assertAll();
+    }
+
+    private List<String> lines() {
+        return appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+    }
+
+    public static class SampleController {
+
+        public void search() {
+        }
+    }
+}